@@ -0,0 +1,133 @@
+package org.example.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.service.AdmissionControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ağır endpoint'lere gelen istekleri AdmissionControl'den geçirir. Reddedilen istek controller'a ulaşmadan
+ * Retry-After ile 429/503 alır. Akışla yazılan yanıtlarda (range) izin, asenkron yazım bitince bırakılır.
+ * Kuyruğa alınan istek asenkron moda geçip Tomcat thread'ini bırakır; karar gelince yeniden dispatch edilir.
+ */
+@Component
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    // Kuyruktan dönen kararın (izin ya da red) asenkron dispatch'e taşındığı request attribute'u
+    private static final String DECISION_ATTRIBUTE = AdmissionFilter.class.getName() + ".decision";
+
+    private final AdmissionControl admissionControl;
+    private final ObjectMapper objectMapper;
+
+    public AdmissionFilter(AdmissionControl admissionControl, ObjectMapper objectMapper) {
+        this.admissionControl = admissionControl;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // Kuyruktan dönen istekler asenkron dispatch ile gelir
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AdmissionControl.EndpointClass endpointClass = admissionControl.classify(
+                request.getRequestURI().substring(request.getContextPath().length()));
+        if (endpointClass == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        AdmissionControl.Admission admission;
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            admission = (AdmissionControl.Admission) request.getAttribute(DECISION_ATTRIBUTE);
+            if (admission == null) {
+                // Akışla yazılan yanıtın tamamlanma dispatch'i: izin ilk geçişte alındı
+                chain.doFilter(request, response);
+                return;
+            }
+            request.removeAttribute(DECISION_ATTRIBUTE);
+        } else {
+            admission = admissionControl.admit(endpointClass, request.getRemoteAddr());
+        }
+        if (admission.isQueued()) {
+            AsyncContext asyncContext = request.startAsync(request, response);
+            admission.pending.thenAccept(decision -> {
+                request.setAttribute(DECISION_ATTRIBUTE, decision);
+                asyncContext.dispatch();
+            });
+            return;
+        }
+        if (!admission.admitted) {
+            response.setStatus(admission.status);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(admission.retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), Map.of(
+                "status", "error",
+                "message", admission.message
+            ));
+            return;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                admissionControl.release(endpointClass);
+            }
+        };
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(release));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                release.run();
+            }
+        }
+    }
+
+    /**
+     * Hata ve zaman aşımında da onComplete çağrılır
+     */
+    private static final class ReleaseOnComplete implements AsyncListener {
+        private final Runnable release;
+
+        ReleaseOnComplete(Runnable release) {
+            this.release = release;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.config;
+
+import io.netty.channel.ChannelOption;
+import org.example.service.OutboundRequestScheduler;
+import org.example.service.PersistShards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Dış API'ler için paylaşılan, bağlantı havuzlu WebClient'lar ve kayıt scheduler'ları
+ */
+@Configuration
+public class WebClientConfig {
+
+    // 1000'lik kline ve yıllık market_chart yanıtları varsayılan 256KB sınırını aşabilir
+    private static final int MAX_RESPONSE_SIZE = 8 * 1024 * 1024;
+
+    @Value("${app.http.max-connections-per-host:10}")
+    private int maxConnectionsPerHost;
+
+    @Value("${app.http.pending-acquire-timeout:5000}")
+    private long pendingAcquireTimeout;
+
+    @Value("${app.http.max-idle-time:30000}")
+    private long maxIdleTime;
+
+    @Value("${app.http.connect-timeout:5000}")
+    private int connectTimeout;
+
+    @Value("${app.coingecko.timeout}")
+    private long responseTimeout;
+
+    /**
+     * Havuz her uzak adres için ayrı tutulur; maxConnections host başına sınırdır
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider fetchConnectionProvider() {
+        return ConnectionProvider.builder("price-fetch")
+                .maxConnections(maxConnectionsPerHost)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeout))
+                .maxIdleTime(Duration.ofMillis(maxIdleTime))
+                .evictInBackground(Duration.ofMillis(maxIdleTime))
+                .build();
+    }
+
+    @Bean
+    public ReactorClientHttpConnector fetchClientConnector(ConnectionProvider fetchConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(fetchConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+                .responseTimeout(Duration.ofMillis(responseTimeout));
+        return new ReactorClientHttpConnector(httpClient);
+    }
+
+    @Bean
+    public WebClient binanceWebClient(WebClient.Builder builder, ReactorClientHttpConnector fetchClientConnector,
+                                      OutboundRequestScheduler outboundScheduler,
+                                      @Value("${app.binance.base-url:https://api.binance.com}") String baseUrl) {
+        return builder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(fetchClientConnector)
+                .filter(outboundScheduler.rateLimitFilter(OutboundRequestScheduler.Provider.BINANCE))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_RESPONSE_SIZE))
+                .build();
+    }
+
+    @Bean
+    public WebClient coingeckoWebClient(WebClient.Builder builder, ReactorClientHttpConnector fetchClientConnector,
+                                        OutboundRequestScheduler outboundScheduler,
+                                        @Value("${app.coingecko.base-url}") String baseUrl) {
+        return builder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(fetchClientConnector)
+                .filter(outboundScheduler.rateLimitFilter(OutboundRequestScheduler.Provider.COINGECKO))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_RESPONSE_SIZE))
+                .build();
+    }
+
+    /**
+     * Bloklayıcı JPA kayıtlarının event loop dışında yapıldığı, sembole göre bölünmüş scheduler'lar.
+     * Shard sayısı verilmezse çekirdek sayısı kadardır.
+     */
+    @Bean(destroyMethod = "dispose")
+    public PersistShards persistShards(@Value("${app.fetch.persist-shards:0}") int shards,
+                                       @Value("${app.fetch.persist-queue-size:100}") int queueSize) {
+        return new PersistShards(shards > 0 ? shards : Runtime.getRuntime().availableProcessors(), queueSize);
+    }
+}
@@ -1,15 +1,23 @@
 package org.example.controller;
 
 import org.example.entity.PriceEntity;
+import org.example.entity.BackfillJob;
+import org.example.service.BackfillService;
+import org.example.service.FetchJobService;
+import org.example.service.FetchScheduler;
+import org.example.service.OutboundRequestScheduler;
 import org.example.service.FetchService;
+import org.example.service.SymbolRegistry;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
 import org.springframework.web.bind.annotation.GetMapping;
 
 @RestController
@@ -18,29 +26,43 @@ import org.springframework.web.bind.annotation.GetMapping;
 public class FetchController {
     
     private final FetchService fetchService;
-    // Son fetch zamanı için static referans
-    private static final AtomicReference<LocalDateTime> lastFetchTime = new AtomicReference<>();
+    private final BackfillService backfillService;
+    private final OutboundRequestScheduler outboundScheduler;
+    private final FetchScheduler fetchScheduler;
+    private final FetchJobService fetchJobService;
+    private final SymbolRegistry symbolRegistry;
     
-    public FetchController(FetchService fetchService) {
+    public FetchController(FetchService fetchService, BackfillService backfillService,
+                           OutboundRequestScheduler outboundScheduler, FetchScheduler fetchScheduler,
+                           FetchJobService fetchJobService, SymbolRegistry symbolRegistry) {
         this.fetchService = fetchService;
+        this.backfillService = backfillService;
+        this.outboundScheduler = outboundScheduler;
+        this.fetchScheduler = fetchScheduler;
+        this.fetchJobService = fetchJobService;
+        this.symbolRegistry = symbolRegistry;
     }
     
     /**
-     * POST /api/fetch/{interval} - Belirli interval için yeni verileri çeker
+     * POST /api/fetch/{interval}?symbol=... - Belirli interval için yeni verileri arka planda çeker
+     * (symbol yoksa tüm semboller). Hemen 202 ve iş döner; aynı interval için süren iş varsa o döner.
+     * Bitiş /api/fetch/jobs/{id} ile ya da /api/stream/{interval} üzerindeki "fetch" olayıyla izlenir.
      */
     @PostMapping("/{interval}")
-    public ResponseEntity<Object> fetchData(@PathVariable String interval) {
+    public ResponseEntity<Object> fetchData(@PathVariable String interval,
+                                            @RequestParam(required = false) String symbol) {
+        String resolvedSymbol;
+        try {
+            resolvedSymbol = symbol == null || symbol.isBlank() ? null : symbolRegistry.resolve(symbol);
+        } catch (IllegalArgumentException e) {
+            return invalidSymbol(symbol);
+        }
         try {
             PriceEntity.IntervalType intervalType = PriceEntity.IntervalType.fromString(interval);
-            String result = fetchService.fetchDataManually(intervalType);
-            lastFetchTime.set(LocalDateTime.now());
-            
-            Map<String, String> response = new HashMap<>();
-            response.put("message", result);
-            response.put("interval", interval);
-            response.put("status", "success");
-            
-            return ResponseEntity.ok(response);
+            FetchJobService.FetchJob job = fetchJobService.submit(resolvedSymbol, intervalType);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .location(URI.create("/api/fetch/jobs/" + job.getId()))
+                    .body(job);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of(
                 "errors", List.of(Map.of(
@@ -81,14 +103,85 @@ public class FetchController {
         }
     }
     
+    /**
+     * POST /api/fetch/backfill/{interval}?from=...&to=...&symbol=... - Geçmiş verileri arka planda chunk'lar halinde yükler
+     */
+    @PostMapping("/backfill/{interval}")
+    public ResponseEntity<Object> backfill(
+            @PathVariable String interval,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String symbol) {
+        String resolvedSymbol;
+        try {
+            resolvedSymbol = symbolRegistry.resolve(symbol);
+        } catch (IllegalArgumentException e) {
+            return invalidSymbol(symbol);
+        }
+        PriceEntity.IntervalType intervalType;
+        try {
+            intervalType = PriceEntity.IntervalType.fromString(interval);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "errors", List.of(Map.of(
+                    "status", "400",
+                    "title", "Invalid Interval",
+                    "detail", "The interval '" + interval + "' is not supported."
+                ))
+            ));
+        }
+        try {
+            BackfillJob job = backfillService.start(resolvedSymbol, intervalType, from, to);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new BackfillService.BackfillStatus(job));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "errors", List.of(Map.of(
+                    "status", "400",
+                    "title", "Invalid Range",
+                    "detail", e.getMessage()
+                ))
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of(
+                "errors", List.of(Map.of(
+                    "status", "500",
+                    "title", "Internal Server Error",
+                    "detail", e.getMessage()
+                ))
+            ));
+        }
+    }
+    
+    /**
+     * GET /api/fetch/jobs/{id} - Elle tetiklenen çekme işinin durumu (RUNNING, COMPLETED, FAILED)
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<Object> getJob(@PathVariable long id) {
+        FetchJobService.FetchJob job = fetchJobService.getJob(id);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                "errors", List.of(Map.of(
+                    "status", "404",
+                    "title", "Job Not Found",
+                    "detail", "The fetch job '" + id + "' does not exist or has expired."
+                ))
+            ));
+        }
+        return ResponseEntity.ok(job);
+    }
+    
     /**
      * GET /api/fetch/status - Veri çekme durumunu kontrol eder
      */
     @GetMapping("/status")
     public ResponseEntity<Object> getStatus() {
         Map<String, Object> status = new HashMap<>();
-        status.put("lastFetch", lastFetchTime.get() != null ? lastFetchTime.get().toString() : "Never");
-        status.put("autoFetchIntervalMinutes", 5);
+        LocalDateTime lastFetch = fetchJobService.getLastFinished();
+        status.put("lastFetch", lastFetch != null ? lastFetch.toString() : "Never");
+        status.put("jobs", fetchJobService.getJobs());
+        status.put("nextFetch", fetchScheduler.getSchedule());
+        status.put("backfill", backfillService.getStatus());
+        status.put("outbound", outboundScheduler.getStatus());
         return ResponseEntity.ok(status);
     }
     
@@ -111,6 +204,16 @@ public class FetchController {
         }
     }
     
+    private ResponseEntity<Object> invalidSymbol(String symbol) {
+        return ResponseEntity.badRequest().body(Map.of(
+            "errors", List.of(Map.of(
+                "status", "400",
+                "title", "Invalid Symbol",
+                "detail", "The symbol '" + symbol + "' is not tracked."
+            ))
+        ));
+    }
+    
     /**
      * String interval'i PriceEntity.IntervalType'a çevirir
      */
@@ -1,16 +1,41 @@
 package org.example.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.PriceColumnsDto;
 import org.example.dto.PriceDto;
 import org.example.dto.SignalDto;
+import org.example.dto.SignalFields;
 import org.example.entity.PriceEntity;
+import org.example.entity.Timeframe;
+import org.example.service.AdmissionControl;
+import org.example.service.DataVersionService;
+import org.example.service.MarketStreamService;
+import org.example.service.PriceQuoteService;
 import org.example.service.PriceService;
+import org.example.service.ResponseCache;
+import org.example.service.SingleFlight;
+import org.example.service.SymbolRegistry;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api")
@@ -18,35 +43,99 @@ import java.util.Map;
 public class PriceController {
     
     private final PriceService priceService;
+    private final PriceQuoteService priceQuoteService;
+    private final MarketStreamService marketStreamService;
+    private final DataVersionService dataVersionService;
+    private final ResponseCache responseCache;
+    private final SingleFlight singleFlight;
+    private final AdmissionControl admissionControl;
+    private final SymbolRegistry symbolRegistry;
+    private final ObjectMapper objectMapper;
     
-    public PriceController(PriceService priceService) {
+    public PriceController(PriceService priceService, PriceQuoteService priceQuoteService,
+                           MarketStreamService marketStreamService, DataVersionService dataVersionService,
+                           ResponseCache responseCache, SingleFlight singleFlight, AdmissionControl admissionControl,
+                           SymbolRegistry symbolRegistry, ObjectMapper objectMapper) {
         this.priceService = priceService;
+        this.priceQuoteService = priceQuoteService;
+        this.marketStreamService = marketStreamService;
+        this.dataVersionService = dataVersionService;
+        this.responseCache = responseCache;
+        this.singleFlight = singleFlight;
+        this.admissionControl = admissionControl;
+        this.symbolRegistry = symbolRegistry;
+        this.objectMapper = objectMapper;
     }
     
     /**
-     * GET /api/price/{interval} - Belirli periyottaki fiyat verilerini döner
+     * GET /api/symbols - Takip edilen sembolleri döner (ilki sembol verilmeyen isteklerin varsayılanıdır)
+     */
+    @GetMapping("/symbols")
+    public ResponseEntity<Map<String, Object>> getSymbols() {
+        return ResponseEntity.ok(Map.of(
+            "symbols", symbolRegistry.getSymbols(),
+            "default", symbolRegistry.getDefaultSymbol()
+        ));
+    }
+    
+    /**
+     * GET /api/price/{interval} - Belirli periyottaki fiyat verilerini cursor ile sayfalı döner
+     * (?before=... daha eski, ?after=... daha yeni barlar; yanıttaki nextCursor bir sonraki sayfa içindir).
+     * interval kayıtlı olanların yanında 2h, 12h, 1w, 1M gibi türetilmiş bir zaman dilimi de olabilir.
+     * Tüm endpoint'lerde ?symbol= verilmezse varsayılan sembol kullanılır.
      */
     @GetMapping("/price/{interval}")
-    public ResponseEntity<Object> getPriceData(@PathVariable String interval) {
+    public ResponseEntity<Object> getPriceData(
+            @PathVariable String interval,
+            @RequestParam(required = false) String symbol,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after,
+            @RequestParam(defaultValue = "500") int size,
+            WebRequest request) {
         try {
-            PriceEntity.IntervalType intervalType = PriceEntity.IntervalType.fromString(interval);
-            List<PriceDto> priceData = priceService.getPriceData(intervalType);
-            return ResponseEntity.ok(priceData);
+            if (size <= 0 || size > 1000) {
+                return ResponseEntity.badRequest().body(Map.of(
+                    "status", "error",
+                    "message", "Size must be between 1 and 1000."
+                ));
+            }
+            if (before != null && after != null) {
+                return ResponseEntity.badRequest().body(Map.of(
+                    "status", "error",
+                    "message", "Only one of before or after can be given."
+                ));
+            }
+            Timeframe timeframe = Timeframe.parse(interval);
+            PriceEntity.IntervalType intervalType = timeframe.toIntervalType();
+            String resolved = symbolRegistry.resolve(symbol);
+            if (intervalType == null) {
+                // Kayıtlı olmayan interval'lar (2h, 12h, 1w, 1M...) istek anında yeniden örneklenir
+                return ResponseEntity.ok(priceService.getResampledPage(resolved, timeframe, before, after, size));
+            }
+            String etag = dataVersionService.etag("page", resolved, intervalType, before, after, size);
+            return conditional(request, etag, resolved, intervalType,
+                    () -> ResponseEntity.ok(priceService.getPriceDataPage(resolved, intervalType, before, after, size)));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of(
                 "status", "error",
-                "message", "Invalid interval: " + interval
+                "message", e.getMessage()
             ));
         }
     }
     
     /**
-     * GET /api/price/{interval}/latest/{limit} - Son N kaydı getirir
+     * GET /api/price/{interval}/latest/{limit} - Son N kaydı getirir.
+     * ?format=columnar (ya da Accept: application/vnd.price.columnar+json) kolon bazlı JSON,
+     * ?format=f64 (ya da Accept: application/vnd.price.f64) little-endian float64 çerçevesi döner.
      */
     @GetMapping("/price/{interval}/latest/{limit}")
     public ResponseEntity<Object> getLatestPriceData(
             @PathVariable String interval,
-            @PathVariable int limit) {
+            @PathVariable int limit,
+            @RequestParam(required = false) String symbol,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest request) {
         try {
             if (limit <= 0 || limit > 1000) {
                 return ResponseEntity.badRequest().body(Map.of(
@@ -55,56 +144,144 @@ public class PriceController {
                 ));
             }
             PriceEntity.IntervalType intervalType = PriceEntity.IntervalType.fromString(interval);
-            List<PriceDto> priceData = priceService.getLatestPriceData(intervalType, limit);
-            return ResponseEntity.ok(priceData);
+            String resolved = symbolRegistry.resolve(symbol);
+            String wireFormat = resolveWireFormat(format, accept);
+            String etag = dataVersionService.etag("latest", resolved, intervalType, limit, wireFormat);
+            return conditional(request, etag, resolved, intervalType, () -> {
+                List<PriceDto> priceData = priceService.getLatestPriceData(resolved, intervalType, limit);
+                if (wireFormat == null) {
+                    return ResponseEntity.ok(priceData);
+                }
+                PriceColumnsDto columns = new PriceColumnsDto(resolved, intervalType.getValue(), priceData);
+                if (PriceColumnsDto.FLOAT64.equals(wireFormat)) {
+                    return ResponseEntity.ok()
+                            .contentType(MediaType.parseMediaType(PriceColumnsDto.FLOAT64))
+                            .body(columns.toFloat64Frame());
+                }
+                return ResponseEntity.ok().contentType(MediaType.parseMediaType(PriceColumnsDto.COLUMNAR_JSON)).body(columns);
+            });
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of(
                 "status", "error",
-                "message", "Invalid interval: " + interval
+                "message", e.getMessage()
             ));
         }
     }
     
     /**
-     * GET /api/signal/{interval} - İndikatöre göre sinyal döner
+     * GET /api/price/{interval}/since/{epochMillis} - Grafikteki son barın (epoch ms) güncel hali ve sonrasındaki yeni
+     * barlar, overlay değerleriyle. İstemci aynı timestamp'li barı değiştirip yenilerini ekler.
+     */
+    @GetMapping("/price/{interval}/since/{epochMillis}")
+    public ResponseEntity<Object> getPriceDataSince(
+            @PathVariable String interval,
+            @PathVariable long epochMillis,
+            @RequestParam(required = false) String symbol,
+            WebRequest request) {
+        try {
+            PriceEntity.IntervalType intervalType = PriceEntity.IntervalType.fromString(interval);
+            String resolved = symbolRegistry.resolve(symbol);
+            LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+            return conditional(request, dataVersionService.etag("since", resolved, intervalType, epochMillis), resolved, intervalType,
+                    () -> ResponseEntity.ok(priceService.getPriceDataSince(resolved, intervalType, since)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * GET /api/signal/{interval} - İndikatöre göre sinyal döner.
+     * ?fields=signal,rsiValue,entryPrice gibi bir liste verilirse sadece bu alanlar yazılır ve hesaplanır.
      */
     @GetMapping("/signal/{interval}")
-    public ResponseEntity<Object> getSignal(@PathVariable String interval) {
+    public ResponseEntity<Object> getSignal(@PathVariable String interval,
+                                            @RequestParam(required = false) String symbol,
+                                            @RequestParam(required = false) String fields,
+                                            WebRequest request) {
         try {
             PriceEntity.IntervalType intervalType = PriceEntity.IntervalType.fromString(interval);
-            SignalDto signal = priceService.generateSignal(intervalType);
-            return ResponseEntity.ok(signal);
+            String resolved = symbolRegistry.resolve(symbol);
+            SignalFields signalFields = SignalFields.parse(fields);
+            // Sentiment alanları isteniyorsa sentiment snapshot'ı yenilenince ETag (ve önbellek anahtarı) değişir
+            String etag = dataVersionService.etag("signal", resolved, intervalType, signalFields,
+                    priceService.getSentimentVersion(signalFields));
+            return conditional(request, etag, resolved, intervalType, () -> ResponseEntity.ok(
+                    signalFields.select(objectMapper, priceService.generateSignal(resolved, intervalType, signalFields))));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of(
                 "status", "error",
-                "message", "Invalid interval: " + interval
+                "message", e.getMessage()
             ));
         }
     }
     
     /**
-     * GET /api/price/{interval}/range - Belirli tarih aralığındaki verileri getirir
+     * GET /api/signals/{interval}?symbols=BTCUSDT,ETHUSDT - Birden fazla sembolün sinyallerini paralel hesaplayıp
+     * sembol -> sinyal olarak döner (symbols verilmezse takip edilen tüm semboller).
+     * Aynı semboller ve veri sürümleri için eş zamanlı istekler tek hesaplamayı paylaşır. ?fields= /signal ile aynıdır.
+     */
+    @GetMapping("/signals/{interval}")
+    public ResponseEntity<Object> getSignals(@PathVariable String interval,
+                                             @RequestParam(required = false) List<String> symbols,
+                                             @RequestParam(required = false) String fields) {
+        try {
+            PriceEntity.IntervalType intervalType = PriceEntity.IntervalType.fromString(interval);
+            List<String> resolved = symbols == null || symbols.isEmpty()
+                    ? symbolRegistry.getSymbols()
+                    : symbols.stream().map(symbolRegistry::resolve).distinct().toList();
+            SignalFields signalFields = SignalFields.parse(fields);
+            long sentimentVersion = priceService.getSentimentVersion(signalFields);
+            String key = "signals:" + resolved.stream()
+                    .map(s -> dataVersionService.etag("signal", s, intervalType, signalFields, sentimentVersion))
+                    .collect(Collectors.joining(","));
+            Map<String, SignalDto> signals = singleFlight.execute(key,
+                    () -> priceService.generateSignals(intervalType, resolved, signalFields));
+            Map<String, Object> body = new java.util.LinkedHashMap<>();
+            signals.forEach((s, signal) -> body.put(s, signalFields.select(objectMapper, signal)));
+            return ResponseEntity.ok(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * GET /api/price/{interval}/range - Belirli tarih aralığındaki verileri getirir.
+     * Yanıt cursor'dan okunan satırlarla parça parça yazılır; aralık büyüklüğünden bağımsız sabit bellek kullanır.
+     * maxPoints verilirse uzun aralıklar tepe/dipleri koruyan OHLC bucket'larına indirilir.
      */
     @GetMapping("/price/{interval}/range")
-    public ResponseEntity<Object> getPriceDataByRange(
+    public ResponseEntity<StreamingResponseBody> getPriceDataByRange(
             @PathVariable String interval,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String symbol,
+            @RequestParam(required = false) Integer maxPoints) {
         try {
             if (startDate.isAfter(endDate)) {
-                return ResponseEntity.badRequest().body(Map.of(
+                return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(jsonBody(Map.of(
                     "status", "error",
                     "message", "startDate must be before endDate."
-                ));
+                )));
+            }
+            if (maxPoints != null && maxPoints <= 0) {
+                throw new IllegalArgumentException("maxPoints must be positive.");
             }
             PriceEntity.IntervalType intervalType = PriceEntity.IntervalType.fromString(interval);
-            List<PriceDto> priceData = priceService.getPriceDataByDateRange(intervalType, startDate, endDate);
-            return ResponseEntity.ok(priceData);
+            String resolved = symbolRegistry.resolve(symbol);
+            StreamingResponseBody body = out -> priceService.writePriceDataByDateRange(resolved, intervalType, startDate, endDate,
+                    maxPoints, out);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
         } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().body(Map.of(
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(jsonBody(Map.of(
                 "status", "error",
-                "message", "Invalid interval: " + interval
-            ));
+                "message", e.getMessage()
+            )));
         }
     }
     
@@ -112,23 +289,91 @@ public class PriceController {
      * GET /api/price/{interval}/latest - En son fiyat verisini getirir
      */
     @GetMapping("/price/{interval}/latest")
-    public ResponseEntity<Object> getLatestPrice(@PathVariable String interval) {
+    public ResponseEntity<Object> getLatestPrice(@PathVariable String interval,
+                                                 @RequestParam(required = false) String symbol,
+                                                 WebRequest request) {
         try {
             PriceEntity.IntervalType intervalType = PriceEntity.IntervalType.fromString(interval);
-            PriceDto latestPrice = priceService.getLatestPrice(intervalType);
-            if (latestPrice != null) {
-                return ResponseEntity.ok(latestPrice);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
+            String resolved = symbolRegistry.resolve(symbol);
+            return conditional(request, dataVersionService.etag("last", resolved, intervalType), resolved, intervalType, () -> {
+                PriceDto latestPrice = priceService.getLatestPrice(resolved, intervalType);
+                return latestPrice != null ? ResponseEntity.ok(latestPrice) : ResponseEntity.notFound().build();
+            });
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of(
                 "status", "error",
-                "message", "Invalid interval: " + interval
+                "message", e.getMessage()
             ));
         }
     }
     
+    /**
+     * GET /api/quote?symbol=... - Anlık fiyat: kaynaklar hedge'li sorgulanır, ilk geçerli yanıt döner
+     */
+    @GetMapping("/quote")
+    public ResponseEntity<Object> getQuote(@RequestParam(required = false) String symbol) {
+        String resolved;
+        try {
+            resolved = symbolRegistry.resolve(symbol);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+        try {
+            return ResponseEntity.ok(priceQuoteService.quote(resolved).block());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * GET /api/spread?symbol=... - Kaynaklar arası fiyat farkı serisi ve kaynak başına hedge bütçeleri
+     */
+    @GetMapping("/spread")
+    public ResponseEntity<Object> getSpread(@RequestParam(required = false) String symbol) {
+        try {
+            String resolved = symbolRegistry.resolve(symbol);
+            return ResponseEntity.ok(Map.of(
+                "symbol", resolved,
+                "series", priceQuoteService.getSpreadSeries(resolved),
+                "sources", priceQuoteService.getSourceStatus()
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * GET /api/stream/{interval}?symbol=... - Yeni barları ("bar") ve değişen sinyali ("signal") Server-Sent Events
+     * olarak iter. Bağlanınca önce son bilinen bar ve sinyal gönderilir.
+     */
+    @GetMapping(value = "/stream/{interval}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<String>>> stream(
+            @PathVariable String interval,
+            @RequestParam(required = false) String symbol) {
+        try {
+            PriceEntity.IntervalType intervalType = PriceEntity.IntervalType.fromString(interval);
+            return ResponseEntity.ok(marketStreamService.stream(symbolRegistry.resolve(symbol), intervalType));
+        } catch (IllegalArgumentException e) {
+            // 400 yanıtında EventSource yeniden bağlanmayı denemez
+            String body;
+            try {
+                body = objectMapper.writeValueAsString(Map.of("status", "error", "message", e.getMessage()));
+            } catch (JsonProcessingException jsonError) {
+                body = e.getMessage();
+            }
+            return ResponseEntity.badRequest().body(Flux.just(ServerSentEvent.<String>builder().event("error").data(body).build()));
+        }
+    }
+    
     /**
      * GET /api/health - Uygulama sağlık kontrolü
      */
@@ -141,6 +386,133 @@ public class PriceController {
         return ResponseEntity.ok(status);
     }
     
+    /**
+     * GET /api/metrics - Yanıt önbelleği, istek birleştirme ve giriş kontrolü (bulkhead, rate limit) sayaçları
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> metrics() {
+        Map<String, Object> metrics = new java.util.LinkedHashMap<>();
+        metrics.put("responseCache", responseCache.getStats());
+        metrics.put("singleFlight", singleFlight.getStats());
+        metrics.put("admission", admissionControl.getStats());
+        return ResponseEntity.ok(metrics);
+    }
+    
+    /**
+     * If-None-Match ETag ile eşleşirse yanıt gövdesi hiç üretilmeden 304 döner. Aksi halde gövde veri sürümü başına
+     * bir kez serileştirilip (ETag anahtarıyla) önbelleğe alınır; istemci destekliyorsa gzip'li hali gönderilir.
+     * Önbellekte yokken aynı ETag ile eş zamanlı gelen istekler tek hesaplamayı bekler (single-flight).
+     * Başarılı yanıtlar ETag ve bir sonraki bar kapanışına kadar geçerli Cache-Control taşır.
+     */
+    @SuppressWarnings("unchecked")
+    private ResponseEntity<Object> conditional(WebRequest request, String etag, String symbol,
+                                               PriceEntity.IntervalType intervalType,
+                                               Supplier<ResponseEntity<Object>> response) {
+        CacheControl cacheControl = CacheControl.maxAge(
+                dataVersionService.secondsUntilNextBar(intervalType, LocalDateTime.now(ZoneOffset.UTC)), TimeUnit.SECONDS);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING).build();
+        }
+        ResponseCache.Entry entry = responseCache.get(etag);
+        if (entry == null) {
+            // Başarısız yanıt önbelleğe alınmaz, olduğu gibi (bekleyen isteklere de) döner
+            Object computed = singleFlight.execute(etag, () -> {
+                ResponseEntity<Object> result = response.get();
+                if (!result.getStatusCode().is2xxSuccessful() || result.getBody() == null) {
+                    return result;
+                }
+                MediaType contentType = result.getHeaders().getContentType();
+                return responseCache.put(etag, symbol, intervalType,
+                        contentType != null ? contentType.toString() : MediaType.APPLICATION_JSON_VALUE, result.getBody());
+            });
+            if (!(computed instanceof ResponseCache.Entry computedEntry)) {
+                return (ResponseEntity<Object>) computed;
+            }
+            entry = computedEntry;
+        }
+        boolean gzip = entry.gzip != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.parseMediaType(entry.contentType));
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        if (PriceColumnsDto.FLOAT64.equals(entry.contentType)) {
+            builder.header("X-Columns", String.join(",", PriceColumnsDto.COLUMNS));
+        }
+        return builder.body(gzip ? entry.gzip : entry.identity);
+    }
+    
+    /**
+     * Accept-Encoding gzip'i q > 0 ile kabul ediyor mu. gzip (ya da x-gzip) açıkça verilmişse onun q değeri,
+     * verilmemişse "*" girdisinin q değeri belirleyicidir; "gzip;q=0" gzip'i reddeder.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase();
+            double quality = 1.0;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        // Geçersiz q değeri: kodlama kabul edilmemiş sayılır
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (coding.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return wildcardQuality != null && wildcardQuality > 0;
+    }
+
+    /**
+     * Kolon bazlı gösterim isteniyorsa medya tipini, klasik bar listesi isteniyorsa null döner
+     */
+    private static String resolveWireFormat(String format, String accept) {
+        if (format != null) {
+            return switch (format.toLowerCase()) {
+                case "columnar", "json-columnar" -> PriceColumnsDto.COLUMNAR_JSON;
+                case "f64", "float64" -> PriceColumnsDto.FLOAT64;
+                case "json", "rows" -> null;
+                default -> throw new IllegalArgumentException("Invalid format: " + format);
+            };
+        }
+        if (accept != null) {
+            if (accept.contains(PriceColumnsDto.FLOAT64)) {
+                return PriceColumnsDto.FLOAT64;
+            }
+            if (accept.contains(PriceColumnsDto.COLUMNAR_JSON)) {
+                return PriceColumnsDto.COLUMNAR_JSON;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Streaming endpoint'lerinde hata gövdesini JSON olarak yazar
+     */
+    private StreamingResponseBody jsonBody(Object value) {
+        return out -> out.write(objectMapper.writeValueAsBytes(value));
+    }
+    
     /**
      * String interval'i PriceEntity.IntervalType'a çevirir
      */
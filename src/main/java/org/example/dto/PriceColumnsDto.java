@@ -0,0 +1,148 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Grafik verisinin kolon bazlı gösterimi: her alan için tek dizi (timestamp epoch ms, fiyatlar double).
+ * Alan adları bar başına tekrarlanmaz. Aynı veri little-endian float64 çerçevesi olarak da yazılabilir.
+ */
+public class PriceColumnsDto {
+
+    public static final String COLUMNAR_JSON = "application/vnd.price.columnar+json";
+    public static final String FLOAT64 = "application/vnd.price.f64";
+
+    // float64 çerçevesindeki kolon sırası (X-Columns header'ında da gönderilir)
+    public static final List<String> COLUMNS = List.of("timestamp", "open", "high", "low", "close", "volume",
+            "sma20", "sma50", "sma200", "superTrend", "vwap", "bollingerUpper", "bollingerLower");
+
+    private String symbol;
+    private String intervalType;
+    private int count;
+    private long[] timestamp;
+    private Double[] open;
+    private Double[] high;
+    private Double[] low;
+    private Double[] close;
+    private Double[] volume;
+    private Double[] sma20;
+    private Double[] sma50;
+    private Double[] sma200;
+    private Double[] superTrend;
+    private Double[] vwap;
+    private Double[] bollingerUpper;
+    private Double[] bollingerLower;
+
+    public PriceColumnsDto() {}
+
+    public PriceColumnsDto(String symbol, String intervalType, List<PriceDto> bars) {
+        int n = bars.size();
+        this.symbol = symbol;
+        this.intervalType = intervalType;
+        this.count = n;
+        this.timestamp = new long[n];
+        this.open = new Double[n];
+        this.high = new Double[n];
+        this.low = new Double[n];
+        this.close = new Double[n];
+        this.volume = new Double[n];
+        this.sma20 = new Double[n];
+        this.sma50 = new Double[n];
+        this.sma200 = new Double[n];
+        this.superTrend = new Double[n];
+        this.vwap = new Double[n];
+        this.bollingerUpper = new Double[n];
+        this.bollingerLower = new Double[n];
+        for (int i = 0; i < n; i++) {
+            PriceDto bar = bars.get(i);
+            timestamp[i] = bar.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+            open[i] = toDouble(bar.getOpenPrice());
+            high[i] = toDouble(bar.getHighPrice());
+            low[i] = toDouble(bar.getLowPrice());
+            close[i] = toDouble(bar.getClosePrice());
+            volume[i] = toDouble(bar.getVolume());
+            sma20[i] = toDouble(bar.getSma20());
+            sma50[i] = toDouble(bar.getSma50());
+            sma200[i] = toDouble(bar.getSma200());
+            superTrend[i] = toDouble(bar.getSuperTrend());
+            vwap[i] = toDouble(bar.getVwap());
+            bollingerUpper[i] = toDouble(bar.getBollingerUpper());
+            bollingerLower[i] = toDouble(bar.getBollingerLower());
+        }
+    }
+
+    private static Double toDouble(BigDecimal value) {
+        return value != null ? value.doubleValue() : null;
+    }
+
+    /**
+     * Çerçeve: int32 satır sayısı, int32 kolon sayısı, ardından COLUMNS sırasıyla her kolonun satır sayısı kadar
+     * float64 değeri (hepsi little-endian; timestamp epoch ms, eksik değer NaN)
+     */
+    public byte[] toFloat64Frame() {
+        Double[][] columns = {open, high, low, close, volume, sma20, sma50, sma200, superTrend, vwap,
+                bollingerUpper, bollingerLower};
+        ByteBuffer buffer = ByteBuffer.allocate(8 + COLUMNS.size() * count * 8).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(count).putInt(COLUMNS.size());
+        for (long ts : timestamp) {
+            buffer.putDouble(ts);
+        }
+        for (Double[] column : columns) {
+            for (Double value : column) {
+                buffer.putDouble(value != null ? value : Double.NaN);
+            }
+        }
+        return buffer.array();
+    }
+
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+
+    public String getIntervalType() { return intervalType; }
+    public void setIntervalType(String intervalType) { this.intervalType = intervalType; }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+
+    public long[] getTimestamp() { return timestamp; }
+    public void setTimestamp(long[] timestamp) { this.timestamp = timestamp; }
+
+    public Double[] getOpen() { return open; }
+    public void setOpen(Double[] open) { this.open = open; }
+
+    public Double[] getHigh() { return high; }
+    public void setHigh(Double[] high) { this.high = high; }
+
+    public Double[] getLow() { return low; }
+    public void setLow(Double[] low) { this.low = low; }
+
+    public Double[] getClose() { return close; }
+    public void setClose(Double[] close) { this.close = close; }
+
+    public Double[] getVolume() { return volume; }
+    public void setVolume(Double[] volume) { this.volume = volume; }
+
+    public Double[] getSma20() { return sma20; }
+    public void setSma20(Double[] sma20) { this.sma20 = sma20; }
+
+    public Double[] getSma50() { return sma50; }
+    public void setSma50(Double[] sma50) { this.sma50 = sma50; }
+
+    public Double[] getSma200() { return sma200; }
+    public void setSma200(Double[] sma200) { this.sma200 = sma200; }
+
+    public Double[] getSuperTrend() { return superTrend; }
+    public void setSuperTrend(Double[] superTrend) { this.superTrend = superTrend; }
+
+    public Double[] getVwap() { return vwap; }
+    public void setVwap(Double[] vwap) { this.vwap = vwap; }
+
+    public Double[] getBollingerUpper() { return bollingerUpper; }
+    public void setBollingerUpper(Double[] bollingerUpper) { this.bollingerUpper = bollingerUpper; }
+
+    public Double[] getBollingerLower() { return bollingerLower; }
+    public void setBollingerLower(Double[] bollingerLower) { this.bollingerLower = bollingerLower; }
+}
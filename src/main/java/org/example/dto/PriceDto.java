@@ -1,6 +1,7 @@
 package org.example.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.example.entity.PriceEntity;
 
 import java.math.BigDecimal;
@@ -9,6 +10,7 @@ import java.time.LocalDateTime;
 public class PriceDto {
     
     private Long id;
+    private String symbol;
     
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime timestamp;
@@ -33,11 +35,16 @@ public class PriceDto {
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime createdAt;
     
+    // Sadece isteğe bağlı yeniden örneklenen barlarda: bucket eksik ya da henüz kapanmamışsa true
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean partial;
+    
     // Constructors
     public PriceDto() {}
     
     public PriceDto(PriceEntity entity) {
         this.id = entity.getId();
+        this.symbol = entity.getSymbol();
         this.timestamp = entity.getTimestamp();
         this.openPrice = entity.getOpenPrice();
         this.highPrice = entity.getHighPrice();
@@ -105,6 +112,14 @@ public class PriceDto {
         this.volume = volume;
     }
     
+    public String getSymbol() {
+        return symbol;
+    }
+    
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+    
     public String getIntervalType() {
         return intervalType;
     }
@@ -151,6 +166,14 @@ public class PriceDto {
         this.createdAt = createdAt;
     }
     
+    public Boolean getPartial() {
+        return partial;
+    }
+    
+    public void setPartial(Boolean partial) {
+        this.partial = partial;
+    }
+    
     @Override
     public String toString() {
         return "PriceDto{" +
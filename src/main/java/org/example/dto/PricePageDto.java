@@ -0,0 +1,42 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keyset (cursor) sayfalı fiyat verisi yanıtı
+ */
+public class PricePageDto {
+    
+    private List<PriceDto> data;
+    
+    // Bir sonraki sayfa için before/after parametresine verilecek timestamp (son sayfada null)
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime nextCursor;
+    
+    private boolean hasMore;
+    private int size;
+    
+    public PricePageDto() {}
+    
+    public PricePageDto(List<PriceDto> data, LocalDateTime nextCursor, boolean hasMore, int size) {
+        this.data = data;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+        this.size = size;
+    }
+    
+    public List<PriceDto> getData() { return data; }
+    public void setData(List<PriceDto> data) { this.data = data; }
+    
+    public LocalDateTime getNextCursor() { return nextCursor; }
+    public void setNextCursor(LocalDateTime nextCursor) { this.nextCursor = nextCursor; }
+    
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+    
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+}
@@ -29,6 +29,7 @@ public class SignalDto {
     }
     
     private SignalType signal;
+    private String symbol;
     private String intervalType;
     
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
@@ -127,6 +128,14 @@ public class SignalDto {
         this.signal = signal;
     }
     
+    public String getSymbol() {
+        return symbol;
+    }
+    
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+    
     public String getIntervalType() {
         return intervalType;
     }
@@ -367,6 +376,7 @@ public class SignalDto {
     public String toString() {
         return "SignalDto{" +
                 "signal=" + signal +
+                ", symbol='" + symbol + '\'' +
                 ", intervalType='" + intervalType + '\'' +
                 ", timestamp=" + timestamp +
                 ", currentPrice=" + currentPrice +
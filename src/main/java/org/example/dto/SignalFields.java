@@ -0,0 +1,94 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * ?fields= ile istenen SignalDto alanları (sparse fieldset). Yanıt sadece bu alanlarla yazılır ve sinyal hesaplaması
+ * istenmeyen alanların indikatörlerini, açıklamalarını ve sentiment sorgularını hiç yapmaz. ALL tüm alanlardır.
+ */
+public final class SignalFields {
+
+    public static final SignalFields ALL = new SignalFields(null);
+
+    private static final Set<String> PROPERTIES = properties();
+
+    // null: tüm alanlar; sıralı tutulur, ETag'e aynı biçimde girer
+    private final Set<String> names;
+
+    private SignalFields(Set<String> names) {
+        this.names = names;
+    }
+
+    /**
+     * "signal,rsiValue,entryPrice" gibi virgülle ayrılmış alan adlarını çözer; boş ya da null ise ALL
+     */
+    public static SignalFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<String> names = new TreeSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!PROPERTIES.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            names.add(name);
+        }
+        return names.isEmpty() ? ALL : new SignalFields(Collections.unmodifiableSet(names));
+    }
+
+    public boolean isAll() {
+        return names == null;
+    }
+
+    public boolean wants(String name) {
+        return names == null || names.contains(name);
+    }
+
+    public boolean wantsAny(String... names) {
+        return Arrays.stream(names).anyMatch(this::wants);
+    }
+
+    /**
+     * Sinyali sadece istenen alanlarla JSON ağacına çevirir (ALL ise olduğu gibi döner)
+     */
+    public Object select(ObjectMapper objectMapper, SignalDto signal) {
+        if (names == null) {
+            return signal;
+        }
+        ObjectNode node = objectMapper.valueToTree(signal);
+        node.retain(names);
+        return node;
+    }
+
+    @Override
+    public String toString() {
+        return names == null ? "*" : String.join(",", names);
+    }
+
+    private static Set<String> properties() {
+        try {
+            Set<String> properties = new TreeSet<>();
+            for (PropertyDescriptor descriptor : Introspector.getBeanInfo(SignalDto.class, Object.class).getPropertyDescriptors()) {
+                if (descriptor.getReadMethod() != null) {
+                    properties.add(descriptor.getName());
+                }
+            }
+            return Collections.unmodifiableSet(properties);
+        } catch (IntrospectionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
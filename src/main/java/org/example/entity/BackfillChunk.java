@@ -0,0 +1,54 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Backfill işinin tek bir istekle çekilen zaman aralığı (checkpoint birimi)
+ */
+@Entity
+@Table(name = "backfill_chunk", indexes = {
+        @Index(name = "idx_backfill_chunk_job", columnList = "job_id, done")
+})
+public class BackfillChunk {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+    
+    @Column(name = "chunk_start", nullable = false)
+    private LocalDateTime chunkStart;
+    
+    // Hariç üst sınır
+    @Column(name = "chunk_end", nullable = false)
+    private LocalDateTime chunkEnd;
+    
+    @Column(name = "done", nullable = false)
+    private boolean done;
+    
+    public BackfillChunk() {}
+    
+    public BackfillChunk(Long jobId, LocalDateTime chunkStart, LocalDateTime chunkEnd) {
+        this.jobId = jobId;
+        this.chunkStart = chunkStart;
+        this.chunkEnd = chunkEnd;
+    }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getJobId() { return jobId; }
+    public void setJobId(Long jobId) { this.jobId = jobId; }
+    
+    public LocalDateTime getChunkStart() { return chunkStart; }
+    public void setChunkStart(LocalDateTime chunkStart) { this.chunkStart = chunkStart; }
+    
+    public LocalDateTime getChunkEnd() { return chunkEnd; }
+    public void setChunkEnd(LocalDateTime chunkEnd) { this.chunkEnd = chunkEnd; }
+    
+    public boolean isDone() { return done; }
+    public void setDone(boolean done) { this.done = done; }
+}
@@ -0,0 +1,107 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Geçmiş veri yükleme (backfill) işi. İlerleme chunk bazında backfill_chunk tablosunda tutulur.
+ */
+@Entity
+@Table(name = "backfill_job")
+public class BackfillJob {
+    
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "symbol", length = 20, nullable = false)
+    private String symbol;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "interval_type", nullable = false)
+    private PriceEntity.IntervalType intervalType;
+    
+    @Column(name = "from_time", nullable = false)
+    private LocalDateTime fromTime;
+    
+    @Column(name = "to_time", nullable = false)
+    private LocalDateTime toTime;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status;
+    
+    @Column(name = "total_chunks", nullable = false)
+    private int totalChunks;
+    
+    @Column(name = "completed_chunks", nullable = false)
+    private int completedChunks;
+    
+    @Column(name = "bars_saved", nullable = false)
+    private long barsSaved;
+    
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    public BackfillJob() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+    
+    public BackfillJob(String symbol, PriceEntity.IntervalType intervalType, LocalDateTime fromTime, LocalDateTime toTime,
+                       int totalChunks) {
+        this();
+        this.symbol = symbol;
+        this.intervalType = intervalType;
+        this.fromTime = fromTime;
+        this.toTime = toTime;
+        this.totalChunks = totalChunks;
+        this.status = Status.RUNNING;
+    }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+    
+    public PriceEntity.IntervalType getIntervalType() { return intervalType; }
+    public void setIntervalType(PriceEntity.IntervalType intervalType) { this.intervalType = intervalType; }
+    
+    public LocalDateTime getFromTime() { return fromTime; }
+    public void setFromTime(LocalDateTime fromTime) { this.fromTime = fromTime; }
+    
+    public LocalDateTime getToTime() { return toTime; }
+    public void setToTime(LocalDateTime toTime) { this.toTime = toTime; }
+    
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+    
+    public int getTotalChunks() { return totalChunks; }
+    public void setTotalChunks(int totalChunks) { this.totalChunks = totalChunks; }
+    
+    public int getCompletedChunks() { return completedChunks; }
+    public void setCompletedChunks(int completedChunks) { this.completedChunks = completedChunks; }
+    
+    public long getBarsSaved() { return barsSaved; }
+    public void setBarsSaved(long barsSaved) { this.barsSaved = barsSaved; }
+    
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,114 @@
+package org.example.entity;
+
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * İndikatör hesapları için eskiden yeniye sıralı, kolon bazlı bar dizisi.
+ * OHLC sabit noktalı long; hacim sadece ağırlık olarak kullanıldığından double tutulur.
+ */
+public final class BarSeries {
+
+    private final FixedPoint fixedPoint;
+    private final long[] timestamps;
+    private final long[] opens;
+    private final long[] highs;
+    private final long[] lows;
+    private final long[] closes;
+    private final double[] volumes;
+
+    private BarSeries(FixedPoint fixedPoint, int size) {
+        this.fixedPoint = fixedPoint;
+        this.timestamps = new long[size];
+        this.opens = new long[size];
+        this.highs = new long[size];
+        this.lows = new long[size];
+        this.closes = new long[size];
+        this.volumes = new double[size];
+    }
+
+    private BarSeries(FixedPoint fixedPoint, long[] timestamps, long[] opens, long[] highs, long[] lows, long[] closes,
+                      double[] volumes) {
+        this.fixedPoint = fixedPoint;
+        this.timestamps = timestamps;
+        this.opens = opens;
+        this.highs = highs;
+        this.lows = lows;
+        this.closes = closes;
+        this.volumes = volumes;
+    }
+
+    /**
+     * Eskiden yeniye sıralı, aynı uzunluktaki kolon dizilerini kopyalamadan sarar (hot tier buffer'ından okuma için)
+     */
+    public static BarSeries of(FixedPoint fixedPoint, long[] timestamps, long[] opens, long[] highs, long[] lows,
+                               long[] closes, double[] volumes) {
+        return new BarSeries(fixedPoint, timestamps, opens, highs, lows, closes, volumes);
+    }
+
+    /**
+     * Eskiden yeniye sıralı entity listesinden seri oluşturur
+     */
+    public static BarSeries of(List<PriceEntity> entities, FixedPoint fixedPoint) {
+        BarSeries series = new BarSeries(fixedPoint, entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            PriceEntity e = entities.get(i);
+            series.timestamps[i] = e.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+            series.opens[i] = fixedPoint.toFixed(e.getOpenPrice());
+            series.highs[i] = fixedPoint.toFixed(e.getHighPrice());
+            series.lows[i] = fixedPoint.toFixed(e.getLowPrice());
+            series.closes[i] = fixedPoint.toFixed(e.getClosePrice());
+            series.volumes[i] = e.getVolume().doubleValue();
+        }
+        return series;
+    }
+
+    /**
+     * Verilen (artan) indekslerdeki barlardan yeni seri
+     */
+    public BarSeries select(int[] indices) {
+        BarSeries series = new BarSeries(fixedPoint, indices.length);
+        for (int i = 0; i < indices.length; i++) {
+            int j = indices[i];
+            series.timestamps[i] = timestamps[j];
+            series.opens[i] = opens[j];
+            series.highs[i] = highs[j];
+            series.lows[i] = lows[j];
+            series.closes[i] = closes[j];
+            series.volumes[i] = volumes[j];
+        }
+        return series;
+    }
+
+    public int size() {
+        return timestamps.length;
+    }
+
+    public FixedPoint getFixedPoint() {
+        return fixedPoint;
+    }
+
+    public long timestamp(int i) {
+        return timestamps[i];
+    }
+
+    public long open(int i) {
+        return opens[i];
+    }
+
+    public long high(int i) {
+        return highs[i];
+    }
+
+    public long low(int i) {
+        return lows[i];
+    }
+
+    public long close(int i) {
+        return closes[i];
+    }
+
+    public double volume(int i) {
+        return volumes[i];
+    }
+}
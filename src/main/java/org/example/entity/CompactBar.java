@@ -0,0 +1,62 @@
+package org.example.entity;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * PriceEntity'nin bellek dostu karşılığı: OHLC ve hacim sabit noktalı long, zaman epoch saniye (UTC).
+ * Hacim fiyattan ayrı, daha küçük bir ölçekle tutulur: quote hacimleri (ör. 1e11) scale 8'de long aralığını aşar.
+ */
+public final class CompactBar {
+
+    public final long timestamp;
+    public final long open;
+    public final long high;
+    public final long low;
+    public final long close;
+    public final long volume;
+
+    public CompactBar(long timestamp, long open, long high, long low, long close, long volume) {
+        this.timestamp = timestamp;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+    }
+
+    public static CompactBar of(PriceEntity entity, FixedPoint fixedPoint, FixedPoint volumeFixedPoint) {
+        return new CompactBar(
+                entity.getTimestamp().toEpochSecond(ZoneOffset.UTC),
+                fixedPoint.toFixed(entity.getOpenPrice()),
+                fixedPoint.toFixed(entity.getHighPrice()),
+                fixedPoint.toFixed(entity.getLowPrice()),
+                fixedPoint.toFixed(entity.getClosePrice()),
+                volumeFixedPoint.toFixed(entity.getVolume()));
+    }
+
+    public PriceEntity toEntity(String symbol, PriceEntity.IntervalType intervalType, FixedPoint fixedPoint,
+                               FixedPoint volumeFixedPoint) {
+        return new PriceEntity(
+                symbol,
+                LocalDateTime.ofEpochSecond(timestamp, 0, ZoneOffset.UTC),
+                fixedPoint.toBigDecimal(open),
+                fixedPoint.toBigDecimal(high),
+                fixedPoint.toBigDecimal(low),
+                fixedPoint.toBigDecimal(close),
+                volumeFixedPoint.toBigDecimal(volume),
+                intervalType);
+    }
+
+    @Override
+    public String toString() {
+        return "CompactBar{" +
+                "timestamp=" + timestamp +
+                ", open=" + open +
+                ", high=" + high +
+                ", low=" + low +
+                ", close=" + close +
+                ", volume=" + volume +
+                '}';
+    }
+}
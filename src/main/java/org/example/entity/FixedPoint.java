@@ -0,0 +1,124 @@
+package org.example.entity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fiyat/hacim değerlerini sabit ölçekli long olarak temsil eder (ör. scale 8 için değer × 1e8).
+ * Ölçek sembol başına bir kez tutulur; BigDecimal'e dönüşüm sadece API sınırında yapılır.
+ */
+public final class FixedPoint {
+
+    public static final FixedPoint DEFAULT = new FixedPoint(8);
+
+    private final int scale;
+    private final long factor;
+
+    private FixedPoint(int scale) {
+        this.scale = scale;
+        long f = 1L;
+        for (int i = 0; i < scale; i++) {
+            f *= 10L;
+        }
+        this.factor = f;
+    }
+
+    public static FixedPoint ofScale(int scale) {
+        if (scale < 0 || scale > 18) {
+            throw new IllegalArgumentException("Fixed-point scale must be between 0 and 18: " + scale);
+        }
+        return scale == DEFAULT.scale ? DEFAULT : new FixedPoint(scale);
+    }
+
+    /**
+     * BigDecimal'i ölçeğe yuvarlayıp long'a çevirir. long aralığına sığmazsa ArithmeticException atar.
+     */
+    public long toFixed(BigDecimal value) {
+        return value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Ondalık metni (ör. "42000.10") ara String/BigDecimal üretmeden ölçeğe HALF_UP yuvarlayarak long'a çevirir.
+     * Üslü gösterim nadir olduğundan BigDecimal'e bırakılır. Taşmada ArithmeticException atar.
+     */
+    public long parse(char[] chars, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        long value = 0;
+        int fractionDigits = -1; // nokta görülene kadar -1
+        boolean roundUp = false;
+        boolean anyDigit = false;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            if (c == 'e' || c == 'E') {
+                return toFixed(new BigDecimal(chars, offset, length));
+            }
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Invalid decimal: " + new String(chars, offset, length));
+            }
+            anyDigit = true;
+            if (fractionDigits >= scale) {
+                // Ölçeğin ötesi: HALF_UP için sadece ilk fazla hane belirleyici
+                if (fractionDigits == scale) {
+                    roundUp = c >= '5';
+                }
+                fractionDigits++;
+                continue;
+            }
+            value = Math.addExact(Math.multiplyExact(value, 10L), c - '0');
+            if (fractionDigits >= 0) {
+                fractionDigits++;
+            }
+        }
+        if (!anyDigit) {
+            throw new NumberFormatException("Invalid decimal: " + new String(chars, offset, length));
+        }
+        for (int d = Math.min(Math.max(fractionDigits, 0), scale); d < scale; d++) {
+            value = Math.multiplyExact(value, 10L);
+        }
+        if (roundUp) {
+            value = Math.addExact(value, 1L);
+        }
+        return negative ? -value : value;
+    }
+
+    public BigDecimal toBigDecimal(long value) {
+        return BigDecimal.valueOf(value, scale);
+    }
+
+    public double toDouble(long value) {
+        return (double) value / factor;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public long getFactor() {
+        return factor;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof FixedPoint other && other.scale == scale;
+    }
+
+    @Override
+    public int hashCode() {
+        return scale;
+    }
+
+    @Override
+    public String toString() {
+        return "FixedPoint{scale=" + scale + '}';
+    }
+}
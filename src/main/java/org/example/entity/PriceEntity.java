@@ -2,17 +2,25 @@ package org.example.entity;
 
 import jakarta.persistence.*;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
-@Table(name = "price_data")
+@Table(name = "price_data", indexes = {
+        // Keyset sayfalama ve son N bar sorguları bu index üzerinden çalışır; aynı bar iki kez yazılamaz
+        @Index(name = "idx_price_symbol_interval_timestamp", columnList = "symbol, interval_type, timestamp", unique = true)
+})
 public class PriceEntity {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    // Binance işlem çifti (BTCUSDT, ETHUSDT, ...)
+    @Column(name = "symbol", length = 20, nullable = false)
+    private String symbol;
+    
     @Column(name = "timestamp", nullable = false)
     private LocalDateTime timestamp;
     
@@ -39,13 +47,17 @@ public class PriceEntity {
     private LocalDateTime createdAt;
     
     public enum IntervalType {
-        ONE_HOUR("1h", "1hour", "hourly"),
-        FOUR_HOURS("4h", "4hours"),
-        ONE_DAY("1d", "1day", "daily");
+        ONE_HOUR(Duration.ofHours(1), "1h", "1hour", "hourly"),
+        FOUR_HOURS(Duration.ofHours(4), "4h", "4hours"),
+        ONE_DAY(Duration.ofDays(1), "1d", "1day", "daily");
 
+        private final Duration duration;
+        private final String value;
         private final Set<String> aliases;
 
-        IntervalType(String... aliases) {
+        IntervalType(Duration duration, String... aliases) {
+            this.duration = duration;
+            this.value = aliases[0];
             this.aliases = Set.of(aliases);
         }
 
@@ -59,7 +71,14 @@ public class PriceEntity {
         }
 
         public String getValue() {
-            return aliases.iterator().next();
+            return value;
+        }
+
+        /**
+         * Bir barın kapsadığı süre
+         */
+        public Duration getDuration() {
+            return duration;
         }
     }
     
@@ -68,9 +87,10 @@ public class PriceEntity {
         this.createdAt = LocalDateTime.now();
     }
     
-    public PriceEntity(LocalDateTime timestamp, BigDecimal openPrice, BigDecimal highPrice, 
+    public PriceEntity(String symbol, LocalDateTime timestamp, BigDecimal openPrice, BigDecimal highPrice,
                       BigDecimal lowPrice, BigDecimal closePrice, BigDecimal volume, IntervalType intervalType) {
         this();
+        this.symbol = symbol;
         this.timestamp = timestamp;
         this.openPrice = openPrice;
         this.highPrice = highPrice;
@@ -89,6 +109,14 @@ public class PriceEntity {
         this.id = id;
     }
     
+    public String getSymbol() {
+        return symbol;
+    }
+    
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+    
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
@@ -157,6 +185,7 @@ public class PriceEntity {
     public String toString() {
         return "PriceEntity{" +
                 "id=" + id +
+                ", symbol=" + symbol +
                 ", timestamp=" + timestamp +
                 ", openPrice=" + openPrice +
                 ", highPrice=" + highPrice +
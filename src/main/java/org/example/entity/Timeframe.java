@@ -0,0 +1,163 @@
+package org.example.entity;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bar zaman dilimi: sabit süreli (15m, 2h, 12h, 1d, 1w) ya da takvim ayı (1M, küçük m dakikadır).
+ * Bucket'lar UTC'ye hizalıdır; haftalık bucket'lar Pazartesi 00:00'da, aylık bucket'lar ayın 1'inde başlar.
+ */
+public final class Timeframe {
+
+    private static final Pattern FORMAT = Pattern.compile("(\\d{1,4})([mhdwM])");
+    private static final long DAY = 86_400L;
+    // 1970-01-01 Perşembe: haftalık bucket'lar 4 gün kaydırılarak Pazartesi'ye hizalanır
+    private static final long WEEK_OFFSET = 4 * DAY;
+
+    private final int amount;
+    private final char unit;
+    private final long seconds; // takvim ayında 0
+    private final long offset;
+    private final String value;
+
+    private Timeframe(int amount, char unit) {
+        this.amount = amount;
+        this.unit = unit;
+        this.value = amount + String.valueOf(unit);
+        switch (unit) {
+            case 'm' -> { seconds = amount * 60L; offset = 0; }
+            case 'h' -> { seconds = amount * 3_600L; offset = 0; }
+            case 'd' -> { seconds = amount * DAY; offset = 0; }
+            case 'w' -> { seconds = amount * 7 * DAY; offset = WEEK_OFFSET; }
+            default -> { seconds = 0; offset = 0; }
+        }
+    }
+
+    /**
+     * "2h", "12h", "1w", "1M" gibi değerleri ya da kayıtlı interval alias'larını ("1hour", "daily") çözer
+     */
+    public static Timeframe parse(String input) {
+        if (input == null) {
+            throw new IllegalArgumentException("Invalid interval: null");
+        }
+        try {
+            return of(PriceEntity.IntervalType.fromString(input.trim()));
+        } catch (IllegalArgumentException e) {
+            // kayıtlı interval değil: genel biçim denenir
+        }
+        Matcher matcher = FORMAT.matcher(input.trim());
+        if (!matcher.matches()) {
+            // Büyük harf sadece ay için anlamlı; 2H/1D/1W küçük harfle eşdeğerdir
+            matcher = FORMAT.matcher(input.trim().toLowerCase(Locale.ROOT));
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("Invalid interval: " + input);
+            }
+        }
+        int amount = Integer.parseInt(matcher.group(1));
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Invalid interval: " + input);
+        }
+        return new Timeframe(amount, matcher.group(2).charAt(0));
+    }
+
+    public static Timeframe of(PriceEntity.IntervalType intervalType) {
+        return new Timeframe((int) (intervalType.getDuration().getSeconds() / 3_600L), 'h').normalize();
+    }
+
+    private Timeframe normalize() {
+        return unit == 'h' && amount % 24 == 0 ? new Timeframe(amount / 24, 'd') : this;
+    }
+
+    /**
+     * Bu zaman dilimine karşılık gelen kayıtlı interval (yoksa null)
+     */
+    public PriceEntity.IntervalType toIntervalType() {
+        if (isCalendar() || offset != 0) {
+            return null;
+        }
+        for (PriceEntity.IntervalType type : PriceEntity.IntervalType.values()) {
+            if (type.getDuration().getSeconds() == seconds) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    public boolean isCalendar() {
+        return unit == 'M';
+    }
+
+    /**
+     * Epoch saniyesinin düştüğü bucket'ın başlangıcı (UTC, epoch saniye)
+     */
+    public long bucketStart(long epochSecond) {
+        if (isCalendar()) {
+            LocalDateTime t = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+            long months = (t.getYear() - 1970L) * 12 + t.getMonthValue() - 1;
+            long bucket = Math.floorDiv(months, amount) * amount;
+            return LocalDateTime.of(1970, 1, 1, 0, 0).plusMonths(bucket).toEpochSecond(ZoneOffset.UTC);
+        }
+        return Math.floorDiv(epochSecond - offset, seconds) * seconds + offset;
+    }
+
+    public LocalDateTime bucketStart(LocalDateTime timestamp) {
+        return LocalDateTime.ofEpochSecond(bucketStart(timestamp.toEpochSecond(ZoneOffset.UTC)), 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Bucket başlangıcını n bucket ileri (negatifse geri) kaydırır
+     */
+    public long shift(long bucketStart, long n) {
+        if (isCalendar()) {
+            return LocalDateTime.ofEpochSecond(bucketStart, 0, ZoneOffset.UTC)
+                    .plusMonths(n * amount)
+                    .toEpochSecond(ZoneOffset.UTC);
+        }
+        return bucketStart + n * seconds;
+    }
+
+    /**
+     * Her bucket sınırı base'in de bucket sınırıysa bu zaman dilimi base barlarından eksiksiz toplanabilir
+     */
+    public boolean isAlignedWith(Timeframe base) {
+        if (base.isCalendar()) {
+            return isCalendar() && amount % base.amount == 0;
+        }
+        if (isCalendar()) {
+            return DAY % base.seconds == 0;
+        }
+        return seconds % base.seconds == 0 && offset % base.seconds == 0;
+    }
+
+    /**
+     * bucketStart'taki bucket'ı dolduran base bar sayısı
+     */
+    public long barsPerBucket(long bucketStart, Timeframe base) {
+        if (base.isCalendar()) {
+            return amount / base.amount;
+        }
+        return (shift(bucketStart, 1) - bucketStart) / base.seconds;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Timeframe other && other.amount == amount && other.unit == unit;
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.repository;
+
+import org.example.entity.BackfillChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BackfillChunkRepository extends JpaRepository<BackfillChunk, Long> {
+    
+    /**
+     * İşin henüz tamamlanmamış chunk'ları (eskiden yeniye)
+     */
+    List<BackfillChunk> findByJobIdAndDoneFalseOrderByChunkStartAsc(Long jobId);
+}
@@ -0,0 +1,29 @@
+package org.example.repository;
+
+import org.example.entity.BackfillJob;
+import org.example.entity.PriceEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BackfillJobRepository extends JpaRepository<BackfillJob, Long> {
+    
+    /**
+     * Belirli durumdaki işler (açılışta RUNNING kalanlar devam ettirilir)
+     */
+    List<BackfillJob> findByStatus(BackfillJob.Status status);
+    
+    /**
+     * Sembol ve interval için devam eden iş
+     */
+    Optional<BackfillJob> findFirstBySymbolAndIntervalTypeAndStatus(String symbol, PriceEntity.IntervalType intervalType,
+                                                                   BackfillJob.Status status);
+    
+    /**
+     * Durum raporu için son işler
+     */
+    List<BackfillJob> findTop10ByOrderByCreatedAtDesc();
+}
@@ -0,0 +1,64 @@
+package org.example.repository;
+
+import org.example.entity.PriceEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Fiyat barlarını JDBC batch ile toplu ekler. IDENTITY id'li entity'lerde Hibernate insert'leri
+ * batch'leyemediği için büyük yüklemeler (backfill) bu yolu kullanır. Ekleme MERGE ile yapılır:
+ * (sembol, interval, timestamp) için zaten satır varsa bar atlanır, unique index ihlali oluşmaz.
+ */
+@Repository
+public class PriceBulkRepository {
+    
+    static final int BATCH_SIZE = 500;
+    
+    private static final String INSERT_SQL = "MERGE INTO price_data p USING (VALUES (CAST(? AS VARCHAR(20)), "
+            + "CAST(? AS TIMESTAMP), CAST(? AS NUMERIC(20, 8)), CAST(? AS NUMERIC(20, 8)), CAST(? AS NUMERIC(20, 8)), "
+            + "CAST(? AS NUMERIC(20, 8)), CAST(? AS NUMERIC(20, 8)), CAST(? AS VARCHAR(20)), CAST(? AS TIMESTAMP))) "
+            + "AS s (symbol, ts, open_price, high_price, low_price, close_price, volume, interval_type, created_at) "
+            + "ON p.symbol = s.symbol AND p.interval_type = s.interval_type AND p.timestamp = s.ts "
+            + "WHEN NOT MATCHED THEN INSERT "
+            + "(symbol, timestamp, open_price, high_price, low_price, close_price, volume, interval_type, created_at) "
+            + "VALUES (s.symbol, s.ts, s.open_price, s.high_price, s.low_price, s.close_price, s.volume, "
+            + "s.interval_type, s.created_at)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public PriceBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    /**
+     * Barları BATCH_SIZE'lık batch'ler halinde ekler, gerçekten eklenen (zaten var olmayan) satır sayısını döner
+     */
+    public int insertAll(List<PriceEntity> entities) {
+        if (entities.isEmpty()) {
+            return 0;
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, entities, BATCH_SIZE, (ps, entity) -> {
+            ps.setString(1, entity.getSymbol());
+            ps.setTimestamp(2, Timestamp.valueOf(entity.getTimestamp()));
+            ps.setBigDecimal(3, entity.getOpenPrice());
+            ps.setBigDecimal(4, entity.getHighPrice());
+            ps.setBigDecimal(5, entity.getLowPrice());
+            ps.setBigDecimal(6, entity.getClosePrice());
+            ps.setBigDecimal(7, entity.getVolume());
+            ps.setString(8, entity.getIntervalType().name());
+            ps.setTimestamp(9, Timestamp.valueOf(entity.getCreatedAt()));
+        });
+        int inserted = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // Sürücü satır sayısı vermezse (SUCCESS_NO_INFO) bar eklendi sayılır
+                inserted += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+        return inserted;
+    }
+}
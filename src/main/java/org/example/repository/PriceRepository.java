@@ -1,28 +1,67 @@
 package org.example.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.entity.PriceEntity;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PriceRepository extends JpaRepository<PriceEntity, Long> {
     
     /**
-     * Belirli bir interval tipindeki fiyat verilerini timestamp'e göre sıralayarak getirir
+     * Akış sorgularında JDBC sürücüsünden tek seferde çekilecek satır sayısı
      */
-    List<PriceEntity> findByIntervalTypeOrderByTimestampDesc(PriceEntity.IntervalType intervalType);
+    int STREAM_FETCH_SIZE = 500;
+    
+    /**
+     * Keyset sayfalama: ilk sayfa (en yeni önce)
+     */
+    List<PriceEntity> findBySymbolAndIntervalTypeOrderByTimestampDesc(
+            String symbol, PriceEntity.IntervalType intervalType, Limit limit);
+    
+    /**
+     * Keyset sayfalama: cursor'dan daha eski barlar (en yeni önce)
+     */
+    List<PriceEntity> findBySymbolAndIntervalTypeAndTimestampLessThanOrderByTimestampDesc(
+            String symbol, PriceEntity.IntervalType intervalType, LocalDateTime before, Limit limit);
+    
+    /**
+     * Keyset sayfalama: cursor'dan daha yeni barlar (en eski önce)
+     */
+    List<PriceEntity> findBySymbolAndIntervalTypeAndTimestampGreaterThanOrderByTimestampAsc(
+            String symbol, PriceEntity.IntervalType intervalType, LocalDateTime after, Limit limit);
     
     /**
      * Belirli bir tarih aralığındaki fiyat verilerini getirir
      */
-    @Query("SELECT p FROM PriceEntity p WHERE p.intervalType = :intervalType " +
+    @Query("SELECT p FROM PriceEntity p WHERE p.symbol = :symbol AND p.intervalType = :intervalType " +
            "AND p.timestamp BETWEEN :startDate AND :endDate ORDER BY p.timestamp ASC")
-    List<PriceEntity> findByIntervalTypeAndDateRange(
+    List<PriceEntity> findBySymbolAndIntervalTypeAndDateRange(
+            @Param("symbol") String symbol,
+            @Param("intervalType") PriceEntity.IntervalType intervalType,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+    
+    /**
+     * Tarih aralığını cursor üzerinden akış olarak getirir (aktif transaction içinde tüketilmeli ve kapatılmalı)
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM PriceEntity p WHERE p.symbol = :symbol AND p.intervalType = :intervalType " +
+           "AND p.timestamp BETWEEN :startDate AND :endDate ORDER BY p.timestamp ASC")
+    Stream<PriceEntity> streamBySymbolAndIntervalTypeAndDateRange(
+            @Param("symbol") String symbol,
             @Param("intervalType") PriceEntity.IntervalType intervalType,
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
@@ -30,21 +69,28 @@ public interface PriceRepository extends JpaRepository<PriceEntity, Long> {
     /**
      * Son N kaydı getirir (teknik analiz için)
      */
-    @Query("SELECT p FROM PriceEntity p WHERE p.intervalType = :intervalType " +
+    @Query("SELECT p FROM PriceEntity p WHERE p.symbol = :symbol AND p.intervalType = :intervalType " +
            "ORDER BY p.timestamp DESC LIMIT :limit")
-    List<PriceEntity> findLatestNByIntervalType(
+    List<PriceEntity> findLatestNBySymbolAndIntervalType(
+            @Param("symbol") String symbol,
             @Param("intervalType") PriceEntity.IntervalType intervalType,
             @Param("limit") int limit);
     
     /**
      * En son fiyat verisini getirir
      */
-    @Query("SELECT p FROM PriceEntity p WHERE p.intervalType = :intervalType " +
+    @Query("SELECT p FROM PriceEntity p WHERE p.symbol = :symbol AND p.intervalType = :intervalType " +
            "ORDER BY p.timestamp DESC LIMIT 1")
-    PriceEntity findLatestByIntervalType(@Param("intervalType") PriceEntity.IntervalType intervalType);
+    PriceEntity findLatestBySymbolAndIntervalType(@Param("symbol") String symbol,
+                                                  @Param("intervalType") PriceEntity.IntervalType intervalType);
     
     /**
      * Belirli bir timestamp'teki veriyi kontrol eder
      */
-    boolean existsByTimestampAndIntervalType(LocalDateTime timestamp, PriceEntity.IntervalType intervalType);
+    boolean existsBySymbolAndTimestampAndIntervalType(String symbol, LocalDateTime timestamp, PriceEntity.IntervalType intervalType);
+    
+    /**
+     * Sembol ve interval'daki bar sayısı
+     */
+    long countBySymbolAndIntervalType(String symbol, PriceEntity.IntervalType intervalType);
 } 
\ No newline at end of file
@@ -0,0 +1,301 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Ağır endpoint sınıfları için giriş kontrolü. Her sınıfın kendi eş zamanlılık sınırı (bulkhead) ve sınırlı
+ * bekleme kuyruğu vardır; kuyruk doluysa ya da bekleme süresi dolarsa istek 503 ile reddedilir. Kuyrukta bekleyen
+ * istek thread tutmaz: karar (izin ya da zaman aşımı) asenkron olarak tamamlanan bir future ile bildirilir. Ayrıca
+ * her istemci (uzak adres) için sınıf başına token bucket uygulanır, aşılırsa 429 döner. Böylece geçmiş veri
+ * dökümleri ucuz endpoint'lerin (health, latest) Tomcat worker'larını tüketemez.
+ */
+@Service
+public class AdmissionControl {
+
+    private static final Pattern HISTORY_PATH = Pattern.compile("^/api/price/[^/]+(/range)?/?$");
+    private static final Pattern COMPUTE_PATH = Pattern.compile("^/api/signals?/.+");
+
+    public enum EndpointClass {
+        // Tüm tablo sayfaları ve tarih aralığı dökümleri
+        HISTORY,
+        // Sinyal hesaplamaları
+        COMPUTE
+    }
+
+    private final Map<EndpointClass, Bulkhead> bulkheads = new EnumMap<>(EndpointClass.class);
+    private final Map<String, ClientBucket> clients = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+    private final int maxClients;
+    // Kuyruk zaman aşımları; bekleyen istek başına thread yerine tek zamanlayıcı
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "admission-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AdmissionControl(@Value("${app.admission.enabled:true}") boolean enabled,
+                            @Value("${app.admission.retry-after:1}") long retryAfterSeconds,
+                            @Value("${app.admission.max-clients:10000}") int maxClients,
+                            @Value("${app.admission.history.max-concurrent:4}") int historyMaxConcurrent,
+                            @Value("${app.admission.history.queue-size:8}") int historyQueueSize,
+                            @Value("${app.admission.history.queue-timeout:2000}") long historyQueueTimeout,
+                            @Value("${app.admission.history.rate-per-second:2}") double historyRate,
+                            @Value("${app.admission.history.burst:10}") int historyBurst,
+                            @Value("${app.admission.compute.max-concurrent:8}") int computeMaxConcurrent,
+                            @Value("${app.admission.compute.queue-size:32}") int computeQueueSize,
+                            @Value("${app.admission.compute.queue-timeout:1000}") long computeQueueTimeout,
+                            @Value("${app.admission.compute.rate-per-second:5}") double computeRate,
+                            @Value("${app.admission.compute.burst:20}") int computeBurst) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+        this.maxClients = maxClients;
+        bulkheads.put(EndpointClass.HISTORY, new Bulkhead(historyMaxConcurrent, historyQueueSize, historyQueueTimeout,
+                historyRate, historyBurst));
+        bulkheads.put(EndpointClass.COMPUTE, new Bulkhead(computeMaxConcurrent, computeQueueSize, computeQueueTimeout,
+                computeRate, computeBurst));
+    }
+
+    /**
+     * İstek yolunun sınıfı; sınırlanmayan (ucuz) endpoint'lerde ya da kontrol kapalıysa null
+     */
+    public EndpointClass classify(String path) {
+        if (!enabled || path == null) {
+            return null;
+        }
+        if (HISTORY_PATH.matcher(path).matches()) {
+            return EndpointClass.HISTORY;
+        }
+        if (COMPUTE_PATH.matcher(path).matches()) {
+            return EndpointClass.COMPUTE;
+        }
+        return null;
+    }
+
+    /**
+     * Önce istemcinin token bucket'ı, sonra sınıfın bulkhead'i denenir. Kabul edilen istek bittiğinde
+     * release çağrılmalıdır. Bulkhead doluysa istek kuyruğa alınır ve çağıran thread beklemez: dönen
+     * Admission'ın pending future'ı izin verildiğinde ADMITTED, queue-timeout dolduğunda 503 ile tamamlanır.
+     */
+    public Admission admit(EndpointClass endpointClass, String client) {
+        Bulkhead bulkhead = bulkheads.get(endpointClass);
+        long rateWait = takeToken(endpointClass, bulkhead, client);
+        if (rateWait > 0) {
+            bulkhead.rateLimited.incrementAndGet();
+            return Admission.rejected(429, rateWait, "Rate limit exceeded for " + endpointClass.name().toLowerCase()
+                    + " requests.");
+        }
+        synchronized (bulkhead) {
+            if (bulkhead.active < bulkhead.maxConcurrent) {
+                bulkhead.active++;
+                bulkhead.admitted.incrementAndGet();
+                return Admission.ADMITTED;
+            }
+            if (bulkhead.queue.size() >= bulkhead.queueSize) {
+                bulkhead.rejectedQueueFull.incrementAndGet();
+                return Admission.rejected(503, retryAfterSeconds, "Server is busy, too many "
+                        + endpointClass.name().toLowerCase() + " requests queued.");
+            }
+            Waiter waiter = new Waiter();
+            bulkhead.queue.add(waiter);
+            waiter.timeout = timer.schedule(() -> expire(endpointClass, bulkhead, waiter),
+                    bulkhead.queueTimeout, TimeUnit.MILLISECONDS);
+            return Admission.queued(waiter.decision);
+        }
+    }
+
+    /**
+     * İzni bırakır; kuyrukta bekleyen varsa izin doğrudan sıradakine geçer
+     */
+    public void release(EndpointClass endpointClass) {
+        Bulkhead bulkhead = bulkheads.get(endpointClass);
+        Waiter next;
+        synchronized (bulkhead) {
+            next = bulkhead.queue.poll();
+            if (next == null) {
+                bulkhead.active--;
+                return;
+            }
+            bulkhead.admitted.incrementAndGet();
+        }
+        next.timeout.cancel(false);
+        next.decision.complete(Admission.ADMITTED);
+    }
+
+    private void expire(EndpointClass endpointClass, Bulkhead bulkhead, Waiter waiter) {
+        synchronized (bulkhead) {
+            // İzin zaman aşımından hemen önce verildiyse kuyrukta değildir
+            if (!bulkhead.queue.remove(waiter)) {
+                return;
+            }
+            bulkhead.rejectedTimeout.incrementAndGet();
+        }
+        waiter.decision.complete(Admission.rejected(503, retryAfterSeconds, "Server is busy, "
+                + endpointClass.name().toLowerCase() + " request timed out in queue."));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Token alınabildiyse 0, alınamadıysa bir sonraki token'a kadar saniye
+     */
+    private long takeToken(EndpointClass endpointClass, Bulkhead bulkhead, String client) {
+        if (bulkhead.ratePerSecond <= 0) {
+            return 0;
+        }
+        if (clients.size() > maxClients) {
+            // Dolmuş (bir süredir istek atmayan) istemcilerin bucket'ları atılır
+            long now = System.nanoTime();
+            clients.values().removeIf(bucket -> bucket.isFull(now));
+        }
+        ClientBucket bucket = clients.computeIfAbsent(endpointClass + ":" + client,
+                key -> new ClientBucket(bulkhead.ratePerSecond, bulkhead.burst));
+        return bucket.take(System.nanoTime());
+    }
+
+    /**
+     * /api/metrics için sınıf bazında doluluk ve red sayaçları
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("clients", clients.size());
+        for (Map.Entry<EndpointClass, Bulkhead> entry : bulkheads.entrySet()) {
+            stats.put(entry.getKey().name().toLowerCase(), entry.getValue().snapshot());
+        }
+        return stats;
+    }
+
+    public static class Admission {
+        static final Admission ADMITTED = new Admission(true, 200, 0, null);
+
+        public final boolean admitted;
+        public final int status;
+        public final long retryAfterSeconds;
+        public final String message;
+        // Kuyruğa alınan istekte kararın geleceği future; hemen karar verildiyse null
+        public final CompletableFuture<Admission> pending;
+
+        public Admission(boolean admitted, int status, long retryAfterSeconds, String message) {
+            this(admitted, status, retryAfterSeconds, message, null);
+        }
+
+        private Admission(boolean admitted, int status, long retryAfterSeconds, String message,
+                          CompletableFuture<Admission> pending) {
+            this.admitted = admitted;
+            this.status = status;
+            this.retryAfterSeconds = retryAfterSeconds;
+            this.message = message;
+            this.pending = pending;
+        }
+
+        static Admission rejected(int status, long retryAfterSeconds, String message) {
+            return new Admission(false, status, retryAfterSeconds, message);
+        }
+
+        static Admission queued(CompletableFuture<Admission> decision) {
+            return new Admission(false, 0, 0, null, decision);
+        }
+
+        public boolean isQueued() {
+            return pending != null;
+        }
+    }
+
+    private static final class Waiter {
+        final CompletableFuture<Admission> decision = new CompletableFuture<>();
+        ScheduledFuture<?> timeout;
+    }
+
+    private static final class Bulkhead {
+        final int maxConcurrent;
+        final int queueSize;
+        final long queueTimeout;
+        final double ratePerSecond;
+        final int burst;
+        // Adil: kuyrukta bekleyenler sırayla izin alır (active ve queue bulkhead kilidiyle korunur)
+        final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        int active;
+        final AtomicLong admitted = new AtomicLong();
+        final AtomicLong rejectedQueueFull = new AtomicLong();
+        final AtomicLong rejectedTimeout = new AtomicLong();
+        final AtomicLong rateLimited = new AtomicLong();
+
+        Bulkhead(int maxConcurrent, int queueSize, long queueTimeout, double ratePerSecond, int burst) {
+            this.maxConcurrent = Math.max(1, maxConcurrent);
+            this.queueSize = Math.max(0, queueSize);
+            this.queueTimeout = Math.max(0, queueTimeout);
+            this.ratePerSecond = ratePerSecond;
+            this.burst = Math.max(1, burst);
+        }
+
+        synchronized Map<String, Object> snapshot() {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("maxConcurrent", maxConcurrent);
+            status.put("active", active);
+            status.put("queued", queue.size());
+            status.put("queueSize", queueSize);
+            status.put("admitted", admitted.get());
+            status.put("rejectedQueueFull", rejectedQueueFull.get());
+            status.put("rejectedTimeout", rejectedTimeout.get());
+            status.put("rateLimited", rateLimited.get());
+            return status;
+        }
+    }
+
+    /**
+     * İstemci başına token bucket: burst kadar dolar, saniyede ratePerSecond token yenilenir
+     */
+    private static final class ClientBucket {
+        final double ratePerNano;
+        final int capacity;
+        double tokens;
+        long lastRefill;
+
+        ClientBucket(double ratePerSecond, int capacity) {
+            this.ratePerNano = ratePerSecond / 1_000_000_000.0;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        synchronized long take(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / ratePerNano / 1_000_000_000.0));
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            if (now > lastRefill) {
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+                lastRefill = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package org.example.service;
+
+import org.example.entity.BackfillChunk;
+import org.example.entity.BackfillJob;
+import org.example.entity.CompactBar;
+import org.example.entity.FixedPoint;
+import org.example.entity.PriceEntity;
+import org.example.repository.BackfillChunkRepository;
+import org.example.repository.BackfillJobRepository;
+import org.example.repository.PriceBulkRepository;
+import org.example.repository.PriceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Belirli bir tarih aralığının geçmiş barlarını Binance'ten chunk'lar halinde yükler.
+ * Chunk'lar sınırlı paralellikle, merkezi istek sırası üzerinden çekilir, her biri aynı transaction'da toplu eklenip
+ * checkpoint'lenir; yarıda kalan işler uygulama açılışında kaldığı yerden devam eder.
+ */
+@Service
+public class BackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackfillService.class);
+
+    private final BackfillJobRepository jobRepository;
+    private final BackfillChunkRepository chunkRepository;
+    private final PriceRepository priceRepository;
+    private final PriceBulkRepository bulkRepository;
+    private final RollupService rollupService;
+    private final HotTierCache hotTierCache;
+    private final WebClient binanceWebClient;
+    private final PersistShards persistShards;
+    private final OutboundRequestScheduler outboundScheduler;
+    private final TransactionTemplate transactionTemplate;
+    // sembol:interval -> start() kilidi; süren iş kontrolü ile kaydı arasına ikinci bir iş girmesin
+    private final Map<String, Object> startLocks = new ConcurrentHashMap<>();
+
+    // Binance tek istekte en fazla 1000 bar döner
+    @Value("${app.backfill.chunk-bars:1000}")
+    private int chunkBars;
+
+    @Value("${app.backfill.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.backfill.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${app.rollup.enabled:true}")
+    private boolean rollupEnabled;
+
+    public BackfillService(BackfillJobRepository jobRepository, BackfillChunkRepository chunkRepository,
+                           PriceRepository priceRepository, PriceBulkRepository bulkRepository,
+                           RollupService rollupService, HotTierCache hotTierCache,
+                           @Qualifier("binanceWebClient") WebClient binanceWebClient,
+                           PersistShards persistShards, OutboundRequestScheduler outboundScheduler,
+                           TransactionTemplate transactionTemplate) {
+        this.jobRepository = jobRepository;
+        this.chunkRepository = chunkRepository;
+        this.priceRepository = priceRepository;
+        this.bulkRepository = bulkRepository;
+        this.rollupService = rollupService;
+        this.hotTierCache = hotTierCache;
+        this.binanceWebClient = binanceWebClient;
+        this.persistShards = persistShards;
+        this.outboundScheduler = outboundScheduler;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Yeni bir backfill işi başlatır. Sembol ve interval için çalışan bir iş varsa onu döner.
+     */
+    public BackfillJob start(String symbol, PriceEntity.IntervalType intervalType, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        LocalDateTime end = to == null || to.isAfter(now) ? now : to;
+        LocalDateTime start = RollupService.bucketStart(from, intervalType);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        synchronized (startLocks.computeIfAbsent(symbol + ":" + intervalType, key -> new Object())) {
+            Optional<BackfillJob> running = jobRepository.findFirstBySymbolAndIntervalTypeAndStatus(
+                    symbol, intervalType, BackfillJob.Status.RUNNING);
+            if (running.isPresent()) {
+                logger.info("Backfill already running for {} interval: {} (job {})", symbol, intervalType, running.get().getId());
+                return running.get();
+            }
+            return create(symbol, intervalType, start, end);
+        }
+    }
+
+    private BackfillJob create(String symbol, PriceEntity.IntervalType intervalType, LocalDateTime start, LocalDateTime end) {
+        Duration step = intervalType.getDuration().multipliedBy(chunkBars);
+        List<LocalDateTime[]> ranges = new ArrayList<>();
+        for (LocalDateTime chunkStart = start; chunkStart.isBefore(end); chunkStart = chunkStart.plus(step)) {
+            LocalDateTime chunkEnd = chunkStart.plus(step);
+            ranges.add(new LocalDateTime[]{chunkStart, chunkEnd.isAfter(end) ? end : chunkEnd});
+        }
+        BackfillJob job = jobRepository.save(new BackfillJob(symbol, intervalType, start, end, ranges.size()));
+        List<BackfillChunk> chunks = new ArrayList<>(ranges.size());
+        for (LocalDateTime[] range : ranges) {
+            chunks.add(new BackfillChunk(job.getId(), range[0], range[1]));
+        }
+        chunkRepository.saveAll(chunks);
+        logger.info("Backfill job {} created for {} interval: {}, {} - {}, {} chunks",
+                job.getId(), symbol, intervalType, start, end, chunks.size());
+        run(job);
+        return job;
+    }
+
+    /**
+     * Açılışta yarıda kalmış işleri devam ettirir
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resume() {
+        for (BackfillJob job : jobRepository.findByStatus(BackfillJob.Status.RUNNING)) {
+            logger.info("Resuming backfill job {} for {} interval: {} ({}/{} chunks done)",
+                    job.getId(), job.getSymbol(), job.getIntervalType(), job.getCompletedChunks(), job.getTotalChunks());
+            run(job);
+        }
+    }
+
+    /**
+     * Son işlerin durumu (en yeni önce)
+     */
+    public List<BackfillStatus> getStatus() {
+        return jobRepository.findTop10ByOrderByCreatedAtDesc().stream()
+                .map(BackfillStatus::new)
+                .collect(Collectors.toList());
+    }
+
+    private void run(BackfillJob job) {
+        Long jobId = job.getId();
+        String symbol = job.getSymbol();
+        PriceEntity.IntervalType intervalType = job.getIntervalType();
+        // Sembolün kayıtları canlı çekmelerle aynı shard'da sıralanır
+        Scheduler shard = persistShards.forSymbol(symbol);
+        List<BackfillChunk> pending = chunkRepository.findByJobIdAndDoneFalseOrderByChunkStartAsc(jobId);
+        // Hız sınırını OutboundRequestScheduler uygular; backfill istekleri canlı barların arkasında bekler
+        Flux.fromIterable(pending)
+                .flatMap(chunk -> download(symbol, intervalType, chunk)
+                        .retryWhen(Retry.backoff(maxRetries, Duration.ofSeconds(1)))
+                        .flatMap(bars -> Mono.fromRunnable(() -> persistChunk(jobId, symbol, intervalType, chunk, bars))
+                                .subscribeOn(shard)), parallelism)
+                .then(Mono.fromRunnable(() -> finish(jobId, null)).subscribeOn(shard))
+                .onErrorResume(e -> Mono.fromRunnable(() -> finish(jobId, e)).subscribeOn(shard))
+                .subscribe();
+    }
+
+    private Mono<List<CompactBar>> download(String symbol, PriceEntity.IntervalType intervalType, BackfillChunk chunk) {
+        long startTime = chunk.getChunkStart().toEpochSecond(ZoneOffset.UTC) * 1000;
+        long endTime = chunk.getChunkEnd().toEpochSecond(ZoneOffset.UTC) * 1000 - 1;
+        String url = "/api/v3/klines?symbol=" + symbol + "&interval=" + intervalType.getValue()
+                + "&startTime=" + startTime + "&endTime=" + endTime + "&limit=" + chunkBars;
+        logger.debug("Backfill request: {}", url);
+        // 1000 barlık yanıt bile String'e alınmadan buffer buffer ayrıştırılır
+        return outboundScheduler.execute(OutboundRequestScheduler.Provider.BINANCE, OutboundRequestScheduler.Priority.BACKFILL,
+                url, OutboundRequestScheduler.BINANCE_KLINES_WEIGHT,
+                () -> MarketDataParser.parseKlines(binanceWebClient.get()
+                                .uri(url)
+                                .retrieve()
+                                .bodyToFlux(DataBuffer.class), hotTierCache.getFixedPoint(symbol),
+                                hotTierCache.getVolumeFixedPoint(symbol))
+                        .collectList());
+    }
+
+    /**
+     * Chunk'taki yeni barları toplu ekler ve chunk'ı tamamlandı olarak işaretler.
+     * Ekleme, checkpoint ve iş sayacı tek transaction'dadır: yarıda kalırsa hiçbiri yazılmaz ve chunk tekrar çekilir.
+     */
+    private void persistChunk(Long jobId, String symbol, PriceEntity.IntervalType intervalType, BackfillChunk chunk,
+                              List<CompactBar> bars) {
+        FixedPoint fixedPoint = hotTierCache.getFixedPoint(symbol);
+        FixedPoint volumeFixedPoint = hotTierCache.getVolumeFixedPoint(symbol);
+        Set<LocalDateTime> existing = new HashSet<>();
+        for (PriceEntity entity : priceRepository.findBySymbolAndIntervalTypeAndDateRange(
+                symbol, intervalType, chunk.getChunkStart(), chunk.getChunkEnd().minusSeconds(1))) {
+            existing.add(entity.getTimestamp());
+        }
+        List<PriceEntity> newBars = new ArrayList<>(bars.size());
+        for (CompactBar bar : bars) {
+            LocalDateTime timestamp = LocalDateTime.ofEpochSecond(bar.timestamp, 0, ZoneOffset.UTC);
+            if (!timestamp.isBefore(chunk.getChunkStart()) && timestamp.isBefore(chunk.getChunkEnd())
+                    && existing.add(timestamp)) {
+                newBars.add(bar.toEntity(symbol, intervalType, fixedPoint, volumeFixedPoint));
+            }
+        }
+        Integer result = transactionTemplate.execute(status -> {
+            int count = bulkRepository.insertAll(newBars);
+            chunk.setDone(true);
+            chunkRepository.save(chunk);
+            jobRepository.findById(jobId).ifPresent(job -> {
+                job.setCompletedChunks(job.getCompletedChunks() + 1);
+                job.setBarsSaved(job.getBarsSaved() + count);
+                job.setUpdatedAt(LocalDateTime.now());
+                jobRepository.save(job);
+            });
+            return count;
+        });
+        int inserted = result != null ? result : 0;
+        // Hot tier ve rollup commit'ten sonra: geri alınan barlar yayınlanmaz
+        if (inserted > 0) {
+            // Bir kısmı başka bir yazıcı tarafından eklendiyse veritabanındaki haller kullanılır
+            List<PriceEntity> saved = inserted == newBars.size() ? newBars
+                    : priceRepository.findBySymbolAndIntervalTypeAndDateRange(
+                            symbol, intervalType, chunk.getChunkStart(), chunk.getChunkEnd().minusSeconds(1));
+            hotTierCache.append(saved);
+            if (rollupEnabled && intervalType == PriceEntity.IntervalType.ONE_HOUR) {
+                rollupService.rollup(saved);
+            }
+        }
+        logger.debug("Backfill job {} chunk {} done, {} bars inserted", jobId, chunk.getChunkStart(), inserted);
+    }
+
+    private void finish(Long jobId, Throwable error) {
+        jobRepository.findById(jobId).ifPresent(job -> {
+            if (error != null) {
+                job.setStatus(BackfillJob.Status.FAILED);
+                String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+                job.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+                logger.error("Backfill job {} failed: {}", jobId, message);
+            } else {
+                job.setStatus(BackfillJob.Status.COMPLETED);
+                logger.info("Backfill job {} completed, {} bars inserted", jobId, job.getBarsSaved());
+            }
+            job.setUpdatedAt(LocalDateTime.now());
+            jobRepository.save(job);
+        });
+    }
+
+    /**
+     * /api/fetch/status için iş özeti
+     */
+    public static class BackfillStatus {
+        public final Long id;
+        public final String symbol;
+        public final String interval;
+        public final String from;
+        public final String to;
+        public final String status;
+        public final int completedChunks;
+        public final int totalChunks;
+        public final long barsSaved;
+        public final String lastError;
+
+        public BackfillStatus(BackfillJob job) {
+            this.id = job.getId();
+            this.symbol = job.getSymbol();
+            this.interval = job.getIntervalType().getValue();
+            this.from = job.getFromTime().toString();
+            this.to = job.getToTime().toString();
+            this.status = job.getStatus().name();
+            this.completedChunks = job.getCompletedChunks();
+            this.totalChunks = job.getTotalChunks();
+            this.barsSaved = job.getBarsSaved();
+            this.lastError = job.getLastError();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.service;
+
+import org.example.entity.PriceEntity;
+
+import java.util.List;
+
+/**
+ * Barlar kaydedildiğinde (ya da devam eden bar canlı akıştan güncellendiğinde) yayınlanır
+ */
+public class BarsUpdatedEvent {
+
+    private final List<PriceEntity> bars;
+
+    public BarsUpdatedEvent(List<PriceEntity> bars) {
+        this.bars = bars;
+    }
+
+    public List<PriceEntity> getBars() {
+        return bars;
+    }
+}
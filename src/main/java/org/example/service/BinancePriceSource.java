@@ -0,0 +1,49 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+/**
+ * Binance ticker fiyatı (tüm takip edilen semboller)
+ */
+@Service
+@Order(1)
+public class BinancePriceSource implements PriceSource {
+
+    private final WebClient binanceWebClient;
+    private final OutboundRequestScheduler outboundScheduler;
+
+    public BinancePriceSource(@Qualifier("binanceWebClient") WebClient binanceWebClient,
+                              OutboundRequestScheduler outboundScheduler) {
+        this.binanceWebClient = binanceWebClient;
+        this.outboundScheduler = outboundScheduler;
+    }
+
+    @Override
+    public String getName() {
+        return "binance";
+    }
+
+    @Override
+    public boolean supports(String symbol) {
+        return true;
+    }
+
+    @Override
+    public Mono<BigDecimal> fetchPrice(String symbol, OutboundRequestScheduler.Priority priority) {
+        String url = "/api/v3/ticker/price?symbol=" + symbol;
+        return outboundScheduler.execute(OutboundRequestScheduler.Provider.BINANCE, priority, url,
+                        OutboundRequestScheduler.BINANCE_TICKER_WEIGHT,
+                        () -> binanceWebClient.get()
+                                .uri(url)
+                                .retrieve()
+                                .bodyToMono(JsonNode.class))
+                .mapNotNull(root -> root.hasNonNull("price") ? new BigDecimal(root.get("price").asText()) : null);
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+/**
+ * CoinGecko simple/price USD fiyatı (sadece CoinGecko id'si tanımlı semboller)
+ */
+@Service
+@Order(2)
+public class CoingeckoPriceSource implements PriceSource {
+
+    private final WebClient coingeckoWebClient;
+    private final OutboundRequestScheduler outboundScheduler;
+    private final SymbolRegistry symbolRegistry;
+
+    public CoingeckoPriceSource(@Qualifier("coingeckoWebClient") WebClient coingeckoWebClient,
+                                OutboundRequestScheduler outboundScheduler, SymbolRegistry symbolRegistry) {
+        this.coingeckoWebClient = coingeckoWebClient;
+        this.outboundScheduler = outboundScheduler;
+        this.symbolRegistry = symbolRegistry;
+    }
+
+    @Override
+    public String getName() {
+        return "coingecko";
+    }
+
+    @Override
+    public boolean supports(String symbol) {
+        return symbolRegistry.getCoingeckoId(symbol) != null;
+    }
+
+    @Override
+    public Mono<BigDecimal> fetchPrice(String symbol, OutboundRequestScheduler.Priority priority) {
+        String coinId = symbolRegistry.getCoingeckoId(symbol);
+        String url = "/simple/price?ids=" + coinId + "&vs_currencies=usd";
+        return outboundScheduler.execute(OutboundRequestScheduler.Provider.COINGECKO, priority, url, 1,
+                        () -> coingeckoWebClient.get()
+                                .uri(url)
+                                .retrieve()
+                                .bodyToMono(JsonNode.class))
+                .mapNotNull(root -> {
+                    JsonNode usd = root.path(coinId).path("usd");
+                    return usd.isNumber() ? usd.decimalValue() : null;
+                });
+    }
+}
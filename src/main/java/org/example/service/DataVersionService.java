@@ -0,0 +1,114 @@
+package org.example.service;
+
+import org.example.entity.PriceEntity;
+import org.example.entity.Timeframe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Koşullu GET için (sembol, interval) başına veri sürümü. Sürüm her bar güncellemesinde artar; ETag,
+ * son barın timestamp'i, bu sürüm ve istek parametrelerinden hesaplanır, böylece yanıt gövdesi üretilmeden
+ * If-None-Match karşılaştırılabilir.
+ */
+@Service
+public class DataVersionService {
+
+    // Yeniden başlatmada sayaçlar sıfırlanır: önceki çalışmanın ETag'leri eşleşmesin
+    private final String bootId = UUID.randomUUID().toString();
+    private final HotTierCache hotTierCache;
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    @Value("${app.fetch.close-delay:2000}")
+    private long closeDelay;
+
+    @Value("${app.fetch.intrabar-refresh.1h:60000}")
+    private long hourlyIntrabarRefresh;
+
+    @Value("${app.fetch.intrabar-refresh.4h:0}")
+    private long fourHourIntrabarRefresh;
+
+    @Value("${app.fetch.intrabar-refresh.1d:0}")
+    private long dailyIntrabarRefresh;
+
+    @Value("${app.rollup.enabled:true}")
+    private boolean rollupEnabled;
+
+    public DataVersionService(HotTierCache hotTierCache) {
+        this.hotTierCache = hotTierCache;
+    }
+
+    @EventListener
+    public void onBarsUpdated(BarsUpdatedEvent event) {
+        for (PriceEntity bar : event.getBars()) {
+            versions.computeIfAbsent(key(bar.getSymbol(), bar.getIntervalType()), k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    public long getVersion(String symbol, PriceEntity.IntervalType intervalType) {
+        AtomicLong version = versions.get(key(symbol, intervalType));
+        return version != null ? version.get() : 0;
+    }
+
+    /**
+     * Endpoint, sembol, interval, son bar ve istek parametrelerinden güçlü ETag (tırnaklı)
+     */
+    public String etag(String endpoint, String symbol, PriceEntity.IntervalType intervalType, Object... params) {
+        PriceEntity latest = hotTierCache.findLatest(symbol, intervalType);
+        StringBuilder source = new StringBuilder(bootId)
+                .append('|').append(endpoint)
+                .append('|').append(symbol)
+                .append('|').append(intervalType.getValue())
+                .append('|').append(latest != null ? latest.getTimestamp() : "-")
+                .append('|').append(getVersion(symbol, intervalType));
+        for (Object param : params) {
+            source.append('|').append(param);
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(source.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Bir sonraki bar kapanışı (ve kaydı) beklenene kadar geçecek saniye; bar içi yenileme açıksa onunla sınırlanır.
+     * Rollup açıkken 4H/1D'nin devam eden bucket'ı her saatlik kayıtta yeniden üretildiğinden 1H'nin süresini aşmaz.
+     */
+    public long secondsUntilNextBar(PriceEntity.IntervalType intervalType, LocalDateTime now) {
+        long seconds = secondsUntilOwnChange(intervalType, now);
+        if (rollupEnabled && intervalType != PriceEntity.IntervalType.ONE_HOUR) {
+            seconds = Math.min(seconds, secondsUntilOwnChange(PriceEntity.IntervalType.ONE_HOUR, now));
+        }
+        return seconds;
+    }
+
+    private long secondsUntilOwnChange(PriceEntity.IntervalType intervalType, LocalDateTime now) {
+        Timeframe timeframe = Timeframe.of(intervalType);
+        long epoch = now.toEpochSecond(ZoneOffset.UTC);
+        long nextClose = timeframe.shift(timeframe.bucketStart(epoch), 1);
+        long seconds = nextClose - epoch + closeDelay / 1000;
+        long intrabar = intrabarRefresh(intervalType) / 1000;
+        if (intrabar > 0) {
+            seconds = Math.min(seconds, intrabar);
+        }
+        return Math.max(seconds, 1);
+    }
+
+    private long intrabarRefresh(PriceEntity.IntervalType intervalType) {
+        return switch (intervalType) {
+            case ONE_HOUR -> hourlyIntrabarRefresh;
+            case FOUR_HOURS -> fourHourIntrabarRefresh;
+            case ONE_DAY -> dailyIntrabarRefresh;
+        };
+    }
+
+    private static String key(String symbol, PriceEntity.IntervalType intervalType) {
+        return symbol + ":" + intervalType.getValue();
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.service;
+
+/**
+ * Elle tetiklenen çekme işi bittiğinde (başarılı ya da hatalı) yayınlanır
+ */
+public class FetchJobFinishedEvent {
+
+    private final FetchJobService.FetchJob job;
+
+    public FetchJobFinishedEvent(FetchJobService.FetchJob job) {
+        this.job = job;
+    }
+
+    public FetchJobService.FetchJob getJob() {
+        return job;
+    }
+}
@@ -0,0 +1,164 @@
+package org.example.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.example.entity.PriceEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Elle tetiklenen çekmeleri arka planda iş olarak çalıştırır; HTTP thread'i uzak API'yi beklemez.
+ * Aynı interval (ve sembol) için süren iş varsa yenisi açılmaz, o iş döner. Biten iş FetchJobFinishedEvent
+ * yayınlar (SSE "fetch" olayı); durumu iş id'si ile de sorgulanabilir.
+ */
+@Service
+public class FetchJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FetchJobService.class);
+
+    // Tüm semboller için çalışan iş anahtarındaki sembol yeri
+    private static final String ALL_SYMBOLS = "*";
+
+    private final FetchService fetchService;
+    private final SymbolRegistry symbolRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicLong sequence = new AtomicLong();
+    // Erişim sıralı değil, ekleme sıralı: en eski biten işler önce atılır
+    private final Map<Long, FetchJob> jobs = new LinkedHashMap<>();
+    // interval:sembol -> süren iş
+    private final Map<String, FetchJob> running = new LinkedHashMap<>();
+    private volatile LocalDateTime lastFinished;
+
+    @Value("${app.fetch.job-history:50}")
+    private int jobHistory;
+
+    public FetchJobService(FetchService fetchService, SymbolRegistry symbolRegistry,
+                           ApplicationEventPublisher eventPublisher) {
+        this.fetchService = fetchService;
+        this.symbolRegistry = symbolRegistry;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Çekme işini başlatır (symbol null ise tüm semboller). Aynı kapsamı içeren süren bir iş varsa onu döner.
+     */
+    public FetchJob submit(String symbol, PriceEntity.IntervalType intervalType) {
+        FetchJob job;
+        synchronized (this) {
+            // Tüm semboller için süren iş tek sembollük isteği de kapsar
+            FetchJob existing = running.get(key(intervalType, ALL_SYMBOLS));
+            if (existing == null && symbol != null) {
+                existing = running.get(key(intervalType, symbol));
+            }
+            if (existing != null) {
+                logger.info("Fetch already running for interval: {} (job {})", intervalType, existing.getId());
+                return existing;
+            }
+            List<String> symbols = symbol != null ? List.of(symbol) : List.copyOf(symbolRegistry.getSymbols());
+            job = new FetchJob(sequence.incrementAndGet(), symbol, symbols, intervalType);
+            jobs.put(job.getId(), job);
+            running.put(key(intervalType, symbol != null ? symbol : ALL_SYMBOLS), job);
+            trimHistory();
+        }
+        fetchService.manualFetch(symbol, intervalType)
+                .subscribe(null, error -> finish(job, error), () -> finish(job, null));
+        return job;
+    }
+
+    public synchronized FetchJob getJob(long id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * En yeni önce son işler
+     */
+    public synchronized List<FetchJob> getJobs() {
+        List<FetchJob> recent = new ArrayList<>(jobs.values());
+        Collections.reverse(recent);
+        return recent;
+    }
+
+    public LocalDateTime getLastFinished() {
+        return lastFinished;
+    }
+
+    private void finish(FetchJob job, Throwable error) {
+        if (error != null) {
+            logger.error("Manual fetch job {} failed for interval: {}", job.getId(), job.getIntervalType(), error);
+        }
+        synchronized (this) {
+            job.complete(error);
+            running.remove(key(job.getIntervalType(), job.getSymbol() != null ? job.getSymbol() : ALL_SYMBOLS), job);
+        }
+        lastFinished = job.getFinishedAt();
+        eventPublisher.publishEvent(new FetchJobFinishedEvent(job));
+    }
+
+    private void trimHistory() {
+        var iterator = jobs.values().iterator();
+        while (jobs.size() > jobHistory && iterator.hasNext()) {
+            if (iterator.next().getStatus() != FetchJob.Status.RUNNING) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static String key(PriceEntity.IntervalType intervalType, String symbol) {
+        return intervalType.getValue() + ":" + symbol;
+    }
+
+    public static class FetchJob {
+
+        public enum Status {
+            RUNNING,
+            COMPLETED,
+            FAILED
+        }
+
+        private final long id;
+        // Tüm semboller için null
+        private final String symbol;
+        private final List<String> symbols;
+        private final PriceEntity.IntervalType intervalType;
+        private final LocalDateTime submittedAt;
+        private volatile Status status = Status.RUNNING;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        FetchJob(long id, String symbol, List<String> symbols, PriceEntity.IntervalType intervalType) {
+            this.id = id;
+            this.symbol = symbol;
+            this.symbols = symbols;
+            this.intervalType = intervalType;
+            this.submittedAt = LocalDateTime.now(ZoneOffset.UTC);
+        }
+
+        void complete(Throwable failure) {
+            this.error = failure != null ? failure.getMessage() : null;
+            this.finishedAt = LocalDateTime.now(ZoneOffset.UTC);
+            this.status = failure != null ? Status.FAILED : Status.COMPLETED;
+        }
+
+        public long getId() { return id; }
+        public String getSymbol() { return symbol; }
+        public List<String> getSymbols() { return symbols; }
+        @JsonIgnore
+        public PriceEntity.IntervalType getIntervalType() { return intervalType; }
+        public String getInterval() { return intervalType.getValue(); }
+        public LocalDateTime getSubmittedAt() { return submittedAt; }
+        public Status getStatus() { return status; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public String getError() { return error; }
+    }
+}
@@ -0,0 +1,173 @@
+package org.example.service;
+
+import org.example.entity.PriceEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Her interval'ın bir sonraki çekmesini beklenen bar kapanışının hemen sonrasına (+ küçük jitter) planlar.
+ * İsteğe bağlı olarak kapanışlar arasında daha seyrek intrabar yenileme yapılır. Duraklama sonrası kaçırılan
+ * çalışmalar tek bir artımlı (son kayıtlı bardan itibaren) çekmede telafi edilir. Stream modunda akış bağlıyken
+ * poll yapılmaz; bağlantı koptuğu sürece REST ile çekmeye devam edilir.
+ */
+@Service
+public class FetchScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(FetchScheduler.class);
+
+    private final FetchService fetchService;
+    // Akış bağlıyken saatlik barlar WebSocket'ten gelir, periyodik poll yapılmaz
+    private final KlineStreamService klineStreamService;
+
+    // Borsanın kapanan barı kesinleştirmesi için kapanıştan sonra beklenen süre
+    @Value("${app.fetch.close-delay:2000}")
+    private long closeDelay;
+
+    // Kapanış sonrası eklenen rastgele gecikmenin üst sınırı (tüm istemciler aynı anda istek atmasın)
+    @Value("${app.fetch.jitter:3000}")
+    private long jitter;
+
+    // Başarısız çekme bu süre sonra tekrar denenir
+    @Value("${app.fetch.retry-delay:30000}")
+    private long retryDelay;
+
+    // Devam eden barın kapanışlar arasındaki yenileme aralığı (0: sadece kapanışta)
+    @Value("${app.fetch.intrabar-refresh.1h:60000}")
+    private long hourlyIntrabarRefresh;
+
+    @Value("${app.fetch.intrabar-refresh.4h:0}")
+    private long fourHourIntrabarRefresh;
+
+    @Value("${app.fetch.intrabar-refresh.1d:0}")
+    private long dailyIntrabarRefresh;
+
+    private final Map<PriceEntity.IntervalType, Long> nextRun = new EnumMap<>(PriceEntity.IntervalType.class);
+    private final Map<PriceEntity.IntervalType, Boolean> running = new EnumMap<>(PriceEntity.IntervalType.class);
+    private boolean initialized;
+    private long initialRetryAt;
+
+    public FetchScheduler(FetchService fetchService, KlineStreamService klineStreamService) {
+        this.fetchService = fetchService;
+        this.klineStreamService = klineStreamService;
+    }
+
+    /**
+     * Sadece zamanı gelen interval'ları çeker; tick'in kendisi uzak istek ya da DB erişimi yapmaz
+     */
+    @Scheduled(fixedDelayString = "${app.scheduling.tick:1000}")
+    public void tick() {
+        tick(System.currentTimeMillis());
+    }
+
+    synchronized void tick(long now) {
+        if (klineStreamService.isConnected()) {
+            return;
+        }
+        if (!initialized) {
+            // İlk çalışma tam döngüdür: türetilmiş interval'lar saatlik rollup'tan önce tohumlanır
+            if (running.isEmpty() && now >= initialRetryAt) {
+                startInitialCycle(now);
+            }
+            return;
+        }
+        for (PriceEntity.IntervalType intervalType : PriceEntity.IntervalType.values()) {
+            if (now >= nextRun.get(intervalType) && !running.containsKey(intervalType)) {
+                long lateBy = now - nextRun.get(intervalType);
+                if (lateBy > intervalType.getDuration().toMillis()) {
+                    logger.info("Catching up {} after {}s pause", intervalType, lateBy / 1000);
+                }
+                refresh(intervalType, now);
+            }
+        }
+    }
+
+    private void startInitialCycle(long now) {
+        for (PriceEntity.IntervalType intervalType : PriceEntity.IntervalType.values()) {
+            running.put(intervalType, Boolean.TRUE);
+        }
+        logger.info("Running initial fetch cycle");
+        fetchService.fetchAllIntervalDataAsync().subscribe(null,
+                e -> {
+                    logger.error("Initial fetch cycle failed: {}", e.getMessage());
+                    finishInitialCycle(now, false);
+                },
+                () -> finishInitialCycle(now, true));
+    }
+
+    private synchronized void finishInitialCycle(long startedAt, boolean success) {
+        running.clear();
+        if (!success) {
+            initialRetryAt = startedAt + retryDelay;
+            return;
+        }
+        initialized = true;
+        for (PriceEntity.IntervalType intervalType : PriceEntity.IntervalType.values()) {
+            nextRun.put(intervalType, plan(intervalType, startedAt));
+        }
+        logger.debug("Next fetches: {}", nextRun);
+    }
+
+    private void refresh(PriceEntity.IntervalType intervalType, long now) {
+        running.put(intervalType, Boolean.TRUE);
+        // Çekme sürerken yeni tick'ler tetiklemesin diye plan baştan yapılır
+        nextRun.put(intervalType, plan(intervalType, now));
+        fetchService.refreshInterval(intervalType).subscribe(null,
+                e -> {
+                    logger.error("Scheduled fetch failed for interval: {}: {}", intervalType, e.getMessage());
+                    finishRefresh(intervalType, now + retryDelay);
+                },
+                () -> finishRefresh(intervalType, -1));
+    }
+
+    private synchronized void finishRefresh(PriceEntity.IntervalType intervalType, long retryAt) {
+        running.remove(intervalType);
+        if (retryAt >= 0) {
+            nextRun.put(intervalType, Math.min(nextRun.get(intervalType), retryAt));
+        }
+    }
+
+    /**
+     * Sonraki kapanış + gecikme + jitter; intrabar yenileme açıksa ondan erken olabilir
+     */
+    long plan(PriceEntity.IntervalType intervalType, long now) {
+        long duration = intervalType.getDuration().toMillis();
+        long nextClose = Math.floorDiv(now, duration) * duration + duration;
+        long run = nextClose + closeDelay + (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0);
+        long intrabar = intrabarRefresh(intervalType);
+        return intrabar > 0 ? Math.min(run, now + intrabar) : run;
+    }
+
+    private long intrabarRefresh(PriceEntity.IntervalType intervalType) {
+        switch (intervalType) {
+            case ONE_HOUR:
+                return hourlyIntrabarRefresh;
+            case FOUR_HOURS:
+                return fourHourIntrabarRefresh;
+            case ONE_DAY:
+                return dailyIntrabarRefresh;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * /api/fetch/status için interval başına planlanan sonraki çekme zamanı
+     */
+    public synchronized Map<String, String> getSchedule() {
+        Map<String, String> schedule = new LinkedHashMap<>();
+        for (PriceEntity.IntervalType intervalType : PriceEntity.IntervalType.values()) {
+            Long next = nextRun.get(intervalType);
+            schedule.put(intervalType.getValue(), next != null ? Instant.ofEpochMilli(next).toString() : "pending");
+        }
+        return schedule;
+    }
+}
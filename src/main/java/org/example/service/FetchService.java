@@ -1,29 +1,29 @@
 package org.example.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.entity.CompactBar;
+import org.example.entity.FixedPoint;
 import org.example.entity.PriceEntity;
-import org.example.repository.PriceRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
-import jakarta.annotation.PostConstruct;
+import java.util.Optional;
 import java.time.Duration;
-import org.springframework.http.client.reactive.ReactorClientHttpConnector;
-import reactor.netty.http.client.HttpClient;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import io.netty.handler.timeout.ReadTimeoutException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.web.reactive.function.client.WebClient.Builder;
+import org.springframework.beans.factory.annotation.Qualifier;
 
 class DataFetchException extends RuntimeException {
     public DataFetchException(String msg, Throwable cause) { super(msg, cause); }
@@ -39,195 +39,302 @@ public class FetchService {
     
     private static final Logger logger = LoggerFactory.getLogger(FetchService.class);
     
-    @Value("${app.coingecko.base-url}")
-    private String baseUrl;
+    // 4H/1D barları saatlik barlardan türet (uzak kaynaktan sadece ilk kez tohumlanır)
+    @Value("${app.rollup.enabled:true}")
+    private boolean rollupEnabled;
     
-    @Value("${app.coingecko.timeout}")
-    private int timeout;
+    // Kesinti sonrası tek döngüde en fazla kaç saatlik bar istenir (Binance limiti 1000)
+    @Value("${app.fetch.max-catch-up-bars:1000}")
+    private int maxCatchUpBars;
+    
+    // Aynı anda işlenen sembol sayısı (uzak istekleri ayrıca OutboundRequestScheduler sınırlar)
+    @Value("${app.fetch.symbol-concurrency:8}")
+    private int symbolConcurrency;
+    
+    private final HotTierCache hotTierCache;
+    private final RollupService rollupService;
+    private final WebClient binanceWebClient;
+    private final WebClient coingeckoWebClient;
+    private final PersistShards persistShards;
+    private final OutboundRequestScheduler outboundScheduler;
+    private final SymbolRegistry symbolRegistry;
+    // Devam eden fetch döngüsü: yeni istekler buna katılır, üst üste döngü başlatılmaz
+    private final AtomicReference<Mono<Void>> inFlightCycle = new AtomicReference<>();
     
-    private WebClient webClient;
-    private final PriceRepository priceRepository;
-    private final ObjectMapper objectMapper;
-    private final WebClient.Builder webClientBuilder;
     @Autowired
-    public FetchService(PriceRepository priceRepository, WebClient.Builder webClientBuilder) {
-        this.priceRepository = priceRepository;
-        this.objectMapper = new ObjectMapper();
-        this.webClientBuilder = webClientBuilder;
+    public FetchService(HotTierCache hotTierCache, RollupService rollupService,
+                        @Qualifier("binanceWebClient") WebClient binanceWebClient,
+                        @Qualifier("coingeckoWebClient") WebClient coingeckoWebClient,
+                        PersistShards persistShards, OutboundRequestScheduler outboundScheduler,
+                        SymbolRegistry symbolRegistry) {
+        this.hotTierCache = hotTierCache;
+        this.rollupService = rollupService;
+        this.binanceWebClient = binanceWebClient;
+        this.coingeckoWebClient = coingeckoWebClient;
+        this.persistShards = persistShards;
+        this.outboundScheduler = outboundScheduler;
+        this.symbolRegistry = symbolRegistry;
     }
-
-    @PostConstruct
-    public void initWebClient() {
-        this.webClient = webClientBuilder
-            .baseUrl(baseUrl)
-            .clientConnector(new ReactorClientHttpConnector(HttpClient.create()
-                .responseTimeout(Duration.ofMillis(timeout))))
-            .build();
+    
+    /**
+     * Belirli bir sembol ve interval için fiyat verilerini çeker ve kaydeder
+     */
+    public void fetchAndSavePriceData(String symbol, PriceEntity.IntervalType intervalType) {
+        fetchInterval(symbol, intervalType).block();
     }
     
     /**
-     * Belirli bir interval için Bitcoin fiyat verilerini çeker ve kaydeder
+     * Tek bir sembol ve interval için çekme + kayıt pipeline'ı
      */
-    public void fetchAndSavePriceData(PriceEntity.IntervalType intervalType) {
-        try {
-            logger.info("Fetching price data for interval: {}", intervalType);
-            if (intervalType == PriceEntity.IntervalType.ONE_HOUR) {
-                // Binance API'den saatlik veri çek (daha fazla bar için limit=1000)
-                String binanceUrl = "https://api.binance.com/api/v3/klines?symbol=BTCUSDT&interval=1h&limit=1000";
-                String response = webClientBuilder.build()
-                        .get()
-                        .uri(binanceUrl)
-                        .retrieve()
-                        .bodyToMono(String.class)
-                        .block();
-                if (response != null) {
-                    JsonNode arr = objectMapper.readTree(response);
-                    List<PriceEntity> priceEntities = new ArrayList<>();
-                    for (JsonNode kline : arr) {
-                        long openTime = kline.get(0).asLong();
-                        BigDecimal open = new BigDecimal(kline.get(1).asText());
-                        BigDecimal high = new BigDecimal(kline.get(2).asText());
-                        BigDecimal low = new BigDecimal(kline.get(3).asText());
-                        BigDecimal close = new BigDecimal(kline.get(4).asText());
-                        BigDecimal volume = new BigDecimal(kline.get(5).asText());
-                        LocalDateTime dateTime = LocalDateTime.ofEpochSecond(openTime / 1000, 0, ZoneOffset.UTC);
-                        if (!priceRepository.existsByTimestampAndIntervalType(dateTime, intervalType)) {
-                            PriceEntity entity = new PriceEntity(
-                                    dateTime, open, high, low, close, volume, intervalType
-                            );
-                            priceEntities.add(entity);
-                        }
-                    }
-                    if (!priceEntities.isEmpty()) {
-                        List<PriceEntity> savedEntities = priceRepository.saveAll(priceEntities);
-                        logger.info("Successfully saved {} new price records for interval: {} (Binance)", savedEntities.size(), intervalType);
-                    } else {
-                        logger.info("No new price data to save for interval: {} (Binance)", intervalType);
-                    }
+    public Mono<Void> fetchInterval(String symbol, PriceEntity.IntervalType intervalType) {
+        return Mono.fromCallable(() -> isDerivedFromHourly(symbol, intervalType))
+                .subscribeOn(persistShards.forSymbol(symbol))
+                .flatMap(derived -> {
+                    // 4H/1D barlar saatlik barlardan türetilir: saatlik veriyi çekmek yeterli
+                    PriceEntity.IntervalType source = derived ? PriceEntity.IntervalType.ONE_HOUR : intervalType;
+                    return download(symbol, source).flatMap(this::persist);
+                });
+    }
+    
+    /**
+     * Zamanlanmış yenileme (tüm semboller): saatlik barlardan türetilen interval'lar için uzak istek yapılmaz,
+     * onları saatlik çekmenin rollup'ı günceller
+     */
+    public Mono<Void> refreshInterval(PriceEntity.IntervalType intervalType) {
+        return forEachSymbol(symbol -> Mono.fromCallable(() -> isDerivedFromHourly(symbol, intervalType))
+                .subscribeOn(persistShards.forSymbol(symbol))
+                .flatMap(derived -> derived ? Mono.<Void>empty() : download(symbol, intervalType).flatMap(this::persist)));
+    }
+    
+    /**
+     * İşi tüm semboller için sınırlı eşzamanlılıkla çalıştırır. Her sembolün kayıtları kendi shard'ında sıralanır;
+     * bir sembolün hatası diğerlerini durdurmaz, hatalar sonda bildirilir.
+     */
+    private Mono<Void> forEachSymbol(Function<String, Mono<Void>> work) {
+        return Flux.fromIterable(symbolRegistry.getSymbols())
+                .flatMapDelayError(symbol -> work.apply(symbol)
+                        .doOnError(e -> logger.warn("Fetch failed for {}: {}", symbol, e.getMessage())),
+                        Math.max(1, symbolConcurrency), 1)
+                .then();
+    }
+    
+    /**
+     * Son kayıtlı barı bulup sadece ondan sonrasını (o bar dahil) bloklamadan indirir
+     */
+    private Mono<Download> download(String symbol, PriceEntity.IntervalType intervalType) {
+        return Mono.fromCallable(() -> Optional.ofNullable(hotTierCache.findLatest(symbol, intervalType)))
+                .subscribeOn(persistShards.forSymbol(symbol))
+                .flatMap(latest -> {
+                    LocalDateTime since = latest.map(PriceEntity::getTimestamp).orElse(null);
+                    // Saatlik barlar ve CoinGecko karşılığı olmayan sembollerin tohumları Binance kline'larından gelir
+                    boolean klines = intervalType == PriceEntity.IntervalType.ONE_HOUR
+                            || symbolRegistry.getCoingeckoId(symbol) == null;
+                    return request(symbol, intervalType, since, klines)
+                            .map(bars -> new Download(symbol, intervalType, since, klines, bars));
+                });
+    }
+    
+    private Mono<List<CompactBar>> request(String symbol, PriceEntity.IntervalType intervalType, LocalDateTime since,
+                                           boolean klines) {
+        String url;
+        WebClient client;
+        OutboundRequestScheduler.Provider provider;
+        int weight;
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        if (klines) {
+            // Binance API'den kline çek: son kayıtlı bardan itibaren (devam eden bar güncellensin diye o da dahil)
+            String base = "/api/v3/klines?symbol=" + symbol + "&interval=" + intervalType.getValue();
+            url = base + "&limit=" + maxCatchUpBars;
+            if (since != null) {
+                long missing = Duration.between(since, now).dividedBy(intervalType.getDuration()) + 1;
+                if (missing <= maxCatchUpBars) {
+                    url = base + "&limit=" + Math.max(missing, 1)
+                            + "&startTime=" + since.toEpochSecond(ZoneOffset.UTC) * 1000;
                 } else {
-                    logger.warn("Binance response was null for interval: {}", intervalType);
+                    // Uzun kesinti: son maxCatchUpBars bar alınır, daha eskisi aradaki boşluk olarak kalır
+                    logger.warn("Gap of {} {} {} bars exceeds catch-up window, fetching latest {}",
+                            missing, symbol, intervalType, maxCatchUpBars);
                 }
-                return;
             }
-            String days = getDaysForInterval(intervalType);
+            client = binanceWebClient;
+            provider = OutboundRequestScheduler.Provider.BINANCE;
+            weight = OutboundRequestScheduler.BINANCE_KLINES_WEIGHT;
+        } else {
+            int days = Integer.parseInt(getDaysForInterval(intervalType));
+            if (since != null) {
+                // Son kayıtlı bucket'ın başını kapsayacak kadar gün (tam gün, pencere ile sınırlı)
+                days = (int) Math.min(days, Duration.between(since, now).toHours() / 24 + 1);
+            }
             String apiInterval = getIntervalString(intervalType);
             // 4H için hourly veri çekilecek
             boolean isFourHour = intervalType == PriceEntity.IntervalType.FOUR_HOURS;
-            String url = String.format("/coins/bitcoin/market_chart?vs_currency=usd&days=%s&interval=%s",
-                                     days, isFourHour ? "hourly" : apiInterval);
-            logger.info("Making request to: {}", baseUrl + url);
-            String response;
-            try {
-                response = webClient.get()
-                        .uri(url)
-                        .retrieve()
-                        .bodyToMono(String.class)
-                        .block();
-                logger.info("Response received, length: {}", response != null ? response.length() : 0);
-            } catch (Exception e) {
-                if (e.getMessage() != null && e.getMessage().toLowerCase().contains("timeout")) {
-                    throw new ApiTimeoutException("API timeout: " + url, e);
-                }
-                throw new DataFetchException("WebClient request failed: " + url, e);
-            }
-            if (response != null) {
-                JsonNode rootNode = objectMapper.readTree(response);
-                JsonNode pricesNode = rootNode.get("prices");
-                JsonNode volumesNode = rootNode.has("total_volumes") ? rootNode.get("total_volumes") : null;
-                logger.info("Found {} price entries in response", pricesNode.size());
-                List<PriceEntity> priceEntities = new ArrayList<>();
-                // Volume eşleştirme için timestamp->volume map'i oluştur
-                java.util.Map<Long, BigDecimal> volumeMap = new java.util.HashMap<>();
-                if (volumesNode != null) {
-                    for (JsonNode volNode : volumesNode) {
-                        long ts = volNode.get(0).asLong();
-                        BigDecimal vol = new BigDecimal(volNode.get(1).asText());
-                        volumeMap.put(ts, vol);
-                    }
-                }
-                for (JsonNode priceNode : pricesNode) {
-                    long timestamp = priceNode.get(0).asLong();
-                    BigDecimal price = new BigDecimal(priceNode.get(1).asText());
-                    LocalDateTime dateTime = LocalDateTime.ofEpochSecond(timestamp / 1000, 0, ZoneOffset.UTC);
-                    BigDecimal volume = volumeMap.getOrDefault(timestamp, BigDecimal.ZERO);
-                    if (!priceRepository.existsByTimestampAndIntervalType(dateTime, isFourHour ? PriceEntity.IntervalType.ONE_HOUR : intervalType)) {
-                        PriceEntity entity = new PriceEntity(
-                                dateTime,
-                                price, // OHLC için aynı değer kullanıyoruz (basitleştirme)
-                                price,
-                                price,
-                                price,
-                                volume,
-                                isFourHour ? PriceEntity.IntervalType.ONE_HOUR : intervalType
-                        );
-                        priceEntities.add(entity);
-                        logger.debug("Added new entity for timestamp: {}", dateTime);
-                    } else {
-                        logger.debug("Skipped duplicate entity for timestamp: {}", dateTime);
-                    }
-                }
-                // Eğer 4H ise, saatlik veriden 4H OHLC barları üret
-                if (isFourHour) {
-                    List<PriceEntity> fourHourBars = new ArrayList<>();
-                    for (int i = 0; i + 3 < priceEntities.size(); i += 4) {
-                        PriceEntity o = priceEntities.get(i);
-                        PriceEntity h1 = priceEntities.get(i);
-                        PriceEntity h2 = priceEntities.get(i+1);
-                        PriceEntity h3 = priceEntities.get(i+2);
-                        PriceEntity c = priceEntities.get(i+3);
-                        BigDecimal open = o.getOpenPrice();
-                        BigDecimal high = h1.getHighPrice().max(h2.getHighPrice()).max(h3.getHighPrice()).max(c.getHighPrice());
-                        BigDecimal low = h1.getLowPrice().min(h2.getLowPrice()).min(h3.getLowPrice()).min(c.getLowPrice());
-                        BigDecimal close = c.getClosePrice();
-                        BigDecimal volume = h1.getVolume().add(h2.getVolume()).add(h3.getVolume()).add(c.getVolume());
-                        LocalDateTime ts = c.getTimestamp(); // 4H barın timestamp'i son barın zamanı
-                        fourHourBars.add(new PriceEntity(ts, open, high, low, close, volume, PriceEntity.IntervalType.FOUR_HOURS));
+            url = String.format("/coins/%s/market_chart?vs_currency=usd&days=%d&interval=%s",
+                                symbolRegistry.getCoingeckoId(symbol), days, isFourHour ? "hourly" : apiInterval);
+            client = coingeckoWebClient;
+            provider = OutboundRequestScheduler.Provider.COINGECKO;
+            weight = 1;
+        }
+        String requestUrl = url;
+        logger.info("Fetching {} price data for interval: {} ({})", symbol, intervalType, requestUrl);
+        // Canlı bar isteği önce çalışır; aynı URL'ye süren istek (ör. döngü sırasında manuel fetch) paylaşılır
+        return outboundScheduler.<List<CompactBar>>execute(provider, OutboundRequestScheduler.Priority.LIVE, requestUrl, weight, () -> {
+                    // Gövde Netty buffer'larından akış halinde ayrıştırılır (String/JsonNode ağacı oluşturulmaz)
+                    Flux<DataBuffer> body = client.get()
+                            .uri(requestUrl)
+                            .retrieve()
+                            .bodyToFlux(DataBuffer.class);
+                    FixedPoint fixedPoint = hotTierCache.getFixedPoint(symbol);
+                    FixedPoint volumeFixedPoint = hotTierCache.getVolumeFixedPoint(symbol);
+                    return klines
+                            ? MarketDataParser.parseKlines(body, fixedPoint, volumeFixedPoint).collectList()
+                            : MarketDataParser.parseMarketChart(body, fixedPoint, volumeFixedPoint);
+                })
+                .doOnNext(parsed -> logger.info("Response received for {} interval: {}, {} entries", symbol, intervalType, parsed.size()))
+                .onErrorMap(e -> !(e instanceof DataFetchException), e -> {
+                    if (isTimeout(e)) {
+                        return new ApiTimeoutException("API timeout: " + requestUrl, e);
                     }
-                    priceEntities = fourHourBars;
-                }
-                logger.info("Created {} new entities to save", priceEntities.size());
-                if (!priceEntities.isEmpty()) {
-                    logger.info("About to save {} entities to database", priceEntities.size());
-                    List<PriceEntity> savedEntities = priceRepository.saveAll(priceEntities);
-                    logger.info("Successfully saved {} new price records for interval: {}", savedEntities.size(), intervalType);
-                    if (!savedEntities.isEmpty()) {
-                        PriceEntity firstEntity = savedEntities.get(0);
-                        logger.info("First saved entity: ID={}, timestamp={}, price={}, interval={}", 
-                                  firstEntity.getId(), firstEntity.getTimestamp(), firstEntity.getClosePrice(), firstEntity.getIntervalType());
+                    return new DataFetchException("WebClient request failed: " + requestUrl, e);
+                });
+    }
+    
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException || t instanceof ReadTimeoutException
+                    || (t.getMessage() != null && t.getMessage().toLowerCase().contains("timeout"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Yanıtı ayrıştırıp sembolün kayıt shard'ında veritabanına yazar
+     */
+    private Mono<Void> persist(Download download) {
+        String symbol = download.symbol;
+        PriceEntity.IntervalType intervalType = download.intervalType;
+        return Mono.fromRunnable(() -> {
+                    try {
+                        if (download.klines) {
+                            saveBinanceKlines(symbol, intervalType, download.bars);
+                        } else {
+                            saveCoingeckoChart(symbol, intervalType, download.since, download.bars);
+                        }
+                    } catch (ApiTimeoutException | DataFetchException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        logger.error("Error saving {} price data for interval: {}", symbol, intervalType, e);
+                        throw new DataFetchException("Fetch failed", e);
                     }
-                } else {
-                    logger.info("No new price data to save for interval: {}", intervalType);
-                }
-            } else {
-                logger.warn("Response was null for interval: {}", intervalType);
+                })
+                .subscribeOn(persistShards.forSymbol(symbol))
+                .then();
+    }
+    
+    private void saveBinanceKlines(String symbol, PriceEntity.IntervalType intervalType, List<CompactBar> bars) {
+        FixedPoint fixedPoint = hotTierCache.getFixedPoint(symbol);
+        FixedPoint volumeFixedPoint = hotTierCache.getVolumeFixedPoint(symbol);
+        List<PriceEntity> priceEntities = new ArrayList<>(bars.size());
+        for (CompactBar bar : bars) {
+            priceEntities.add(bar.toEntity(symbol, intervalType, fixedPoint, volumeFixedPoint));
+        }
+        // Yeni barlar eklenir, değişen (devam eden) bar güncellenir; aynı kalanlara dokunulmaz
+        List<PriceEntity> savedEntities = rollupService.upsert(priceEntities, intervalType);
+        if (!savedEntities.isEmpty()) {
+            logger.info("Successfully saved {} {} price records for interval: {} (Binance)", savedEntities.size(), symbol, intervalType);
+            if (rollupEnabled && intervalType == PriceEntity.IntervalType.ONE_HOUR) {
+                rollupService.rollup(savedEntities);
             }
-        } catch (JsonProcessingException e) {
-            logger.error("JSON processing error for interval: {}", intervalType, e);
-            throw new DataFetchException("JSON processing failed", e);
-        } catch (ApiTimeoutException | DataFetchException e) {
-            throw e;
-        } catch (Exception e) {
-            logger.error("Error fetching price data for interval: {}", intervalType, e);
-            throw new DataFetchException("Fetch failed", e);
+        } else {
+            logger.info("No new {} price data to save for interval: {} (Binance)", symbol, intervalType);
+        }
+    }
+    
+    private void saveCoingeckoChart(String symbol, PriceEntity.IntervalType intervalType, LocalDateTime since,
+                                    List<CompactBar> chart) {
+        FixedPoint fixedPoint = hotTierCache.getFixedPoint(symbol);
+        FixedPoint volumeFixedPoint = hotTierCache.getVolumeFixedPoint(symbol);
+        long sinceEpoch = since != null ? since.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE;
+        List<PriceEntity> points = new ArrayList<>(chart.size());
+        for (CompactBar point : chart) {
+            if (point.timestamp < sinceEpoch) {
+                // Son kayıtlı bucket'tan önceki noktalar eksik bucket üretip tam barın üzerine yazmasın
+                continue;
+            }
+            // OHLC için aynı değer kullanıyoruz (basitleştirme)
+            points.add(point.toEntity(symbol, intervalType, fixedPoint, volumeFixedPoint));
+        }
+        logger.info("Found {} price entries in response", chart.size());
+        // Noktaları UTC hizalı bucket'lara topla (4H: 00/04/08..., 1D: 00:00) ve mevcut barların üzerine yaz
+        List<PriceEntity> bars = rollupService.aggregate(points, intervalType);
+        logger.info("Aggregated {} points into {} bars", points.size(), bars.size());
+        List<PriceEntity> savedEntities = rollupService.upsert(bars, intervalType);
+        if (!savedEntities.isEmpty()) {
+            logger.info("Successfully saved {} {} price records for interval: {}", savedEntities.size(), symbol, intervalType);
+        } else {
+            logger.info("No new {} price data to save for interval: {}", symbol, intervalType);
         }
     }
     
     /**
-     * Tüm interval tipleri için veri çeker
+     * Tüm semboller ve interval tipleri için veri çeker
      */
     public void fetchAllIntervalData() {
-        for (PriceEntity.IntervalType intervalType : PriceEntity.IntervalType.values()) {
-            fetchAndSavePriceData(intervalType);
+        fetchAllIntervalDataAsync().block();
+    }
+    
+    /**
+     * Tüm semboller ve interval'lar için tek bir fetch döngüsü. Döngü zaten sürüyorsa yenisi başlatılmaz,
+     * mevcut olana katılınır.
+     */
+    public Mono<Void> fetchAllIntervalDataAsync() {
+        while (true) {
+            Mono<Void> current = inFlightCycle.get();
+            if (current != null) {
+                return current;
+            }
+            AtomicReference<Mono<Void>> self = new AtomicReference<>();
+            Mono<Void> cycle = Mono.defer(() -> forEachSymbol(this::runCycle))
+                    // Sonuç dinleyicilere ulaşmadan döngü serbest bırakılır; iptal edilen döngü de slotu bırakır
+                    .doOnTerminate(() -> inFlightCycle.compareAndSet(self.get(), null))
+                    .doOnCancel(() -> inFlightCycle.compareAndSet(self.get(), null))
+                    .cache();
+            self.set(cycle);
+            if (inFlightCycle.compareAndSet(null, cycle)) {
+                return cycle;
+            }
         }
     }
     
+    private Mono<Void> runCycle(String symbol) {
+        // Geçmişi olmayan türetilmiş interval'lar uzak kaynaktan tohumlanır; ardından saatlik barlar
+        // çekilir ve etkilenen 4H/1D bucket'ları rollup ile güncellenir.
+        // İndirmeler eşzamanlı, kayıtlar bu sırayla (tohum önce, rollup sonra) yapılır.
+        return Mono.fromCallable(() -> {
+                    List<PriceEntity.IntervalType> plan = new ArrayList<>();
+                    for (PriceEntity.IntervalType intervalType : RollupService.DERIVED_INTERVALS) {
+                        if (!isDerivedFromHourly(symbol, intervalType)) {
+                            plan.add(intervalType);
+                        }
+                    }
+                    plan.add(PriceEntity.IntervalType.ONE_HOUR);
+                    return plan;
+                })
+                .subscribeOn(persistShards.forSymbol(symbol))
+                .flatMapMany(plan -> Flux.fromIterable(plan)
+                        .flatMapSequential(intervalType -> download(symbol, intervalType), plan.size()))
+                .concatMap(this::persist)
+                .then();
+    }
+    
     /**
-     * Scheduled job - her 5 dakikada bir veri çeker
+     * Interval saatlik barlardan rollup ile mi üretiliyor (rollup açık ve tohum verisi mevcut)
      */
-    @Scheduled(fixedDelayString = "${app.scheduling.price-fetch-interval}")
-    public void scheduledFetch() {
-        logger.info("Running scheduled price data fetch");
-        fetchAllIntervalData();
+    private boolean isDerivedFromHourly(String symbol, PriceEntity.IntervalType intervalType) {
+        return rollupEnabled
+                && intervalType != PriceEntity.IntervalType.ONE_HOUR
+                && hotTierCache.findLatest(symbol, intervalType) != null;
     }
     
     /**
@@ -263,16 +370,10 @@ public class FetchService {
     }
     
     /**
-     * Manuel veri çekme için endpoint
+     * Elle tetiklenen çekme: symbol null ise tüm semboller
      */
-    public String fetchDataManually(PriceEntity.IntervalType intervalType) {
-        try {
-            fetchAndSavePriceData(intervalType);
-            return "Successfully fetched and saved data for interval: " + intervalType;
-        } catch (Exception e) {
-            logger.error("Manual fetch failed for interval: {}", intervalType, e);
-            return "Failed to fetch data: " + e.getMessage();
-        }
+    public Mono<Void> manualFetch(String symbol, PriceEntity.IntervalType intervalType) {
+        return symbol != null ? fetchInterval(symbol, intervalType) : forEachSymbol(s -> fetchInterval(s, intervalType));
     }
     
     /**
@@ -280,10 +381,12 @@ public class FetchService {
      */
     public String testWebClient() {
         try {
-            String response = webClient.get()
-                    .uri("/coins/bitcoin")
-                    .retrieve()
-                    .bodyToMono(String.class)
+            String response = outboundScheduler.execute(OutboundRequestScheduler.Provider.COINGECKO,
+                            OutboundRequestScheduler.Priority.DIAGNOSTIC, "/coins/bitcoin", 1,
+                            () -> coingeckoWebClient.get()
+                                    .uri("/coins/bitcoin")
+                                    .retrieve()
+                                    .bodyToMono(String.class))
                     .block();
             return response != null ? "Response length: " + response.length() : "null response";
         } catch (Exception e) {
@@ -293,46 +396,22 @@ public class FetchService {
     }
 
     /**
-     * Binance API'den anlık BTC/USDT fiyatı çeker
+     * Ayrıştırılmış yanıt ve isteğin başladığı son kayıtlı bar zamanı. klines: kaynak Binance kline'ları
      */
-    public BigDecimal fetchBinancePrice() {
-        try {
-            String binanceUrl = "https://api.binance.com/api/v3/ticker/price?symbol=BTCUSDT";
-            String response = webClientBuilder.build()
-                    .get()
-                    .uri(binanceUrl)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            if (response != null) {
-                JsonNode root = objectMapper.readTree(response);
-                String priceStr = root.get("price").asText();
-                return new BigDecimal(priceStr);
-            }
-        } catch (Exception e) {
-            logger.error("Binance fiyatı çekilemedi: {}", e.getMessage());
+    private static class Download {
+        final String symbol;
+        final PriceEntity.IntervalType intervalType;
+        final LocalDateTime since;
+        final boolean klines;
+        final List<CompactBar> bars;
+        
+        Download(String symbol, PriceEntity.IntervalType intervalType, LocalDateTime since, boolean klines,
+                 List<CompactBar> bars) {
+            this.symbol = symbol;
+            this.intervalType = intervalType;
+            this.klines = klines;
+            this.since = since;
+            this.bars = bars;
         }
-        return null;
     }
-
-    /**
-     * CoinGecko ve Binance fiyatlarını karşılaştırır
-     */
-    public String compareBinanceAndCoingeckoPrice() {
-        try {
-            // CoinGecko'dan mevcut fiyatı çek (en son kaydedilen fiyatı kullanıyoruz)
-            PriceEntity latest = priceRepository.findLatestByIntervalType(PriceEntity.IntervalType.ONE_HOUR);
-            BigDecimal coingeckoPrice = latest != null ? latest.getClosePrice() : null;
-            BigDecimal binancePrice = fetchBinancePrice();
-            if (coingeckoPrice == null || binancePrice == null) {
-                return "Fiyatlar alınamadı.";
-            }
-            BigDecimal diff = binancePrice.subtract(coingeckoPrice).abs();
-            BigDecimal diffPercent = diff.divide(coingeckoPrice, 6, java.math.RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100));
-            return String.format("CoinGecko: %s, Binance: %s, Fark: %s (%%%s)", coingeckoPrice, binancePrice, diff, diffPercent);
-        } catch (Exception e) {
-            logger.error("Fiyat karşılaştırma hatası: {}", e.getMessage());
-            return "Karşılaştırma hatası: " + e.getMessage();
-        }
-    }
-} 
\ No newline at end of file
+}
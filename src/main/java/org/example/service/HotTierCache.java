@@ -0,0 +1,410 @@
+package org.example.service;
+
+import org.example.entity.BarSeries;
+import org.example.entity.CompactBar;
+import org.example.entity.FixedPoint;
+import org.example.entity.PriceEntity;
+import org.example.repository.PriceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Her sembol ve interval için son N barı bellekte, primitive dizilerde tutan sabit kapasiteli ring buffer.
+ * Okumalar veritabanına gitmeden buradan karşılanır; buffer hazır değilse veya istenen
+ * kadar bar yoksa repository'ye düşülür. Buffer'ın son barı yüklemeden sonra ve periyodik olarak
+ * repository'nin son barıyla karşılaştırılır; append'i kaçırılmış bir yazma varsa buffer yeniden yüklenir.
+ */
+@Service
+public class HotTierCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotTierCache.class);
+
+    private final PriceRepository priceRepository;
+    private final SymbolRegistry symbolRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    // Sembol -> interval -> buffer
+    private final Map<String, Map<PriceEntity.IntervalType, RingBuffer>> rings = new HashMap<>();
+
+    @Value("${app.hot-tier.capacity:500}")
+    private int capacity;
+
+    public HotTierCache(PriceRepository priceRepository, SymbolRegistry symbolRegistry,
+                        ApplicationEventPublisher eventPublisher) {
+        this.priceRepository = priceRepository;
+        this.symbolRegistry = symbolRegistry;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Uygulama açılışında tüm semboller ve interval'lar için buffer'ı repository'den doldurur
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        for (String symbol : symbolRegistry.getSymbols()) {
+            for (PriceEntity.IntervalType intervalType : PriceEntity.IntervalType.values()) {
+                reload(symbol, intervalType);
+                verifyTail(symbol, intervalType);
+            }
+        }
+    }
+
+    /**
+     * Yüklü buffer'ların son barını (ve tam geçmişte bar sayısını) repository ile karşılaştırır
+     */
+    @Scheduled(fixedDelayString = "${app.hot-tier.verify-interval:60000}",
+               initialDelayString = "${app.hot-tier.verify-interval:60000}")
+    public void verifyTails() {
+        for (String symbol : symbolRegistry.getSymbols()) {
+            for (PriceEntity.IntervalType intervalType : PriceEntity.IntervalType.values()) {
+                verifyTail(symbol, intervalType);
+            }
+        }
+    }
+
+    /**
+     * Buffer repository'nin gerisinde ya da ilerisindeyse yeniden yükler. Yüklenmemiş buffer'a dokunulmaz
+     * (ilk okumada zaten yüklenir). Kayıt ile append arasına denk gelen kontrol gereksiz bir yeniden yükleme
+     * yapabilir; append kilidi bekleyip barı yerinde güncellediği için veri kaybolmaz.
+     */
+    boolean verifyTail(String symbol, PriceEntity.IntervalType intervalType) {
+        RingBuffer ring = ring(symbol, intervalType);
+        synchronized (ring) {
+            if (!ring.primed) {
+                return true;
+            }
+            PriceEntity latest = priceRepository.findLatestBySymbolAndIntervalType(symbol, intervalType);
+            boolean consistent = ring.endsWith(latest)
+                    && (!ring.complete || ring.size == priceRepository.countBySymbolAndIntervalType(symbol, intervalType));
+            if (consistent) {
+                return true;
+            }
+            logger.warn("Hot tier for {} interval {} diverged from repository (latest: {}), reloading",
+                    symbol, intervalType, latest != null ? latest.getTimestamp() : null);
+            reload(symbol, intervalType);
+            return false;
+        }
+    }
+
+    /**
+     * Belirli bir sembol ve interval için buffer'ı repository'den yeniden yükler
+     */
+    public void reload(String symbol, PriceEntity.IntervalType intervalType) {
+        RingBuffer ring = ring(symbol, intervalType);
+        synchronized (ring) {
+            // Sorgu kilit içinde: yükleme sırasında gelen append'ler kaybolmasın
+            List<PriceEntity> latest = priceRepository.findLatestNBySymbolAndIntervalType(symbol, intervalType, capacity);
+            ring.clear();
+            try {
+                // Repository DESC döner, buffer eskiden yeniye dolar
+                for (int i = latest.size() - 1; i >= 0; i--) {
+                    ring.put(latest.get(i));
+                }
+                // Tablodaki tüm barlar sığdıysa buffer tam geçmişi temsil eder
+                ring.complete = latest.size() < capacity;
+                ring.primed = true;
+                logger.info("Hot tier loaded {} bars for {} interval: {}", ring.size, symbol, intervalType);
+            } catch (ArithmeticException e) {
+                ring.clear();
+                logger.warn("Hot tier disabled for {} interval {}: value out of fixed-point range", symbol, intervalType);
+            }
+        }
+    }
+
+    /**
+     * Kaydedilen barları ilgili buffer'lara ekler. Aynı timestamp'li bar varsa yerinde günceller.
+     * Tüm kayıt yolları buradan geçtiği için eklenen barlar BarsUpdatedEvent olarak da yayınlanır.
+     */
+    public void append(List<PriceEntity> entities) {
+        if (entities == null || entities.isEmpty()) {
+            return;
+        }
+        List<PriceEntity> sorted = new ArrayList<>(entities);
+        sorted.sort(Comparator.comparing(PriceEntity::getTimestamp));
+        for (PriceEntity entity : sorted) {
+            RingBuffer ring = ring(entity.getSymbol(), entity.getIntervalType());
+            synchronized (ring) {
+                if (!ring.primed) {
+                    continue;
+                }
+                try {
+                    ring.put(entity);
+                } catch (ArithmeticException e) {
+                    ring.clear();
+                    logger.warn("Hot tier invalidated for {} interval {}: value out of fixed-point range",
+                            entity.getSymbol(), entity.getIntervalType());
+                } catch (IllegalStateException e) {
+                    // Buffer ortasına düşen bar: sıralamayı korumak için bir sonraki okumada yeniden yükle
+                    ring.clear();
+                    logger.debug("Hot tier invalidated for {} interval {}: {}", entity.getSymbol(), entity.getIntervalType(), e.getMessage());
+                }
+            }
+        }
+        eventPublisher.publishEvent(new BarsUpdatedEvent(sorted));
+    }
+
+    /**
+     * Son N barı repository ile aynı sırada (en yeni önce) döner.
+     * Buffer isteği karşılayamazsa repository'ye düşer.
+     */
+    public List<PriceEntity> findLatest(String symbol, PriceEntity.IntervalType intervalType, int limit) {
+        List<PriceEntity> latest = fromRing(symbol, intervalType, limit, ring -> ring.latest(Math.min(limit, ring.size)));
+        return latest != null ? latest : priceRepository.findLatestNBySymbolAndIntervalType(symbol, intervalType, limit);
+    }
+
+    /**
+     * Son N barı eskiden yeniye, aynı buffer okumasından hem entity hem sabit noktalı seri olarak döner.
+     * Seri buffer dizilerinden kopyalanır, entity'lerden geri dönüştürülmez.
+     */
+    public Window findWindow(String symbol, PriceEntity.IntervalType intervalType, int limit) {
+        Window window = fromRing(symbol, intervalType, limit, ring -> ring.window(Math.min(limit, ring.size)));
+        if (window != null) {
+            return window;
+        }
+        List<PriceEntity> bars = new ArrayList<>(priceRepository.findLatestNBySymbolAndIntervalType(symbol, intervalType, limit));
+        Collections.reverse(bars);
+        return new Window(bars, BarSeries.of(bars, getFixedPoint(symbol)));
+    }
+
+    /**
+     * Buffer isteği karşılayabiliyorsa (gerekirse yeniden yükleyip) okur; karşılayamazsa null
+     */
+    private <T> T fromRing(String symbol, PriceEntity.IntervalType intervalType, int limit, Function<RingBuffer, T> reader) {
+        RingBuffer ring = ring(symbol, intervalType);
+        boolean needsReload;
+        synchronized (ring) {
+            if (ring.primed && (limit <= ring.size || ring.complete)) {
+                return reader.apply(ring);
+            }
+            needsReload = !ring.primed;
+        }
+        logger.debug("Hot tier miss for {} interval: {}, limit: {}", symbol, intervalType, limit);
+        if (needsReload && limit <= capacity) {
+            reload(symbol, intervalType);
+            synchronized (ring) {
+                if (ring.primed && (limit <= ring.size || ring.complete)) {
+                    return reader.apply(ring);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * En son barı döner (yoksa null)
+     */
+    public PriceEntity findLatest(String symbol, PriceEntity.IntervalType intervalType) {
+        List<PriceEntity> latest = findLatest(symbol, intervalType, 1);
+        return latest.isEmpty() ? null : latest.get(0);
+    }
+
+    private RingBuffer ring(String symbol, PriceEntity.IntervalType intervalType) {
+        synchronized (rings) {
+            return rings.computeIfAbsent(symbol, s -> new EnumMap<>(PriceEntity.IntervalType.class))
+                    .computeIfAbsent(intervalType, t -> new RingBuffer(symbol, t, capacity, getFixedPoint(symbol),
+                            getVolumeFixedPoint(symbol)));
+        }
+    }
+
+    /**
+     * Sembolün buffer'daki fiyatlarının sabit nokta ölçeği
+     */
+    public FixedPoint getFixedPoint(String symbol) {
+        return symbolRegistry.getFixedPoint(symbol);
+    }
+
+    /**
+     * Sembolün buffer'daki hacimlerinin sabit nokta ölçeği
+     */
+    public FixedPoint getVolumeFixedPoint(String symbol) {
+        return symbolRegistry.getVolumeFixedPoint(symbol);
+    }
+
+    /**
+     * Aynı buffer okumasından gelen, eskiden yeniye sıralı barlar ve sabit noktalı serileri
+     */
+    public static class Window {
+        public final List<PriceEntity> bars;
+        public final BarSeries series;
+
+        public Window(List<PriceEntity> bars, BarSeries series) {
+            this.bars = bars;
+            this.series = series;
+        }
+    }
+
+    /**
+     * Bar alanlarını kolon bazlı primitive dizilerde tutan ring buffer
+     */
+    static class RingBuffer {
+        private final String symbol;
+        private final PriceEntity.IntervalType intervalType;
+        private final FixedPoint fixedPoint;
+        private final FixedPoint volumeFixedPoint;
+        private final long[] ids;
+        private final long[] timestamps;
+        private final long[] createdAts;
+        private final long[] opens;
+        private final long[] highs;
+        private final long[] lows;
+        private final long[] closes;
+        private final long[] volumes;
+        private int head; // bir sonraki yazılacak slot
+        private int size;
+        boolean primed;
+        boolean complete;
+
+        RingBuffer(String symbol, PriceEntity.IntervalType intervalType, int capacity, FixedPoint fixedPoint,
+                   FixedPoint volumeFixedPoint) {
+            this.symbol = symbol;
+            this.intervalType = intervalType;
+            this.fixedPoint = fixedPoint;
+            this.volumeFixedPoint = volumeFixedPoint;
+            this.ids = new long[capacity];
+            this.timestamps = new long[capacity];
+            this.createdAts = new long[capacity];
+            this.opens = new long[capacity];
+            this.highs = new long[capacity];
+            this.lows = new long[capacity];
+            this.closes = new long[capacity];
+            this.volumes = new long[capacity];
+        }
+
+        /**
+         * Son bar verilen barla aynı zaman ve kapanışa sahip mi (ikisi de yoksa true)
+         */
+        boolean endsWith(PriceEntity latest) {
+            if (size == 0 || latest == null) {
+                return size == 0 && latest == null;
+            }
+            int last = slot(size - 1);
+            return timestamps[last] == latest.getTimestamp().toEpochSecond(ZoneOffset.UTC)
+                    && fixedPoint.toBigDecimal(closes[last]).compareTo(latest.getClosePrice()) == 0;
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+            primed = false;
+            complete = false;
+        }
+
+        /**
+         * Barı sona ekler; son barla aynı zamandaysa günceller. Sıralamayı bozacak barı reddeder.
+         */
+        void put(PriceEntity entity) {
+            long ts = entity.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+            int capacity = timestamps.length;
+            if (size > 0) {
+                int last = slot(size - 1);
+                if (ts == timestamps[last]) {
+                    write(last, entity, ts);
+                    return;
+                }
+                if (ts < timestamps[last]) {
+                    for (int i = size - 2; i >= 0; i--) {
+                        int s = slot(i);
+                        if (timestamps[s] == ts) {
+                            write(s, entity, ts);
+                            return;
+                        }
+                        if (timestamps[s] < ts) {
+                            throw new IllegalStateException("out-of-order bar at " + entity.getTimestamp());
+                        }
+                    }
+                    // Buffer'daki en eski bardan da eski: buffer içeriği değişmez ama tam geçmiş değildir artık
+                    complete = false;
+                    return;
+                }
+            }
+            write(head, entity, ts);
+            head = (head + 1) % capacity;
+            if (size < capacity) {
+                size++;
+            } else {
+                complete = false;
+            }
+        }
+
+        private void write(int slot, PriceEntity entity, long ts) {
+            // Önce dönüşüm: taşma olursa slot yarım yazılmış kalmasın
+            CompactBar bar = CompactBar.of(entity, fixedPoint, volumeFixedPoint);
+            ids[slot] = entity.getId() != null ? entity.getId() : -1L;
+            timestamps[slot] = ts;
+            createdAts[slot] = entity.getCreatedAt() != null ? entity.getCreatedAt().toEpochSecond(ZoneOffset.UTC) : ts;
+            opens[slot] = bar.open;
+            highs[slot] = bar.high;
+            lows[slot] = bar.low;
+            closes[slot] = bar.close;
+            volumes[slot] = bar.volume;
+        }
+
+        /**
+         * i. en eski bar için fiziksel slot
+         */
+        private int slot(int i) {
+            int capacity = timestamps.length;
+            return (head - size + i + capacity) % capacity;
+        }
+
+        /**
+         * Son n barı en yeni önce olacak şekilde yeni entity nesneleri olarak döner
+         */
+        List<PriceEntity> latest(int n) {
+            List<PriceEntity> result = new ArrayList<>(n);
+            for (int i = size - 1; i >= size - n; i--) {
+                int s = slot(i);
+                PriceEntity entity = new PriceEntity(symbol,
+                        LocalDateTime.ofEpochSecond(timestamps[s], 0, ZoneOffset.UTC),
+                        fixedPoint.toBigDecimal(opens[s]), fixedPoint.toBigDecimal(highs[s]),
+                        fixedPoint.toBigDecimal(lows[s]), fixedPoint.toBigDecimal(closes[s]),
+                        volumeFixedPoint.toBigDecimal(volumes[s]), intervalType);
+                entity.setId(ids[s] >= 0 ? ids[s] : null);
+                entity.setCreatedAt(LocalDateTime.ofEpochSecond(createdAts[s], 0, ZoneOffset.UTC));
+                result.add(entity);
+            }
+            return result;
+        }
+
+        /**
+         * Son n bar eskiden yeniye: entity'ler ve kolon dizilerinin kopyasından seri
+         */
+        Window window(int n) {
+            List<PriceEntity> bars = latest(n);
+            Collections.reverse(bars);
+            long[] ts = new long[n];
+            long[] o = new long[n];
+            long[] h = new long[n];
+            long[] l = new long[n];
+            long[] c = new long[n];
+            double[] v = new double[n];
+            for (int i = 0; i < n; i++) {
+                int s = slot(size - n + i);
+                ts[i] = timestamps[s];
+                o[i] = opens[s];
+                h[i] = highs[s];
+                l[i] = lows[s];
+                c[i] = closes[s];
+                v[i] = volumeFixedPoint.toDouble(volumes[s]);
+            }
+            return new Window(bars, BarSeries.of(fixedPoint, ts, o, h, l, c, v));
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package org.example.service;
 
+import org.example.entity.BarSeries;
 import org.example.entity.PriceEntity;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,6 +11,8 @@ import org.slf4j.LoggerFactory;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Service
@@ -37,8 +41,40 @@ public class IndicatorService {
     @Value("${app.indicators.atr.use-ema:false}")
     private boolean useAtrEmaMethod;
     
-    // Indicator cache
-    private final ConcurrentHashMap<String, BigDecimal> indicatorCache = new ConcurrentHashMap<>();
+    // Indicator cache: sembol bazında bölünmüş (semboller paralel hesaplanırken birbirinin anahtarına çarpmaz)
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, BigDecimal>> indicatorCache = new ConcurrentHashMap<>();
+
+    /**
+     * Serinin sembolüne ait cache bölümü
+     */
+    private Map<String, BigDecimal> cacheFor(PriceEntity last) {
+        String symbol = Objects.toString(last.getSymbol(), "");
+        return indicatorCache.computeIfAbsent(symbol, s -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Aynı sembolün farklı interval'larındaki aynı timestamp'li barlar çakışmasın diye interval da anahtara girer.
+     * Devam eden bar aynı timestamp ile yerinde güncellendiğinden son barın high/low/close değerleri de anahtardadır.
+     */
+    private static String cacheKey(String indicator, int period, PriceEntity last) {
+        return indicator + "-" + period + "-" + last.getIntervalType() + "-" + last.getTimestamp()
+                + "-" + last.getHighPrice() + "-" + last.getLowPrice() + "-" + last.getClosePrice();
+    }
+
+    /**
+     * Yerinde güncellenen barın eski değerlerle hesaplanmış girdileri atılır; tick başına yeni anahtar oluştuğundan
+     * aksi halde cache devam eden bar boyunca büyür. Diğer barların girdileri (StochRSI'nin RSI'ları) korunur.
+     */
+    @EventListener
+    public void onBarsUpdated(BarsUpdatedEvent event) {
+        for (PriceEntity bar : event.getBars()) {
+            Map<String, BigDecimal> cache = indicatorCache.get(Objects.toString(bar.getSymbol(), ""));
+            if (cache != null) {
+                String barKey = "-" + bar.getIntervalType() + "-" + bar.getTimestamp() + "-";
+                cache.keySet().removeIf(cacheKey -> cacheKey.contains(barKey));
+            }
+        }
+    }
     
     /**
      * RSI (Relative Strength Index) hesaplar
@@ -110,7 +146,7 @@ public class IndicatorService {
      * Performans için EMA hesaplamaları incremental yapılır.
      */
     public MACDResult calculateMACD(List<PriceEntity> prices) {
-        if (prices == null || prices.size() < macdSlowPeriod) {
+        if (prices == null || prices.size() < macdSlowPeriod || macdFastPeriod <= 0 || macdSlowPeriod <= 0) {
             return new MACDResult(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
         }
         // Fast ve slow EMA'lar için incremental hesaplama
@@ -184,9 +220,11 @@ public class IndicatorService {
                 return BigDecimal.ZERO;
             }
             
-            String cacheKey = "SMA-" + period + "-" + lastPrice.getTimestamp();
-            if (indicatorCache.containsKey(cacheKey)) {
-                return indicatorCache.get(cacheKey);
+            Map<String, BigDecimal> cache = cacheFor(lastPrice);
+            String cacheKey = cacheKey("SMA", period, lastPrice);
+            BigDecimal cached = cache.get(cacheKey);
+            if (cached != null) {
+                return cached;
             }
             
             BigDecimal sum = BigDecimal.ZERO;
@@ -201,7 +239,7 @@ public class IndicatorService {
             }
             
             BigDecimal sma = sum.divide(BigDecimal.valueOf(period), 8, RoundingMode.HALF_UP);
-            indicatorCache.put(cacheKey, sma);
+            cache.put(cacheKey, sma);
             return sma;
             
         } catch (Exception e) {
@@ -217,9 +255,12 @@ public class IndicatorService {
         if (prices == null || prices.size() < period || period <= 0) {
             return BigDecimal.ZERO;
         }
-        String cacheKey = "EMA-" + period + "-" + prices.get(prices.size() - 1).getTimestamp();
-        if (indicatorCache.containsKey(cacheKey)) {
-            return indicatorCache.get(cacheKey);
+        PriceEntity last = prices.get(prices.size() - 1);
+        Map<String, BigDecimal> cache = cacheFor(last);
+        String cacheKey = cacheKey("EMA", period, last);
+        BigDecimal cached = cache.get(cacheKey);
+        if (cached != null) {
+            return cached;
         }
         BigDecimal ema = calculateSMA(prices, period);
         BigDecimal multiplier = BigDecimal.valueOf(2.0 / (period + 1));
@@ -229,7 +270,7 @@ public class IndicatorService {
                     .add(ema.multiply(BigDecimal.ONE.subtract(multiplier)));
         }
         ema = ema.setScale(8, RoundingMode.HALF_UP);
-        indicatorCache.put(cacheKey, ema);
+        cache.put(cacheKey, ema);
         return ema;
     }
     
@@ -263,9 +304,12 @@ public class IndicatorService {
      * ATR (Average True Range) hesaplar (cache destekli)
      */
     public BigDecimal calculateATR(List<PriceEntity> prices, int period) {
-        String cacheKey = (useAtrEmaMethod ? "ATREMA-" : "ATRSMA-") + period + "-" + prices.get(prices.size() - 1).getTimestamp();
-        if (indicatorCache.containsKey(cacheKey)) {
-            return indicatorCache.get(cacheKey);
+        PriceEntity last = prices.get(prices.size() - 1);
+        Map<String, BigDecimal> cache = cacheFor(last);
+        String cacheKey = cacheKey(useAtrEmaMethod ? "ATREMA" : "ATRSMA", period, last);
+        BigDecimal cached = cache.get(cacheKey);
+        if (cached != null) {
+            return cached;
         }
         BigDecimal atr;
         if (useAtrEmaMethod) {
@@ -273,7 +317,7 @@ public class IndicatorService {
         } else {
             atr = calculateATRSMA(prices, period);
         }
-        indicatorCache.put(cacheKey, atr);
+        cache.put(cacheKey, atr);
         return atr;
     }
 
@@ -387,14 +431,14 @@ public class IndicatorService {
         List<BigDecimal> rsiValues = new java.util.ArrayList<>();
         for (int i = period; i < prices.size(); i++) {
             List<PriceEntity> subList = prices.subList(i - period, i + 1);
-            String cacheKey = "RSI-" + period + "-" + subList.get(subList.size() - 1).getTimestamp();
+            PriceEntity last = subList.get(subList.size() - 1);
+            Map<String, BigDecimal> cache = cacheFor(last);
+            String cacheKey = cacheKey("RSI", period, last);
             
-            BigDecimal rsi;
-            if (indicatorCache.containsKey(cacheKey)) {
-                rsi = indicatorCache.get(cacheKey);
-            } else {
+            BigDecimal rsi = cache.get(cacheKey);
+            if (rsi == null) {
                 rsi = calculateRSI(subList);
-                indicatorCache.put(cacheKey, rsi);
+                cache.put(cacheKey, rsi);
             }
             rsiValues.add(rsi);
         }
@@ -649,6 +693,87 @@ public class IndicatorService {
         return superTrend[n-1];
     }
     
+    /**
+     * Grafik overlay'lerini (SMA20/50/200, VWAP, Bollinger 20) tüm seri için tek geçişte hesaplar.
+     * Toplamlar sabit noktalı long üzerinde tutulur; BigDecimal sadece çıktı değerleri için üretilir.
+     * Yetersiz veri olan barlar için BigDecimal.ZERO döner (getLatestPriceData ile aynı kural).
+     */
+    public OverlaySeries calculateOverlays(BarSeries series) {
+        int n = series.size();
+        OverlaySeries result = new OverlaySeries(n);
+        int scale = series.getFixedPoint().getScale();
+        // Kapanışların prefix toplamı: her SMA penceresi O(1)
+        long[] prefix = new long[n + 1];
+        for (int i = 0; i < n; i++) {
+            prefix[i + 1] = Math.addExact(prefix[i], series.close(i));
+        }
+        double factor = series.getFixedPoint().getFactor();
+        double cumulativePV = 0;
+        double cumulativeVolume = 0;
+        for (int i = 0; i < n; i++) {
+            result.sma20[i] = windowAverage(prefix, i, 20, scale);
+            result.sma50[i] = windowAverage(prefix, i, 50, scale);
+            result.sma200[i] = windowAverage(prefix, i, 200, scale);
+
+            // VWAP: ilk bardan itibaren kümülatif
+            double typicalPrice = (series.high(i) + series.low(i) + series.close(i)) / 3.0 / factor;
+            cumulativePV += typicalPrice * series.volume(i);
+            cumulativeVolume += series.volume(i);
+            if (i >= 1 && cumulativeVolume != 0) {
+                result.vwap[i] = BigDecimal.valueOf(cumulativePV / cumulativeVolume).setScale(8, RoundingMode.HALF_UP);
+            } else {
+                result.vwap[i] = BigDecimal.ZERO;
+            }
+
+            // Bollinger Bands (SMA ± 2 * stddev), son 20 bar
+            if (i >= 19) {
+                BigDecimal sma = result.sma20[i];
+                double mean = sma.doubleValue();
+                double sumSq = 0;
+                for (int j = i - 19; j <= i; j++) {
+                    double diff = series.close(j) / factor - mean;
+                    sumSq += diff * diff;
+                }
+                BigDecimal width = BigDecimal.valueOf(Math.sqrt(sumSq / 20)).multiply(BigDecimal.valueOf(2.0));
+                result.bollingerUpper[i] = sma.add(width);
+                result.bollingerLower[i] = sma.subtract(width);
+            } else {
+                result.bollingerUpper[i] = BigDecimal.ZERO;
+                result.bollingerLower[i] = BigDecimal.ZERO;
+            }
+        }
+        return result;
+    }
+
+    private BigDecimal windowAverage(long[] prefix, int index, int period, int scale) {
+        if (index < period - 1) {
+            return BigDecimal.ZERO;
+        }
+        long sum = prefix[index + 1] - prefix[index + 1 - period];
+        return BigDecimal.valueOf(sum, scale).divide(BigDecimal.valueOf(period), 8, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Bar başına overlay değerlerini tutan sınıf
+     */
+    public static class OverlaySeries {
+        public final BigDecimal[] sma20;
+        public final BigDecimal[] sma50;
+        public final BigDecimal[] sma200;
+        public final BigDecimal[] vwap;
+        public final BigDecimal[] bollingerUpper;
+        public final BigDecimal[] bollingerLower;
+
+        public OverlaySeries(int size) {
+            this.sma20 = new BigDecimal[size];
+            this.sma50 = new BigDecimal[size];
+            this.sma200 = new BigDecimal[size];
+            this.vwap = new BigDecimal[size];
+            this.bollingerUpper = new BigDecimal[size];
+            this.bollingerLower = new BigDecimal[size];
+        }
+    }
+
     /**
      * RSI sinyali üretir (gelişmiş):
      * - 30 altı: BUY
@@ -0,0 +1,278 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.example.entity.PriceEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Takip edilen tüm sembollerin saatlik barlarını exchange'in combined kline WebSocket akışından alır
+ * (app.ingest.mode=stream). Devam eden bar her mesajda sadece bellekte (forming bar) güncellenir; hot tier'a ve
+ * dolayısıyla BarsUpdatedEvent dinleyicilerine en fazla forming-refresh aralığında bir, sembolün kayıt shard'ında
+ * yazılır. Kapanan bar shard'da kaydedilip rollup tetiklenir. Her (yeniden) bağlantıda aradaki boşluk REST
+ * üzerinden doldurulur.
+ */
+@Service
+public class KlineStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(KlineStreamService.class);
+
+    private final FetchService fetchService;
+    private final RollupService rollupService;
+    private final HotTierCache hotTierCache;
+    private final SymbolRegistry symbolRegistry;
+    private final PersistShards persistShards;
+    private final ObjectMapper objectMapper;
+    private final WebSocketClient webSocketClient;
+
+    @Value("${app.ingest.mode:poll}")
+    private String mode;
+
+    // {streams} yerine sembollerin kline akışları (btcusdt@kline_1h/ethusdt@kline_1h/...) yazılır
+    @Value("${app.ingest.stream-url:wss://stream.binance.com:9443/stream?streams={streams}}")
+    private String streamUrl;
+
+    @Value("${app.ingest.reconnect-delay:5000}")
+    private long reconnectDelay;
+
+    @Value("${app.ingest.max-reconnect-delay:60000}")
+    private long maxReconnectDelay;
+
+    // Devam eden barın hot tier'a yazılma aralığı (0: sadece kapanışta)
+    @Value("${app.ingest.forming-refresh:60000}")
+    private long formingRefresh;
+
+    @Value("${app.rollup.enabled:true}")
+    private boolean rollupEnabled;
+
+    // Shard'a alınamayan kapanmış bar için REST yenilemesinin deneme sayısı
+    @Value("${app.ingest.close-refresh-retries:5}")
+    private int closeRefreshRetries;
+
+    private volatile Disposable connection;
+    // Oturum açıkken true; kopukken FetchScheduler REST ile poll eder
+    private volatile boolean connected;
+    // Sembol -> akıştan gelen son (kapanmamış) bar
+    private final Map<String, PriceEntity> formingBars = new ConcurrentHashMap<>();
+    // Sembol -> forming bar'ın hot tier'a son yazılma zamanı (ms)
+    private final Map<String, Long> formingPublished = new ConcurrentHashMap<>();
+
+    public KlineStreamService(FetchService fetchService, RollupService rollupService, HotTierCache hotTierCache,
+                              SymbolRegistry symbolRegistry, PersistShards persistShards) {
+        this.fetchService = fetchService;
+        this.rollupService = rollupService;
+        this.hotTierCache = hotTierCache;
+        this.symbolRegistry = symbolRegistry;
+        this.persistShards = persistShards;
+        this.objectMapper = new ObjectMapper();
+        this.webSocketClient = new ReactorNettyWebSocketClient();
+    }
+
+    /**
+     * Stream modundaysa uygulama açılışında akışa abone olur
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!isStreamMode() || connection != null) {
+            return;
+        }
+        logger.info("Starting kline stream ingest for {} symbols", symbolRegistry.getSymbols().size());
+        Duration delay = Duration.ofMillis(reconnectDelay);
+        connection = Mono.defer(this::connect)
+                .doOnError(e -> logger.warn("Kline stream disconnected: {}", e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, delay).maxBackoff(Duration.ofMillis(maxReconnectDelay)))
+                // Sunucu bağlantıyı düzgün kapatırsa da yeniden bağlan
+                .repeatWhen(completed -> completed.delayElements(delay))
+                .subscribe();
+    }
+
+    /**
+     * Akışı kapatır
+     */
+    @PreDestroy
+    public void stop() {
+        Disposable current = connection;
+        if (current != null) {
+            current.dispose();
+            connection = null;
+        }
+    }
+
+    /**
+     * Ingest modu stream mi (değilse FetchService periyodik olarak poll eder)
+     */
+    public boolean isStreamMode() {
+        return "stream".equalsIgnoreCase(mode);
+    }
+
+    /**
+     * Akış oturumu şu an açık mı (kopukken saatlik barlar REST ile poll edilir)
+     */
+    public boolean isConnected() {
+        return isStreamMode() && connected;
+    }
+
+    /**
+     * Sembolün akıştan gelen, henüz kapanmamış son barı (yoksa null)
+     */
+    public PriceEntity getFormingBar(String symbol) {
+        return formingBars.get(symbol);
+    }
+
+    private Mono<Void> connect() {
+        return webSocketClient.execute(URI.create(resolveStreamUrl()), this::handleSession)
+                .doFinally(signal -> connected = false);
+    }
+
+    String resolveStreamUrl() {
+        StringBuilder streams = new StringBuilder();
+        for (String symbol : symbolRegistry.getSymbols()) {
+            if (streams.length() > 0) {
+                streams.append('/');
+            }
+            streams.append(symbol.toLowerCase(Locale.ROOT)).append("@kline_1h");
+        }
+        return streamUrl.replace("{streams}", streams);
+    }
+
+    private Mono<Void> handleSession(WebSocketSession session) {
+        logger.info("Kline stream connected for {} symbols", symbolRegistry.getSymbols().size());
+        connected = true;
+        // Bağlantı kurulduktan sonra boşluk doldurulur; bu sırada kapanan barlar akıştan da gelir
+        Mono<Void> backfill = Mono.fromRunnable(this::backfill)
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+        // Mesajlar event loop'ta ayrıştırılır; bloklayıcı kayıtlar sembolün shard'ına, mesaj sırasıyla gönderilir
+        Mono<Void> receive = session.receive()
+                .map(WebSocketMessage::getPayloadAsText)
+                .doOnNext(this::handleMessage)
+                .then();
+        return Mono.when(backfill, receive);
+    }
+
+    /**
+     * Bağlantı kopukken kaçırılan barları REST üzerinden tamamlar
+     */
+    private void backfill() {
+        try {
+            fetchService.fetchAllIntervalData();
+        } catch (Exception e) {
+            logger.warn("Kline stream gap backfill failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Tek bir kline mesajını işler. Event loop'ta sadece ayrıştırma yapılır: devam eden bar bellekte tutulur
+     * (aralıkla hot tier'a shard'da yazılır), kapanan bar sembolün shard'ında kaydedilir.
+     */
+    void handleMessage(String payload) {
+        handleMessage(payload, System.currentTimeMillis());
+    }
+
+    void handleMessage(String payload, long now) {
+        try {
+            JsonNode root = objectMapper.readTree(payload);
+            // Combined stream formatı ({"stream":..., "data":{...}}) da desteklenir
+            if (root.has("data")) {
+                root = root.get("data");
+            }
+            JsonNode k = root.get("k");
+            if (k == null) {
+                return;
+            }
+            String symbol = k.path("s").asText(root.path("s").asText(symbolRegistry.getDefaultSymbol()))
+                    .toUpperCase(Locale.ROOT);
+            PriceEntity bar = new PriceEntity(symbol,
+                    LocalDateTime.ofEpochSecond(k.get("t").asLong() / 1000, 0, ZoneOffset.UTC),
+                    new BigDecimal(k.get("o").asText()),
+                    new BigDecimal(k.get("h").asText()),
+                    new BigDecimal(k.get("l").asText()),
+                    new BigDecimal(k.get("c").asText()),
+                    new BigDecimal(k.get("v").asText()),
+                    PriceEntity.IntervalType.ONE_HOUR);
+            if (k.path("x").asBoolean(false)) {
+                formingBars.remove(symbol);
+                formingPublished.remove(symbol);
+                try {
+                    persistShards.forSymbol(symbol).schedule(() -> storeClosedBar(bar));
+                } catch (RejectedExecutionException e) {
+                    refreshAfterRejectedClose(bar);
+                }
+                return;
+            }
+            formingBars.put(symbol, bar);
+            Long published = formingPublished.get(symbol);
+            if (formingRefresh > 0 && (published == null || now - published >= formingRefresh)) {
+                formingPublished.put(symbol, now);
+                try {
+                    persistShards.forSymbol(symbol).schedule(() -> publishFormingBar(symbol));
+                } catch (RejectedExecutionException e) {
+                    // Sonraki tick yeniden dener; forming bar zaten bellekte
+                    formingPublished.remove(symbol);
+                    logger.debug("Forming {} bar not published, persist shard is full", symbol);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Kline stream message skipped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Shard kuyruğu dolu olduğu için kaydedilemeyen kapanmış bar kaybolmasın: sembolün saatlik barları REST'ten
+     * (shard boşalana kadar backoff ile) yeniden çekilir
+     */
+    private void refreshAfterRejectedClose(PriceEntity bar) {
+        logger.warn("Persist shard full, closed {} bar {} will be refreshed over REST", bar.getSymbol(), bar.getTimestamp());
+        fetchService.fetchInterval(bar.getSymbol(), PriceEntity.IntervalType.ONE_HOUR)
+                .retryWhen(Retry.backoff(closeRefreshRetries, Duration.ofMillis(reconnectDelay)))
+                .subscribe(null, e -> logger.warn("REST refresh of closed {} bar {} failed: {}",
+                        bar.getSymbol(), bar.getTimestamp(), e.getMessage()));
+    }
+
+    /**
+     * Shard'da çalışır: o ana kadarki en güncel forming bar hot tier'a yazılır (bar bu arada kapandıysa yazılmaz)
+     */
+    private void publishFormingBar(String symbol) {
+        PriceEntity bar = formingBars.get(symbol);
+        if (bar != null) {
+            hotTierCache.append(List.of(bar));
+        }
+    }
+
+    private void storeClosedBar(PriceEntity bar) {
+        try {
+            List<PriceEntity> saved = rollupService.upsert(List.of(bar), PriceEntity.IntervalType.ONE_HOUR);
+            logger.info("Closed {} 1h bar stored from stream: {}", bar.getSymbol(), bar.getTimestamp());
+            if (rollupEnabled && !saved.isEmpty()) {
+                rollupService.rollup(saved);
+            }
+        } catch (Exception e) {
+            logger.warn("Closed {} bar could not be stored: {}", bar.getSymbol(), e.getMessage());
+        }
+    }
+}
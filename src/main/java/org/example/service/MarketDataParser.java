@@ -0,0 +1,258 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import org.example.entity.CompactBar;
+import org.example.entity.FixedPoint;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exchange yanıtlarını Netty buffer'larından, Jackson'ın non-blocking token parser'ı ile akış halinde ayrıştırır.
+ * Yanıt String'e ya da JsonNode ağacına çevrilmez; fiyat ve hacimler karakter tamponundan doğrudan sabit noktaya
+ * (hacimler sembolün ayrı hacim ölçeğine) dönüştürülür.
+ */
+public final class MarketDataParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private MarketDataParser() {
+    }
+
+    /**
+     * Binance kline dizisi ([[openTime, "o", "h", "l", "c", "v", ...], ...]). Barlar geldikçe yayınlanır.
+     */
+    public static Flux<CompactBar> parseKlines(Flux<DataBuffer> body, FixedPoint fixedPoint, FixedPoint volumeFixedPoint) {
+        return Flux.defer(() -> tokenize(body, new KlineHandler(fixedPoint, volumeFixedPoint)));
+    }
+
+    /**
+     * CoinGecko market_chart ({"prices": [[ts, p], ...], "total_volumes": [[ts, v], ...]}).
+     * Fiyat ve hacimler primitive dizilerde toplanıp sıra ile eşleştirilir; OHLC fiyata eşittir.
+     */
+    public static Mono<List<CompactBar>> parseMarketChart(Flux<DataBuffer> body, FixedPoint fixedPoint,
+                                                          FixedPoint volumeFixedPoint) {
+        return Mono.defer(() -> {
+            MarketChartHandler handler = new MarketChartHandler(fixedPoint, volumeFixedPoint);
+            return tokenize(body, handler).then(Mono.fromCallable(handler::bars));
+        });
+    }
+
+    private static Flux<CompactBar> tokenize(Flux<DataBuffer> body, TokenHandler handler) {
+        JsonParser parser;
+        try {
+            parser = JSON_FACTORY.createNonBlockingByteBufferParser();
+        } catch (IOException e) {
+            return Flux.error(new DataFetchException("JSON parser could not be created", e));
+        }
+        ByteBufferFeeder feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        return body
+                .concatMapIterable(buffer -> {
+                    List<CompactBar> bars = new ArrayList<>();
+                    try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                        while (iterator.hasNext()) {
+                            feeder.feedInput(iterator.next());
+                            // Buffer serbest bırakılmadan önce tamamı tüketilir (parser kısmi token'ı kendi tamponuna alır)
+                            drain(parser, handler, bars);
+                        }
+                    } catch (IOException e) {
+                        throw new DataFetchException("JSON processing failed", e);
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                    return bars;
+                })
+                .concatWith(Flux.defer(() -> {
+                    List<CompactBar> bars = new ArrayList<>();
+                    feeder.endOfInput();
+                    try {
+                        drain(parser, handler, bars);
+                    } catch (IOException e) {
+                        return Flux.error(new DataFetchException("JSON processing failed", e));
+                    }
+                    return Flux.fromIterable(bars);
+                }))
+                .doFinally(signal -> {
+                    try {
+                        parser.close();
+                    } catch (IOException ignored) {
+                        // kapanış hatası sonucu etkilemez
+                    }
+                });
+    }
+
+    private static void drain(JsonParser parser, TokenHandler handler, List<CompactBar> out) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            CompactBar bar = handler.onToken(token, parser);
+            if (bar != null) {
+                out.add(bar);
+            }
+        }
+    }
+
+    private interface TokenHandler {
+        /**
+         * Token'ı işler; bir bar tamamlandıysa onu döner
+         */
+        CompactBar onToken(JsonToken token, JsonParser parser) throws IOException;
+    }
+
+    private static long fixed(JsonParser parser, FixedPoint fixedPoint) throws IOException {
+        return fixedPoint.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    /**
+     * Hacmi hacim ölçeğinde okur; long aralığını aşarsa sessizce yuvarlamak yerine çekmeyi açık bir hatayla durdurur
+     */
+    private static long volume(JsonParser parser, FixedPoint volumeFixedPoint) throws IOException {
+        try {
+            return fixed(parser, volumeFixedPoint);
+        } catch (ArithmeticException e) {
+            throw new DataFetchException("Volume " + parser.getText() + " exceeds fixed-point range at scale "
+                    + volumeFixedPoint.getScale() + "; lower app.fixed-point.volume-scales for this symbol", e);
+        }
+    }
+
+    private static final class KlineHandler implements TokenHandler {
+        private final FixedPoint fixedPoint;
+        private final FixedPoint volumeFixedPoint;
+        // openTime ve OHLC
+        private final long[] values = new long[5];
+        private long volume;
+        private int depth;
+        private int index;
+
+        KlineHandler(FixedPoint fixedPoint, FixedPoint volumeFixedPoint) {
+            this.fixedPoint = fixedPoint;
+            this.volumeFixedPoint = volumeFixedPoint;
+        }
+
+        @Override
+        public CompactBar onToken(JsonToken token, JsonParser parser) throws IOException {
+            switch (token) {
+                case START_ARRAY:
+                    depth++;
+                    index = 0;
+                    return null;
+                case END_ARRAY:
+                    depth--;
+                    if (depth == 1 && index > values.length) {
+                        return new CompactBar(values[0] / 1000, values[1], values[2], values[3], values[4], volume);
+                    }
+                    return null;
+                default:
+                    if (depth == 2 && token.isScalarValue()) {
+                        if (index == 0) {
+                            values[0] = parser.getLongValue();
+                        } else if (index < values.length) {
+                            values[index] = fixed(parser, fixedPoint);
+                        } else if (index == values.length) {
+                            volume = volume(parser, volumeFixedPoint);
+                        }
+                        index++;
+                    }
+                    return null;
+            }
+        }
+    }
+
+    private static final class MarketChartHandler implements TokenHandler {
+        private final FixedPoint fixedPoint;
+        private final FixedPoint volumeFixedPoint;
+        private final PointSeries prices = new PointSeries();
+        private final PointSeries volumes = new PointSeries();
+        private PointSeries current;
+        private int depth;
+        private int index;
+        private long pointTime;
+        private long pointValue;
+
+        MarketChartHandler(FixedPoint fixedPoint, FixedPoint volumeFixedPoint) {
+            this.fixedPoint = fixedPoint;
+            this.volumeFixedPoint = volumeFixedPoint;
+        }
+
+        @Override
+        public CompactBar onToken(JsonToken token, JsonParser parser) throws IOException {
+            switch (token) {
+                case START_OBJECT:
+                case START_ARRAY:
+                    depth++;
+                    index = 0;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    if (depth == 3 && current != null && index >= 2) {
+                        current.add(pointTime, pointValue);
+                    }
+                    depth--;
+                    break;
+                case FIELD_NAME:
+                    if (depth == 1) {
+                        String name = parser.currentName();
+                        current = "prices".equals(name) ? prices : "total_volumes".equals(name) ? volumes : null;
+                    }
+                    break;
+                default:
+                    if (depth == 3 && current != null && token.isNumeric()) {
+                        if (index == 0) {
+                            pointTime = parser.getLongValue();
+                        } else if (index == 1) {
+                            pointValue = current == prices ? fixed(parser, fixedPoint) : volume(parser, volumeFixedPoint);
+                        }
+                        index++;
+                    }
+                    break;
+            }
+            return null;
+        }
+
+        /**
+         * Fiyat noktalarını hacimlerle eşleştirir. İki seri de zamana göre sıralı olduğundan tek geçişte,
+         * aynı sıradaki noktalar karşılaştırılarak yapılır; eşleşmeyen fiyatın hacmi 0 olur.
+         */
+        List<CompactBar> bars() {
+            List<CompactBar> bars = new ArrayList<>(prices.size);
+            int v = 0;
+            for (int i = 0; i < prices.size; i++) {
+                long ts = prices.times[i];
+                while (v < volumes.size && volumes.times[v] < ts) {
+                    v++;
+                }
+                long volume = v < volumes.size && volumes.times[v] == ts ? volumes.values[v] : 0L;
+                long price = prices.values[i];
+                bars.add(new CompactBar(ts / 1000, price, price, price, price, volume));
+            }
+            return bars;
+        }
+    }
+
+    /**
+     * Büyüyebilen (zaman, sabit noktalı değer) dizisi
+     */
+    private static final class PointSeries {
+        long[] times = new long[256];
+        long[] values = new long[256];
+        int size;
+
+        void add(long time, long value) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            times[size] = time;
+            values[size] = value;
+            size++;
+        }
+    }
+}
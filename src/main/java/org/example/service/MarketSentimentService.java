@@ -3,6 +3,7 @@ package org.example.service;
 import org.example.dto.FearGreedDto;
 import org.example.dto.SentimentDto;
 import org.example.dto.OnChainDto;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.slf4j.Logger;
@@ -21,6 +22,34 @@ public class MarketSentimentService {
     private static final Logger logger = LoggerFactory.getLogger(MarketSentimentService.class);
     private final RestTemplate restTemplate = new RestTemplate();
     
+    // Sinyallere eklenen sentiment bu süre boyunca aynı snapshot'tan gelir (ms)
+    @Value("${app.sentiment.refresh:300000}")
+    private long refreshInterval;
+    
+    private volatile Snapshot snapshot;
+    
+    /**
+     * Sinyallerde kullanılan sentiment snapshot'ı; refresh süresi dolunca yenilenir.
+     * Snapshot'ın version'ı sinyal ETag'ine girer: önbellekteki yanıt sentiment'i eskimiş halde sunmaz.
+     */
+    public Snapshot getSnapshot() {
+        long now = System.currentTimeMillis();
+        Snapshot current = snapshot;
+        if (current != null && now - current.version < refreshInterval) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || now - current.version >= refreshInterval) {
+                // Aynı milisaniyede yenilense bile version artar
+                long version = current != null ? Math.max(now, current.version + 1) : now;
+                current = new Snapshot(getFearGreedIndex(), getSocialMediaSentiment(), getOnChainMetrics(), version);
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+    
     /**
      * Fear & Greed Index'i CoinGecko API'den çeker
      */
@@ -221,4 +250,21 @@ public class MarketSentimentService {
                             networkHashRate, difficulty, whaleMovement, flowDirection,
                             LocalDateTime.now(), onChainExplanation);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Aynı anda alınmış sentiment verileri; version alındığı zamandır (epoch ms)
+     */
+    public static class Snapshot {
+        public final FearGreedDto fearGreed;
+        public final SentimentDto sentiment;
+        public final OnChainDto onChain;
+        public final long version;
+        
+        public Snapshot(FearGreedDto fearGreed, SentimentDto sentiment, OnChainDto onChain, long version) {
+            this.fearGreed = fearGreed;
+            this.sentiment = sentiment;
+            this.onChain = onChain;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.example.dto.PriceDto;
+import org.example.dto.SignalDto;
+import org.example.entity.PriceEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Yeni/güncellenen barları ve değişen sinyalleri SSE abonelerine tek bir paylaşılan yayıncıdan dağıtır.
+ * Olay verisi bir kez JSON'a çevrilir; sinyal her bar olayında istemci başına değil, (sembol, interval)
+ * başına en fazla signal-throttle aralığında bir kez, sadece o anahtarın abonesi varsa yeniden hesaplanır ve
+ * sadece değiştiyse yayınlanır (sentiment alanları değişim kontrolüne girmez).
+ * Yavaş istemci olay biriktirmez: kendisine sadece en güncel olay bekletilir.
+ */
+@Service
+public class MarketStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarketStreamService.class);
+
+    public static final String BAR_EVENT = "bar";
+    public static final String SIGNAL_EVENT = "signal";
+    public static final String FETCH_EVENT = "fetch";
+
+    private final PriceService priceService;
+    private final ObjectMapper objectMapper;
+    // Tüm aboneler aynı sink'i dinler; talebi olmayan aboneye gönderim diğerlerini bekletmez
+    private final Sinks.Many<StreamEvent> events = Sinks.many().multicast().directBestEffort();
+    private final Sinks.Many<StreamKey> signalRequests = Sinks.many().unicast().onBackpressureBuffer();
+    // Yeni bağlanan istemciye gönderilen son bar ve sinyal
+    private final Map<StreamKey, StreamEvent> lastBars = new ConcurrentHashMap<>();
+    private final Map<StreamKey, StreamEvent> lastSignals = new ConcurrentHashMap<>();
+    // Son sinyalin deterministik kısmı: sinyal, indikatörler, giriş/SL/TP
+    private final Map<StreamKey, JsonNode> lastSignalProjections = new ConcurrentHashMap<>();
+    // (sembol, interval) başına açık akış sayısı; abonesi olmayan anahtarın sinyali hesaplanmaz
+    private final Map<StreamKey, AtomicInteger> subscribers = new ConcurrentHashMap<>();
+
+    @Value("${app.stream.heartbeat:25000}")
+    private long heartbeat;
+
+    private final Disposable signalPipeline;
+
+    public MarketStreamService(PriceService priceService, ObjectMapper objectMapper,
+                               @Value("${app.stream.signal-throttle:5000}") long signalThrottle) {
+        this.priceService = priceService;
+        this.objectMapper = objectMapper;
+        this.signalPipeline = signalRequests.asFlux()
+                .groupBy(key -> key)
+                .flatMap(group -> group.sample(Duration.ofMillis(signalThrottle))
+                        .concatMap(key -> Mono.fromRunnable(() -> recomputeSignal(key))
+                                .subscribeOn(Schedulers.boundedElastic())), Integer.MAX_VALUE)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        signalPipeline.dispose();
+        events.tryEmitComplete();
+    }
+
+    /**
+     * Kaydedilen barları bar olayı olarak yayınlar ve abone varsa ilgili sinyalin yeniden hesaplanmasını ister
+     */
+    @EventListener
+    public void onBarsUpdated(BarsUpdatedEvent event) {
+        List<PriceEntity> bars = event.getBars();
+        Map<StreamKey, PriceEntity> latest = new LinkedHashMap<>();
+        for (PriceEntity bar : bars) {
+            // Barlar zaman sırasında gelir: her (sembol, interval) için sonuncusu yeterli
+            latest.put(new StreamKey(bar.getSymbol(), bar.getIntervalType()), bar);
+        }
+        for (Map.Entry<StreamKey, PriceEntity> entry : latest.entrySet()) {
+            StreamEvent barEvent = toEvent(entry.getKey(), BAR_EVENT, new PriceDto(entry.getValue()));
+            if (barEvent == null) {
+                continue;
+            }
+            lastBars.put(entry.getKey(), barEvent);
+            events.tryEmitNext(barEvent);
+            if (hasSubscribers(entry.getKey())) {
+                signalRequests.emitNext(entry.getKey(), Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+            }
+        }
+    }
+
+    /**
+     * Biten elle çekme işini, işin kapsadığı her sembolün akışına "fetch" olayı olarak gönderir
+     */
+    @EventListener
+    public void onFetchJobFinished(FetchJobFinishedEvent event) {
+        FetchJobService.FetchJob job = event.getJob();
+        for (String symbol : job.getSymbols()) {
+            StreamEvent fetchEvent = toEvent(new StreamKey(symbol, job.getIntervalType()), FETCH_EVENT, job);
+            if (fetchEvent != null) {
+                events.tryEmitNext(fetchEvent);
+            }
+        }
+    }
+
+    /**
+     * Sembol ve interval için olay akışı: önce son bilinen bar ve sinyal, sonra canlı olaylar ve keepalive yorumları
+     */
+    public Flux<ServerSentEvent<String>> stream(String symbol, PriceEntity.IntervalType intervalType) {
+        StreamKey key = new StreamKey(symbol, intervalType);
+        List<StreamEvent> snapshot = new ArrayList<>(2);
+        if (lastBars.containsKey(key)) {
+            snapshot.add(lastBars.get(key));
+        }
+        boolean hasSignal = lastSignals.containsKey(key);
+        if (hasSignal) {
+            snapshot.add(lastSignals.get(key));
+        }
+        Flux<ServerSentEvent<String>> live = events.asFlux()
+                .filter(event -> event.key.equals(key))
+                .onBackpressureLatest()
+                .map(StreamEvent::toSse);
+        // Talep yokken biriken keepalive'lar taşma hatası yerine düşürülür
+        Flux<ServerSentEvent<String>> keepAlive = Flux.interval(Duration.ofMillis(heartbeat))
+                .onBackpressureDrop()
+                .map(tick -> ServerSentEvent.<String>builder().comment("keepalive").build());
+        return Flux.concat(Flux.fromIterable(snapshot).map(StreamEvent::toSse), Flux.merge(live, keepAlive))
+                .doOnSubscribe(subscription -> {
+                    subscribers.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+                    if (!hasSignal) {
+                        // Bağlanan ilk istemci sinyali beklemesin
+                        signalRequests.emitNext(key, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+                    }
+                })
+                .doFinally(signal -> subscribers.get(key).decrementAndGet());
+    }
+
+    public int getSubscriberCount() {
+        return events.currentSubscriberCount();
+    }
+
+    private boolean hasSubscribers(StreamKey key) {
+        AtomicInteger count = subscribers.get(key);
+        return count != null && count.get() > 0;
+    }
+
+    private void recomputeSignal(StreamKey key) {
+        if (!hasSubscribers(key)) {
+            // İstek kuyruktayken son abone ayrıldı
+            return;
+        }
+        try {
+            SignalDto signal = priceService.generateSignal(key.symbol, key.intervalType);
+            StreamEvent signalEvent = toEvent(key, SIGNAL_EVENT, signal);
+            if (signalEvent == null) {
+                return;
+            }
+            lastSignals.put(key, signalEvent);
+            // Sentiment her hesaplamada farklı gelebilir; sadece onun değişmesi yeni olay üretmez
+            ObjectNode projection = objectMapper.valueToTree(signal);
+            projection.remove(Arrays.asList(PriceService.SENTIMENT_FIELDS));
+            JsonNode previous = lastSignalProjections.put(key, projection);
+            if (previous == null || !previous.equals(projection)) {
+                events.tryEmitNext(signalEvent);
+            }
+        } catch (Exception e) {
+            logger.warn("Stream signal for {} {} could not be computed: {}", key.symbol, key.intervalType, e.getMessage());
+        }
+    }
+
+    private StreamEvent toEvent(StreamKey key, String name, Object payload) {
+        try {
+            return new StreamEvent(key, name, objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            logger.warn("Stream event {} could not be serialized: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    private static final class StreamKey {
+        final String symbol;
+        final PriceEntity.IntervalType intervalType;
+
+        StreamKey(String symbol, PriceEntity.IntervalType intervalType) {
+            this.symbol = symbol;
+            this.intervalType = intervalType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StreamKey other && other.symbol.equals(symbol) && other.intervalType == intervalType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(symbol, intervalType);
+        }
+    }
+
+    /**
+     * Bir kez serileştirilmiş olay; tüm abonelere aynı metin gönderilir
+     */
+    private static class StreamEvent {
+        final StreamKey key;
+        final String name;
+        final String data;
+
+        StreamEvent(StreamKey key, String name, String data) {
+            this.key = key;
+            this.name = name;
+            this.data = data;
+        }
+
+        ServerSentEvent<String> toSse() {
+            return ServerSentEvent.<String>builder().event(name).data(data).build();
+        }
+    }
+}
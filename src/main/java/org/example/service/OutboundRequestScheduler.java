@@ -0,0 +1,326 @@
+package org.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Dış API'lere giden tüm istekler için merkezi sıra. Her sağlayıcının ağırlık bütçesi bir token bucket ile
+ * tutulur ve yanıt başlıklarıyla (X-MBX-USED-WEIGHT-1M, Retry-After) düzeltilir. Bütçe yetmediğinde istekler
+ * önceliğe göre bekler; aynı anahtarlı, hâlâ süren istekler tek istekte birleştirilir. Sıradaki birleşik isteğe
+ * daha öncelikli bir çağıran katılırsa istek o önceliğe yükseltilir.
+ */
+@Service
+public class OutboundRequestScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundRequestScheduler.class);
+
+    static final String BINANCE_USED_WEIGHT_HEADER = "X-MBX-USED-WEIGHT-1M";
+
+    // Binance istek ağırlıkları (/api/v3/klines ve tek sembollü /api/v3/ticker/price); CoinGecko her istek için 1
+    static final int BINANCE_KLINES_WEIGHT = 2;
+    static final int BINANCE_TICKER_WEIGHT = 2;
+
+    // Retry-After gelmeden 429/418 alınırsa sağlayıcı bu kadar bekletilir
+    private static final Duration DEFAULT_BACKOFF = Duration.ofSeconds(60);
+
+    public enum Provider {
+        BINANCE,
+        COINGECKO
+    }
+
+    /**
+     * Küçük ordinal önce çalışır
+     */
+    public enum Priority {
+        LIVE,
+        BACKFILL,
+        DIAGNOSTIC
+    }
+
+    private final Map<Provider, Lane> lanes = new EnumMap<>(Provider.class);
+    private final Map<String, Coalesced<?>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public OutboundRequestScheduler(@Value("${app.outbound.binance.weight-per-minute:1200}") int binanceWeightPerMinute,
+                                    @Value("${app.outbound.coingecko.requests-per-minute:30}") int coingeckoRequestsPerMinute) {
+        lanes.put(Provider.BINANCE, new Lane(Provider.BINANCE, binanceWeightPerMinute));
+        lanes.put(Provider.COINGECKO, new Lane(Provider.COINGECKO, coingeckoRequestsPerMinute));
+    }
+
+    /**
+     * İsteği sağlayıcının bütçesine göre sıraya koyar. key null değilse aynı anahtarla süren istek varsa
+     * yeni istek atılmaz, onun sonucu paylaşılır; henüz başlamadıysa öncelikler arasından en yükseğiyle bekler.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(Provider provider, Priority priority, String key, int weight, Supplier<Mono<T>> request) {
+        if (key == null) {
+            return enqueue(provider, priority, weight, request, null);
+        }
+        String inFlightKey = provider + " " + key;
+        Coalesced<T> entry = new Coalesced<>(priority);
+        entry.shared = Mono.defer(() -> enqueue(provider, priority, weight, request, entry))
+                // Sonuç dinleyicilere ulaşmadan anahtar serbest bırakılır
+                .doOnTerminate(() -> inFlight.remove(inFlightKey, entry))
+                .cache();
+        Coalesced<?> existing = inFlight.putIfAbsent(inFlightKey, entry);
+        if (existing != null) {
+            logger.debug("Coalescing request {} {}", provider, key);
+            // LIVE çağıran, sırada bekleyen BACKFILL/DIAGNOSTIC isteğin arkasında kalmasın
+            lanes.get(provider).promote(existing, priority);
+            return (Mono<T>) existing.shared;
+        }
+        return entry.shared;
+    }
+
+    private <T> Mono<T> enqueue(Provider provider, Priority priority, int weight, Supplier<Mono<T>> request,
+                                Coalesced<?> owner) {
+        Lane lane = lanes.get(provider);
+        return Mono.create(sink -> {
+            AtomicReference<Disposable> call = new AtomicReference<>();
+            Task task = new Task(priority, sequence.incrementAndGet(), weight,
+                    () -> call.set(Mono.defer(request).subscribe(sink::success, sink::error, sink::success)));
+            // İptalde başlamamış istek sıradan çıkarılır, başlamış olan kesilir
+            sink.onCancel(() -> {
+                lane.remove(task);
+                Disposable started = call.get();
+                if (started != null) {
+                    started.dispose();
+                }
+            });
+            lane.submit(task, owner);
+        });
+    }
+
+    /**
+     * Sağlayıcının yanıt başlıklarını bütçeye yansıtır
+     */
+    public void onResponse(Provider provider, HttpStatusCode status, HttpHeaders headers) {
+        Lane lane = lanes.get(provider);
+        String usedWeight = headers.getFirst(BINANCE_USED_WEIGHT_HEADER);
+        if (usedWeight != null) {
+            try {
+                lane.observeUsed(Integer.parseInt(usedWeight.trim()));
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring malformed {} header: {}", BINANCE_USED_WEIGHT_HEADER, usedWeight);
+            }
+        }
+        // 418: Binance 429'dan sonra istek atmaya devam edenleri geçici olarak engeller
+        if (status.value() == 429 || status.value() == 418) {
+            Duration backoff = retryAfter(headers.getFirst(HttpHeaders.RETRY_AFTER));
+            logger.warn("{} rate limit hit (HTTP {}), pausing requests for {}s", provider, status.value(), backoff.toSeconds());
+            lane.pause(backoff);
+        }
+    }
+
+    private static Duration retryAfter(String value) {
+        if (value != null) {
+            try {
+                return Duration.ofSeconds(Math.max(1, Long.parseLong(value.trim())));
+            } catch (NumberFormatException ignored) {
+                // HTTP-date biçimi kullanılmıyor; varsayılan bekleme
+            }
+        }
+        return DEFAULT_BACKOFF;
+    }
+
+    /**
+     * Sağlayıcının WebClient'ına eklenen, yanıt başlıklarını okuyan filtre
+     */
+    public ExchangeFilterFunction rateLimitFilter(Provider provider) {
+        return ExchangeFilterFunction.ofResponseProcessor(response -> {
+            onResponse(provider, response.statusCode(), response.headers().asHttpHeaders());
+            return Mono.just(response);
+        });
+    }
+
+    /**
+     * /api/fetch/status için sağlayıcı bazında bütçe ve kuyruk durumu
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        for (Lane lane : lanes.values()) {
+            status.put(lane.provider.name().toLowerCase(), lane.snapshot());
+        }
+        return status;
+    }
+
+    private static final class Task {
+        // Birleşik isteğe daha öncelikli çağıran katılınca yükseltilir (lane kilidi altında)
+        Priority priority;
+        final long sequence;
+        final int weight;
+        final Runnable start;
+
+        Task(Priority priority, long sequence, int weight, Runnable start) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.weight = weight;
+            this.start = start;
+        }
+    }
+
+    /**
+     * Anahtarla birleştirilen istek: paylaşılan sonuç, katılanların en yüksek önceliği ve sıraya girdiyse görevi.
+     * priority ve task sağlayıcının lane kilidiyle korunur.
+     */
+    private static final class Coalesced<T> {
+        Mono<T> shared;
+        Priority priority;
+        Task task;
+
+        Coalesced(Priority priority) {
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * Tek sağlayıcının token bucket'ı ve bekleyen istekleri. Bucket dakikalık bütçe kadar dolar ve
+     * sürekli (milisaniye başına capacity/60000) yenilenir.
+     */
+    private static final class Lane {
+        final Provider provider;
+        final int capacity;
+        final double refillPerMilli;
+        final PriorityQueue<Task> queue = new PriorityQueue<>(
+                Comparator.comparingInt((Task task) -> task.priority.ordinal()).thenComparingLong(task -> task.sequence));
+        double tokens;
+        long lastRefill;
+        long pausedUntil;
+        boolean drainScheduled;
+
+        Lane(Provider provider, int capacity) {
+            this.provider = provider;
+            this.capacity = Math.max(1, capacity);
+            this.refillPerMilli = this.capacity / 60_000.0;
+            this.tokens = this.capacity;
+            this.lastRefill = System.currentTimeMillis();
+        }
+
+        void submit(Task task, Coalesced<?> owner) {
+            synchronized (this) {
+                if (owner != null) {
+                    // Sıraya girmeden önce katılan daha öncelikli çağıranlar
+                    task.priority = owner.priority;
+                    owner.task = task;
+                }
+                queue.add(task);
+            }
+            drain();
+        }
+
+        /**
+         * Birleşik isteğin önceliğini yükseltir; görev sıradaysa yeni önceliğiyle yeniden sıralanır
+         */
+        void promote(Coalesced<?> entry, Priority priority) {
+            synchronized (this) {
+                if (priority.ordinal() >= entry.priority.ordinal()) {
+                    return;
+                }
+                entry.priority = priority;
+                Task task = entry.task;
+                // Henüz sıraya girmemiş ya da başlamış görev: yapılacak bir şey yok
+                if (task == null || !queue.remove(task)) {
+                    return;
+                }
+                task.priority = priority;
+                queue.add(task);
+            }
+            drain();
+        }
+
+        synchronized void remove(Task task) {
+            queue.remove(task);
+        }
+
+        synchronized void observeUsed(int used) {
+            refill(System.currentTimeMillis());
+            // Sunucunun saydığı ağırlık bizim tahminimizden fazlaysa (başka süreçler, yeniden başlatma) ona uyulur
+            tokens = Math.min(tokens, Math.max(0, capacity - used));
+        }
+
+        void pause(Duration duration) {
+            synchronized (this) {
+                pausedUntil = Math.max(pausedUntil, System.currentTimeMillis() + duration.toMillis());
+                tokens = 0;
+            }
+            drain();
+        }
+
+        private void refill(long now) {
+            if (now > lastRefill) {
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerMilli);
+                lastRefill = now;
+            }
+        }
+
+        /**
+         * Bütçenin yettiği kadar isteği öncelik sırasıyla başlatır; yetmiyorsa bütçenin yeteceği ana kadar bekler
+         */
+        void drain() {
+            List<Task> ready = new ArrayList<>();
+            long delay = -1;
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                refill(now);
+                while (!queue.isEmpty()) {
+                    if (now < pausedUntil) {
+                        delay = pausedUntil - now;
+                        break;
+                    }
+                    Task head = queue.peek();
+                    // Bütçeden büyük istek sonsuza dek beklemesin
+                    int weight = Math.min(head.weight, capacity);
+                    if (tokens < weight) {
+                        delay = Math.max(1, (long) Math.ceil((weight - tokens) / refillPerMilli));
+                        break;
+                    }
+                    tokens -= weight;
+                    ready.add(queue.poll());
+                }
+                if (delay >= 0 && !drainScheduled) {
+                    drainScheduled = true;
+                    Schedulers.parallel().schedule(() -> {
+                        synchronized (this) {
+                            drainScheduled = false;
+                        }
+                        drain();
+                    }, delay, TimeUnit.MILLISECONDS);
+                }
+            }
+            // İstekler kilit dışında başlatılır
+            ready.forEach(task -> task.start.run());
+        }
+
+        synchronized Map<String, Object> snapshot() {
+            refill(System.currentTimeMillis());
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("budgetPerMinute", capacity);
+            status.put("available", (int) tokens);
+            status.put("queued", queue.size());
+            status.put("pausedForMs", Math.max(0, pausedUntil - System.currentTimeMillis()));
+            return status;
+        }
+    }
+}
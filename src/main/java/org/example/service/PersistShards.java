@@ -0,0 +1,38 @@
+package org.example.service;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Sembole göre bölünmüş, bloklayıcı JPA kayıtlarının yapıldığı scheduler'lar.
+ * Her shard tek thread'dir: bir sembolün aynı bucket'lara yazan upsert'leri sırayla çalışır,
+ * farklı shard'lardaki semboller paralel yazılır.
+ */
+public class PersistShards {
+
+    private final Scheduler[] shards;
+
+    public PersistShards(int count, int queueSize) {
+        this.shards = new Scheduler[Math.max(1, count)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = Schedulers.newBoundedElastic(1, queueSize, "price-persist-" + i);
+        }
+    }
+
+    /**
+     * Sembolün kayıtlarının sıralandığı shard (aynı sembol her zaman aynı shard'a düşer)
+     */
+    public Scheduler forSymbol(String symbol) {
+        return shards[Math.floorMod(symbol.hashCode(), shards.length)];
+    }
+
+    public int size() {
+        return shards.length;
+    }
+
+    public void dispose() {
+        for (Scheduler shard : shards) {
+            shard.dispose();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package org.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Birden fazla fiyat kaynağından anlık fiyat alır. İstek en hızlı kaynağa gider; kaynak kendi p95 gecikme
+ * bütçesi içinde yanıt vermezse (ya da hata verirse) sıradaki kaynak da başlatılır, ilk geçerli yanıt kazanır.
+ * Periyodik örneklemeyle kaynaklar arası fiyat farkı (spread) serisi bellekte tutulur.
+ */
+@Service
+public class PriceQuoteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceQuoteService.class);
+
+    // p95 bu kadar örnekten sonra güvenilir sayılır; öncesinde hedge-delay kullanılır
+    private static final int MIN_LATENCY_SAMPLES = 5;
+    private static final int LATENCY_WINDOW = 64;
+
+    private final List<PriceSource> sources;
+    private final SymbolRegistry symbolRegistry;
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    // Sembol -> kaynak -> son geçerli fiyat
+    private final Map<String, Map<String, Quote>> latestQuotes = new ConcurrentHashMap<>();
+    private final Map<String, Deque<SpreadPoint>> spreads = new ConcurrentHashMap<>();
+    private final AtomicBoolean sampling = new AtomicBoolean();
+
+    // Gecikme geçmişi oluşana kadar ikinci kaynağın başlatılması için beklenen süre
+    @Value("${app.price-sources.hedge-delay:300}")
+    private long hedgeDelay;
+
+    @Value("${app.price-sources.min-hedge-delay:50}")
+    private long minHedgeDelay;
+
+    @Value("${app.price-sources.timeout:5000}")
+    private long timeout;
+
+    @Value("${app.price-sources.spread-enabled:true}")
+    private boolean spreadEnabled;
+
+    // Spread noktası bu süreden eski kaynak fiyatlarını kullanmaz
+    @Value("${app.price-sources.max-quote-age:60000}")
+    private long maxQuoteAge;
+
+    @Value("${app.price-sources.spread-history:720}")
+    private int spreadHistory;
+
+    public PriceQuoteService(List<PriceSource> sources, SymbolRegistry symbolRegistry) {
+        this.sources = sources;
+        this.symbolRegistry = symbolRegistry;
+    }
+
+    /**
+     * Sembolün anlık fiyatını hedge'li istekle döner
+     */
+    public Mono<Quote> quote(String symbol) {
+        return Mono.defer(() -> {
+            List<PriceSource> order = ranked(symbol);
+            if (order.isEmpty()) {
+                return Mono.error(new DataFetchException("No price source supports " + symbol));
+            }
+            return race(order, 0, symbol);
+        })
+                .timeout(Duration.ofMillis(timeout))
+                .onErrorMap(e -> !(e instanceof DataFetchException),
+                        e -> new DataFetchException("No price source answered for " + symbol, e));
+    }
+
+    /**
+     * index'teki kaynağı başlatır; bütçesini aşarsa ya da hata verirse sonraki kaynak da yarışa girer.
+     * Kazanan yanıt geldiğinde diğer istekler iptal edilir.
+     */
+    private Mono<Quote> race(List<PriceSource> order, int index, String symbol) {
+        PriceSource source = order.get(index);
+        if (index == order.size() - 1) {
+            return call(source, symbol, OutboundRequestScheduler.Priority.LIVE);
+        }
+        Sinks.Empty<Void> failed = Sinks.empty();
+        Mono<Quote> attempt = call(source, symbol, OutboundRequestScheduler.Priority.LIVE)
+                .doOnError(e -> failed.tryEmitEmpty());
+        Mono<Quote> hedge = Mono.firstWithSignal(Mono.delay(Duration.ofMillis(budget(source))).then(), failed.asMono())
+                .then(Mono.defer(() -> race(order, index + 1, symbol)));
+        return Mono.firstWithValue(attempt, hedge);
+    }
+
+    private Mono<Quote> call(PriceSource source, String symbol, OutboundRequestScheduler.Priority priority) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            LatencyWindow window = latency(source);
+            return source.fetchPrice(symbol, priority)
+                    .filter(price -> price.signum() > 0)
+                    .switchIfEmpty(Mono.error(() -> new DataFetchException(source.getName() + " returned no price for " + symbol)))
+                    .map(price -> new Quote(symbol, source.getName(), price, elapsedMillis(start),
+                            LocalDateTime.now(ZoneOffset.UTC)))
+                    .doOnNext(quote -> {
+                        window.record(quote.latencyMillis);
+                        latestQuotes.computeIfAbsent(symbol, s -> new ConcurrentHashMap<>()).put(source.getName(), quote);
+                    })
+                    // Hata yavaşlık gibi cezalandırılır; kazanan yüzünden iptal edilen istek en az bu kadar yavaştır
+                    .doOnError(e -> window.record(timeout))
+                    .doOnCancel(() -> window.record(elapsedMillis(start)));
+        });
+    }
+
+    /**
+     * Sembolü destekleyen kaynaklar, p95 bütçesi küçükten büyüğe (eşitlikte yapılandırma sırası)
+     */
+    private List<PriceSource> ranked(String symbol) {
+        List<PriceSource> order = new ArrayList<>();
+        for (PriceSource source : sources) {
+            if (source.supports(symbol)) {
+                order.add(source);
+            }
+        }
+        order.sort(Comparator.comparingLong(this::budget));
+        return order;
+    }
+
+    private long budget(PriceSource source) {
+        LatencyWindow window = latency(source);
+        long p95 = window.p95();
+        return p95 < 0 ? hedgeDelay : Math.max(minHedgeDelay, p95);
+    }
+
+    private LatencyWindow latency(PriceSource source) {
+        return latencies.computeIfAbsent(source.getName(), name -> new LatencyWindow());
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Tüm kaynakları periyodik olarak örnekleyip spread serisine nokta ekler. Bir önceki örnekleme sürüyorsa atlanır.
+     */
+    @Scheduled(fixedDelayString = "${app.price-sources.spread-interval:15000}",
+               initialDelayString = "${app.price-sources.spread-interval:15000}")
+    public void sampleSpreads() {
+        if (!spreadEnabled || !sampling.compareAndSet(false, true)) {
+            return;
+        }
+        sample().doFinally(signal -> sampling.set(false)).subscribe();
+    }
+
+    /**
+     * Her sembol için destekleyen tüm kaynaklara aynı anda sorar (hedge yok: spread için hepsi gerekir).
+     * Zamanında yanıt vermeyen kaynağın son taze fiyatı kullanılır.
+     */
+    Mono<Void> sample() {
+        return Flux.fromIterable(symbolRegistry.getSymbols())
+                .flatMap(symbol -> Flux.fromIterable(sources)
+                        .filter(source -> source.supports(symbol))
+                        .flatMap(source -> call(source, symbol, OutboundRequestScheduler.Priority.DIAGNOSTIC)
+                                .timeout(Duration.ofMillis(timeout))
+                                .onErrorResume(e -> {
+                                    logger.debug("Spread sample from {} failed for {}: {}", source.getName(), symbol, e.getMessage());
+                                    return Mono.empty();
+                                }))
+                        .then(Mono.fromRunnable(() -> recordSpread(symbol, LocalDateTime.now(ZoneOffset.UTC)))))
+                .then();
+    }
+
+    void recordSpread(String symbol, LocalDateTime now) {
+        Map<String, BigDecimal> prices = new LinkedHashMap<>();
+        Map<String, Quote> quotes = latestQuotes.getOrDefault(symbol, Map.of());
+        for (PriceSource source : sources) {
+            Quote quote = quotes.get(source.getName());
+            if (quote != null && Duration.between(quote.timestamp, now).toMillis() <= maxQuoteAge) {
+                prices.put(source.getName(), quote.price);
+            }
+        }
+        if (prices.size() < 2) {
+            return;
+        }
+        BigDecimal min = prices.values().stream().min(BigDecimal::compareTo).orElseThrow();
+        BigDecimal max = prices.values().stream().max(BigDecimal::compareTo).orElseThrow();
+        BigDecimal spread = max.subtract(min);
+        BigDecimal spreadPercent = spread.multiply(BigDecimal.valueOf(100)).divide(min, 6, RoundingMode.HALF_UP);
+        Deque<SpreadPoint> series = spreads.computeIfAbsent(symbol, s -> new ArrayDeque<>());
+        synchronized (series) {
+            series.addLast(new SpreadPoint(now, prices, spread, spreadPercent));
+            while (series.size() > spreadHistory) {
+                series.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Sembolün spread serisi (eskiden yeniye)
+     */
+    public List<SpreadPoint> getSpreadSeries(String symbol) {
+        Deque<SpreadPoint> series = spreads.get(symbol);
+        if (series == null) {
+            return List.of();
+        }
+        synchronized (series) {
+            return new ArrayList<>(series);
+        }
+    }
+
+    /**
+     * Kaynak başına güncel hedge bütçesi (ms) ve örnek sayısı
+     */
+    public Map<String, Object> getSourceStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        for (PriceSource source : sources) {
+            LatencyWindow window = latency(source);
+            status.put(source.getName(), Map.of("budgetMillis", budget(source), "samples", window.count()));
+        }
+        return status;
+    }
+
+    /**
+     * Son N isteğin gecikmeleri
+     */
+    private static class LatencyWindow {
+        private final long[] samples = new long[LATENCY_WINDOW];
+        private int next;
+        private int count;
+
+        synchronized void record(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        /**
+         * Yeterli örnek yoksa -1
+         */
+        synchronized long p95() {
+            if (count < MIN_LATENCY_SAMPLES) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(count * 0.95) - 1];
+        }
+    }
+
+    public static class Quote {
+        public final String symbol;
+        public final String source;
+        public final BigDecimal price;
+        public final long latencyMillis;
+        public final LocalDateTime timestamp;
+
+        public Quote(String symbol, String source, BigDecimal price, long latencyMillis, LocalDateTime timestamp) {
+            this.symbol = symbol;
+            this.source = source;
+            this.price = price;
+            this.latencyMillis = latencyMillis;
+            this.timestamp = timestamp;
+        }
+    }
+
+    public static class SpreadPoint {
+        public final LocalDateTime timestamp;
+        public final Map<String, BigDecimal> prices;
+        public final BigDecimal spread;
+        public final BigDecimal spreadPercent;
+
+        public SpreadPoint(LocalDateTime timestamp, Map<String, BigDecimal> prices, BigDecimal spread,
+                           BigDecimal spreadPercent) {
+            this.timestamp = timestamp;
+            this.prices = prices;
+            this.spread = spread;
+            this.spreadPercent = spreadPercent;
+        }
+    }
+}
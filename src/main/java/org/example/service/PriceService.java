@@ -1,95 +1,277 @@
 package org.example.service;
 
 import org.example.dto.PriceDto;
+import org.example.dto.PricePageDto;
 import org.example.dto.SignalDto;
+import org.example.dto.SignalFields;
 import org.example.dto.FearGreedDto;
 import org.example.dto.SentimentDto;
 import org.example.dto.OnChainDto;
+import org.example.entity.BarSeries;
 import org.example.entity.PriceEntity;
+import org.example.entity.Timeframe;
 import org.example.repository.PriceRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.annotation.PreDestroy;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class PriceService {
     
+    // Detaylı analizden gelen alanlar: biri istenirse tüm temel indikatörler hesaplanır
+    private static final String[] ANALYSIS_FIELDS = {"signal", "reasoning", "entryPrice", "entryExplanation", "stopLoss",
+            "takeProfit", "sltpExplanation", "buySignals", "sellSignals", "rsiAnalysis", "macdAnalysis", "trendAnalysis",
+            "bollingerAnalysis", "stochasticAnalysis", "adxAnalysis", "ichimokuAnalysis", "tradeAdvice"};
+    private static final String[] ICHIMOKU_FIELDS = {"ichimokuTenkan", "ichimokuKijun", "ichimokuSenkouA",
+            "ichimokuSenkouB", "ichimokuChikou"};
+    private static final String[] ICHIMOKU_PREDICTION_FIELDS = {"ichimokuSignal", "ichimokuEntryPrice",
+            "ichimokuStopLoss", "ichimokuTakeProfit", "ichimokuPredictionExplanation"};
+    // Dış kaynaklı ve her çağrıda değişebilen alanlar (akış değişim kontrolü de bunları dışlar)
+    static final String[] SENTIMENT_FIELDS = {"fearGreedValue", "fearGreedClassification",
+            "fearGreedDescription", "sentimentValue", "sentimentClassification", "sentimentExplanation",
+            "whaleTransactions", "whaleMovement", "flowDirection", "onChainExplanation", "sentimentSignal"};
+    
     private final PriceRepository priceRepository;
+    private final HotTierCache hotTierCache;
     private final IndicatorService indicatorService;
     private final MarketSentimentService marketSentimentService;
+    private final ObjectMapper objectMapper;
+    private final DataVersionService dataVersionService;
+    // Sembol:interval -> overlay'leri hesaplanmış grafik serisi
+    private final Map<String, ChartSeries> chartSeriesCache = new ConcurrentHashMap<>();
+    // Semboller arası sinyal hesaplaması CPU-bound: çekirdek sayısı kadar thread'e bölünür
+    private final Scheduler signalScheduler = Schedulers.newParallel("signal-compute",
+            Runtime.getRuntime().availableProcessors());
+    
+    @PersistenceContext
+    private EntityManager entityManager;
     
     // Kullanıcı dostu: application.properties veya parametre ile agresif sinyal seçimi
     @org.springframework.beans.factory.annotation.Value("${app.signal.aggressive:false}")
     private boolean useAggressiveSignal;
     
-    public PriceService(PriceRepository priceRepository, IndicatorService indicatorService, MarketSentimentService marketSentimentService) {
+    public PriceService(PriceRepository priceRepository, HotTierCache hotTierCache, IndicatorService indicatorService,
+                        MarketSentimentService marketSentimentService, ObjectMapper objectMapper,
+                        DataVersionService dataVersionService) {
         this.priceRepository = priceRepository;
+        this.hotTierCache = hotTierCache;
         this.indicatorService = indicatorService;
         this.marketSentimentService = marketSentimentService;
+        this.objectMapper = objectMapper;
+        this.dataVersionService = dataVersionService;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        signalScheduler.dispose();
     }
     
     /**
-     * Belirli bir interval için fiyat verilerini getirir
+     * Belirli bir interval için fiyat verilerini keyset sayfalama ile getirir.
+     * before verilirse daha eski barlar (en yeni önce), after verilirse daha yeni barlar (en eski önce) döner;
+     * ikisi de yoksa en yeni sayfa döner. Sayfa derinliğinden bağımsız olarak index üzerinden okunur.
      */
-    public List<PriceDto> getPriceData(PriceEntity.IntervalType intervalType) {
-        List<PriceEntity> entities = priceRepository.findByIntervalTypeOrderByTimestampDesc(intervalType);
-        return entities.stream()
+    public PricePageDto getPriceDataPage(String symbol, PriceEntity.IntervalType intervalType, LocalDateTime before,
+                                         LocalDateTime after, int size) {
+        // Bir fazla satır çekilerek sonraki sayfanın varlığı anlaşılır
+        Limit limit = Limit.of(size + 1);
+        List<PriceEntity> entities;
+        if (after != null) {
+            entities = priceRepository.findBySymbolAndIntervalTypeAndTimestampGreaterThanOrderByTimestampAsc(symbol, intervalType, after, limit);
+        } else if (before != null) {
+            entities = priceRepository.findBySymbolAndIntervalTypeAndTimestampLessThanOrderByTimestampDesc(symbol, intervalType, before, limit);
+        } else {
+            entities = priceRepository.findBySymbolAndIntervalTypeOrderByTimestampDesc(symbol, intervalType, limit);
+        }
+        boolean hasMore = entities.size() > size;
+        if (hasMore) {
+            entities = entities.subList(0, size);
+        }
+        List<PriceDto> data = entities.stream()
                 .map(PriceDto::new)
                 .collect(Collectors.toList());
+        LocalDateTime nextCursor = hasMore ? entities.get(entities.size() - 1).getTimestamp() : null;
+        return new PricePageDto(data, nextCursor, hasMore, data.size());
+    }
+    
+    /**
+     * Kayıtlı olmayan bir zaman dilimi (2h, 12h, 1w, 1M...) için sayfayı, hedefe hizalı en kaba kayıtlı
+     * interval'ın barlarından tek geçişte yeniden örnekleyerek üretir. Cursor ve sıralama getPriceDataPage
+     * ile aynıdır; sayfa size kadar bucket aralığını kapsar (veri boşluğundaki bucket'lar atlanır).
+     */
+    @Transactional(readOnly = true)
+    public PricePageDto getResampledPage(String symbol, Timeframe target, LocalDateTime before, LocalDateTime after,
+                                         int size) {
+        PriceEntity.IntervalType baseType = resampleBase(target);
+        Timeframe base = Timeframe.of(baseType);
+        boolean ascending = after != null;
+        long first;
+        long last;
+        if (ascending) {
+            first = target.shift(target.bucketStart(after.toEpochSecond(ZoneOffset.UTC)), 1);
+            last = target.shift(first, size - 1);
+        } else {
+            long anchor;
+            if (before != null) {
+                anchor = target.bucketStart(before.toEpochSecond(ZoneOffset.UTC) - 1);
+            } else {
+                List<PriceEntity> latest = priceRepository.findBySymbolAndIntervalTypeOrderByTimestampDesc(symbol, baseType, Limit.of(1));
+                if (latest.isEmpty()) {
+                    return new PricePageDto(List.of(), null, false, 0);
+                }
+                anchor = target.bucketStart(latest.get(0).getTimestamp().toEpochSecond(ZoneOffset.UTC));
+            }
+            last = anchor;
+            first = target.shift(anchor, -(size - 1));
+        }
+        LocalDateTime from = LocalDateTime.ofEpochSecond(first, 0, ZoneOffset.UTC);
+        LocalDateTime to = LocalDateTime.ofEpochSecond(target.shift(last, 1) - 1, 0, ZoneOffset.UTC);
+
+        List<PriceDto> data = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        Resampler resampler = new Resampler(base, target);
+        try (Stream<PriceEntity> entities = priceRepository.streamBySymbolAndIntervalTypeAndDateRange(symbol, baseType, from, to)) {
+            Iterator<PriceEntity> iterator = entities.iterator();
+            while (iterator.hasNext()) {
+                PriceEntity entity = iterator.next();
+                Resampler.Bucket closed = resampler.accept(entity);
+                if (closed != null) {
+                    data.add(toResampledDto(closed, baseType, target, now));
+                }
+                entityManager.detach(entity);
+            }
+        }
+        Resampler.Bucket tail = resampler.flush();
+        if (tail != null) {
+            data.add(toResampledDto(tail, baseType, target, now));
+        }
+
+        boolean hasMore = ascending
+                ? !priceRepository.findBySymbolAndIntervalTypeAndTimestampGreaterThanOrderByTimestampAsc(symbol, baseType, to, Limit.of(1)).isEmpty()
+                : !priceRepository.findBySymbolAndIntervalTypeAndTimestampLessThanOrderByTimestampDesc(symbol, baseType, from, Limit.of(1)).isEmpty();
+        if (!ascending) {
+            Collections.reverse(data);
+        }
+        LocalDateTime nextCursor = hasMore ? LocalDateTime.ofEpochSecond(ascending ? last : first, 0, ZoneOffset.UTC) : null;
+        return new PricePageDto(data, nextCursor, hasMore, data.size());
+    }
+
+    /**
+     * Hedef zaman diliminin bucket sınırlarına hizalı en kaba kayıtlı interval
+     */
+    private static PriceEntity.IntervalType resampleBase(Timeframe target) {
+        PriceEntity.IntervalType best = null;
+        for (PriceEntity.IntervalType type : PriceEntity.IntervalType.values()) {
+            if (target.isAlignedWith(Timeframe.of(type))
+                    && (best == null || type.getDuration().compareTo(best.getDuration()) > 0)) {
+                best = type;
+            }
+        }
+        if (best == null) {
+            throw new IllegalArgumentException("Interval " + target + " cannot be built from stored bars");
+        }
+        return best;
+    }
+
+    private static PriceDto toResampledDto(Resampler.Bucket bucket, PriceEntity.IntervalType baseType, Timeframe target,
+                                           LocalDateTime now) {
+        PriceDto dto = new PriceDto(bucket.toEntity(baseType));
+        dto.setIntervalType(target.getValue());
+        dto.setPartial(!bucket.complete || bucket.end.isAfter(now));
+        return dto;
     }
     
     /**
-     * Belirli bir interval için son N kaydı getirir
+     * Belirli bir sembol ve interval için son N kaydı getirir
+     */
+    public List<PriceDto> getLatestPriceData(String symbol, PriceEntity.IntervalType intervalType, int limit) {
+        return new ArrayList<>(chartSeries(symbol, intervalType));
+    }
+
+    /**
+     * Grafik serisinin since (dahil) ve sonrasındaki barları: istemcinin son barının güncel hali ve yeni barlar.
+     * Overlay değerleri getLatestPriceData ile aynı seriden gelir, böylece istemci bunları mevcut grafiğine ekleyebilir.
      */
-    public List<PriceDto> getLatestPriceData(PriceEntity.IntervalType intervalType, int limit) {
-        // Her zaman en az 300 veri çek
-        List<PriceEntity> entities = priceRepository.findLatestNByIntervalType(intervalType, 300);
-        // Veriler DESC geliyor, grafikte doğru sıralama için ters çevir
-        Collections.reverse(entities);
+    public List<PriceDto> getPriceDataSince(String symbol, PriceEntity.IntervalType intervalType, LocalDateTime since) {
+        List<PriceDto> series = chartSeries(symbol, intervalType);
+        // Seri zaman sıralı: ilk since'e eşit/sonraki bar ikili aramayla bulunur
+        int low = 0;
+        int high = series.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (series.get(mid).getTimestamp().isBefore(since)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return new ArrayList<>(series.subList(low, series.size()));
+    }
+
+    /**
+     * Overlay'leri hesaplanmış grafik serisi; veri sürümü değişmedikçe tüm istekler aynı hesaplanmış seriyi paylaşır
+     */
+    private List<PriceDto> chartSeries(String symbol, PriceEntity.IntervalType intervalType) {
+        String key = symbol + ":" + intervalType.getValue();
+        // Sürüm hesaplamadan önce okunur: hesaplama sırasında gelen bar bir sonraki istekte yeniden hesaplatır
+        long version = dataVersionService.getVersion(symbol, intervalType);
+        ChartSeries cached = chartSeriesCache.get(key);
+        if (cached != null && cached.version == version) {
+            return cached.bars;
+        }
+        List<PriceDto> bars = Collections.unmodifiableList(buildChartSeries(symbol, intervalType));
+        chartSeriesCache.put(key, new ChartSeries(version, bars));
+        return bars;
+    }
+
+    private List<PriceDto> buildChartSeries(String symbol, PriceEntity.IntervalType intervalType) {
+        // Her zaman en az 300 veri çek (hot tier'dan, eksikse veritabanından); eskiden yeniye sıralı gelir
+        HotTierCache.Window window = hotTierCache.findWindow(symbol, intervalType, 300);
         // 1. Her bar (gün) için sadece bir kapanış fiyatı kullan (en son kapanış)
-        java.util.Map<java.time.LocalDate, PriceEntity> lastClosePerDay = new java.util.LinkedHashMap<>();
-        for (PriceEntity e : entities) {
-            java.time.LocalDate day = e.getTimestamp().toLocalDate();
+        java.util.Map<java.time.LocalDate, Integer> lastClosePerDay = new java.util.LinkedHashMap<>();
+        for (int i = 0; i < window.bars.size(); i++) {
             // Aynı gün için daha güncel bir kapanış varsa onu al
-            lastClosePerDay.put(day, e);
+            lastClosePerDay.put(window.bars.get(i).getTimestamp().toLocalDate(), i);
         }
-        // 2. Sıralı kapanış fiyatı listesi oluştur
-        java.util.List<PriceEntity> dailyEntities = new java.util.ArrayList<>(lastClosePerDay.values());
-        // En eski -> en yeni sıralı olmalı
-        dailyEntities.sort(java.util.Comparator.comparing(PriceEntity::getTimestamp));
+        // 2. Sıralı kapanış fiyatı listesi oluştur (günler artan sırada eklendiğinden indeksler de artan)
+        int[] indices = lastClosePerDay.values().stream().mapToInt(Integer::intValue).toArray();
+        List<PriceEntity> dailyEntities = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            dailyEntities.add(window.bars.get(index));
+        }
+        // SMA, VWAP ve Bollinger overlay'leri hot tier'ın sabit noktalı serisi üzerinde tek geçişte hesaplanır
+        BarSeries series = indices.length == window.bars.size() ? window.series : window.series.select(indices);
+        IndicatorService.OverlaySeries overlays = indicatorService.calculateOverlays(series);
         List<PriceDto> dtos = new ArrayList<>();
         for (int i = 0; i < dailyEntities.size(); i++) {
             PriceEntity entity = dailyEntities.get(i);
             PriceDto dto = new PriceDto(entity);
-            
-            // SMA20 - son 20 veri (eğer yeterli veri varsa)
-            if (i >= 19) {
-                List<PriceEntity> sma20List = dailyEntities.subList(i - 19, i + 1);
-                dto.setSma20(indicatorService.calculateSMA(sma20List, 20));
-            } else {
-                dto.setSma20(BigDecimal.ZERO);
-            }
-            
-            // SMA50 - son 50 veri (eğer yeterli veri varsa)
-            if (i >= 49) {
-                List<PriceEntity> sma50List = dailyEntities.subList(i - 49, i + 1);
-                dto.setSma50(indicatorService.calculateSMA(sma50List, 50));
-            } else {
-                dto.setSma50(BigDecimal.ZERO);
-            }
-            
-            // SMA200 - son 200 veri (eğer yeterli veri varsa)
-            if (i >= 199) {
-                List<PriceEntity> sma200List = dailyEntities.subList(i - 199, i + 1);
-                dto.setSma200(indicatorService.calculateSMA(sma200List, 200));
-            } else {
-                dto.setSma200(BigDecimal.ZERO);
-            }
+            dto.setSma20(overlays.sma20[i]);
+            dto.setSma50(overlays.sma50[i]);
+            dto.setSma200(overlays.sma200[i]);
             
             // SuperTrend - son 10 bar ile hesapla (en az 10 bar olmalı)
             if (i >= 9) {
@@ -98,24 +280,9 @@ public class PriceService {
             } else {
                 dto.setSuperTrend(BigDecimal.ZERO);
             }
-            // VWAP - tüm geçmiş barlar ile hesapla (veya son 20 bar)
-            if (i >= 1) {
-                List<PriceEntity> vwapList = dailyEntities.subList(0, i + 1);
-                dto.setVwap(indicatorService.calculateVWAP(vwapList));
-            } else {
-                dto.setVwap(BigDecimal.ZERO);
-            }
-            
-            // Bollinger Bands - son 20 bar ile hesapla (en az 20 bar olmalı)
-            if (i >= 19) {
-                List<PriceEntity> bollList = dailyEntities.subList(i - 19, i + 1);
-                IndicatorService.BollingerBandsResult boll = indicatorService.calculateBollingerBands(bollList, 20, 2.0);
-                dto.setBollingerUpper(boll.upper);
-                dto.setBollingerLower(boll.lower);
-            } else {
-                dto.setBollingerUpper(BigDecimal.ZERO);
-                dto.setBollingerLower(BigDecimal.ZERO);
-            }
+            dto.setVwap(overlays.vwap[i]);
+            dto.setBollingerUpper(overlays.bollingerUpper[i]);
+            dto.setBollingerLower(overlays.bollingerLower[i]);
             
             dtos.add(dto);
         }
@@ -123,14 +290,43 @@ public class PriceService {
     }
     
     /**
-     * Belirli bir interval için sinyal üretir
+     * Birden fazla sembol için sinyalleri paralel üretir; sonuç istek sırasıyla döner.
+     * Her sembolün serisi ve indicator cache bölümü ayrı olduğundan hesaplamalar birbirini beklemez.
+     * fields ile sadece istenen alanların indikatörleri hesaplanır.
+     */
+    public Map<String, SignalDto> generateSignals(PriceEntity.IntervalType intervalType, List<String> symbols,
+                                                  SignalFields fields) {
+        Map<String, SignalDto> bySymbol = Flux.fromIterable(symbols)
+                .parallel()
+                .runOn(signalScheduler)
+                .map(symbol -> Map.entry(symbol, generateSignal(symbol, intervalType, fields)))
+                .sequential()
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .block();
+        Map<String, SignalDto> ordered = new LinkedHashMap<>();
+        for (String symbol : symbols) {
+            ordered.put(symbol, bySymbol.get(symbol));
+        }
+        return ordered;
+    }
+    
+    /**
+     * Belirli bir sembol ve interval için sinyal üretir
      */
-    public SignalDto generateSignal(PriceEntity.IntervalType intervalType) {
+    public SignalDto generateSignal(String symbol, PriceEntity.IntervalType intervalType) {
+        return generateSignal(symbol, intervalType, SignalFields.ALL);
+    }
+
+    /**
+     * Sadece istenen alanlar için gereken indikatörleri hesaplar; diğer alanlar null kalır.
+     * Sinyal, giriş/SL/TP ve analiz metinleri detaylı analizden gelir, o da tüm temel indikatörlere ihtiyaç duyar.
+     */
+    public SignalDto generateSignal(String symbol, PriceEntity.IntervalType intervalType, SignalFields fields) {
         // SMA200 ve Ichimoku için en az 200 veri çek
-        List<PriceEntity> prices = priceRepository.findLatestNByIntervalType(intervalType, 200);
+        List<PriceEntity> prices = hotTierCache.findLatest(symbol, intervalType, 200);
         
         if (prices.isEmpty()) {
-            return createEmptySignal(intervalType);
+            return createEmptySignal(symbol, intervalType);
         }
         
         // Fiyatları en eski -> en yeni olacak şekilde sırala
@@ -139,100 +335,151 @@ public class PriceService {
         PriceEntity latestPrice = prices.get(prices.size() - 1);
         BigDecimal currentPrice = latestPrice.getClosePrice();
         
+        boolean analysis = fields.wantsAny(ANALYSIS_FIELDS);
+        boolean aggressive = fields.wants("aggressiveSignal");
+        boolean ichimokuPrediction = fields.wantsAny(ICHIMOKU_PREDICTION_FIELDS);
+        
         // Teknik indikatörleri hesapla
-        BigDecimal rsi = indicatorService.calculateRSI(prices);
-        IndicatorService.MACDResult macd = indicatorService.calculateMACD(prices);
-        BigDecimal sma20 = indicatorService.calculateSMA(prices, 20);
-        BigDecimal sma50 = indicatorService.calculateSMA(prices, 50);
-        BigDecimal sma200 = indicatorService.calculateSMA(prices, 200);
-        BigDecimal ema12 = indicatorService.calculateEMA(prices, 12);
-        BigDecimal atr = indicatorService.calculateATR(prices, 14);
+        BigDecimal rsi = analysis || aggressive || fields.wants("rsiValue") ? indicatorService.calculateRSI(prices) : null;
+        IndicatorService.MACDResult macd = analysis || aggressive || fields.wantsAny("macdValue", "macdSignal", "macdHistogram")
+                ? indicatorService.calculateMACD(prices) : null;
+        BigDecimal sma20 = analysis || aggressive || fields.wants("sma20") ? indicatorService.calculateSMA(prices, 20) : null;
+        BigDecimal sma50 = analysis || aggressive || fields.wants("sma50") ? indicatorService.calculateSMA(prices, 50) : null;
+        BigDecimal sma200 = analysis || aggressive || fields.wants("sma200") ? indicatorService.calculateSMA(prices, 200) : null;
+        BigDecimal ema12 = fields.wants("ema12") ? indicatorService.calculateEMA(prices, 12) : null;
+        BigDecimal atr = analysis || fields.wants("atr") ? indicatorService.calculateATR(prices, 14) : null;
         
         // Sinyal üret
-        BigDecimal prevHistogram = null;
-        if (prices.size() > 1) {
-            IndicatorService.MACDResult prevMacd = indicatorService.calculateMACD(prices.subList(0, prices.size() - 1));
-            prevHistogram = prevMacd.histogram;
+        String macdSignal = null;
+        if (analysis || aggressive) {
+            BigDecimal prevHistogram = null;
+            if (prices.size() > 1) {
+                IndicatorService.MACDResult prevMacd = indicatorService.calculateMACD(prices.subList(0, prices.size() - 1));
+                prevHistogram = prevMacd.histogram;
+            }
+            macdSignal = indicatorService.generateMACDSignal(macd, prevHistogram);
         }
-        String macdSignal = indicatorService.generateMACDSignal(macd, prevHistogram);
         
         // Yeni göstergeleri hesapla
-        IndicatorService.BollingerBandsResult boll = indicatorService.calculateBollingerBandsEMA(prices, 20, 2.0);
-        BigDecimal stochasticRsi = indicatorService.calculateStochasticRSI(prices, 14);
-        BigDecimal adx = indicatorService.calculateADX(prices, 14);
-        IndicatorService.IchimokuResult ichimoku = indicatorService.calculateIchimoku(prices);
+        IndicatorService.BollingerBandsResult boll = analysis || fields.wantsAny("bollingerUpper", "bollingerMiddle", "bollingerLower")
+                ? indicatorService.calculateBollingerBandsEMA(prices, 20, 2.0) : null;
+        BigDecimal stochasticRsi = analysis || fields.wants("stochasticRsi") ? indicatorService.calculateStochasticRSI(prices, 14) : null;
+        BigDecimal adx = analysis || fields.wants("adx") ? indicatorService.calculateADX(prices, 14) : null;
+        IndicatorService.IchimokuResult ichimoku = analysis || ichimokuPrediction || fields.wantsAny(ICHIMOKU_FIELDS)
+                ? indicatorService.calculateIchimoku(prices) : null;
         // SuperTrend ve VWAP
-        BigDecimal vwap = indicatorService.calculateVWAP(prices);
-        BigDecimal superTrend = indicatorService.calculateSuperTrend(prices, 10, 3.0);
+        BigDecimal vwap = fields.wants("vwap") ? indicatorService.calculateVWAP(prices) : null;
+        BigDecimal superTrend = fields.wants("superTrend") ? indicatorService.calculateSuperTrend(prices, 10, 3.0) : null;
         
         // --- Detaylı Analiz ---
-        DetailedAnalysisResult detailedAnalysis = performDetailedAnalysis(rsi, macd, currentPrice, sma20, sma50, sma200, macdSignal, atr, boll, stochasticRsi, adx, ichimoku, prices);
+        DetailedAnalysisResult detailedAnalysis = analysis
+                ? performDetailedAnalysis(rsi, macd, currentPrice, sma20, sma50, sma200, macdSignal, atr, boll, stochasticRsi, adx, ichimoku, prices)
+                : null;
         
-        SignalDto.SignalType signal = detailedAnalysis.signal;
-        SignalDto.SignalType aggressiveSignal;
-        if (useAggressiveSignal) {
-            aggressiveSignal = determineAggressiveSignal(rsi, macd, macdSignal, currentPrice, sma20, sma50, sma200);
-        } else {
-            aggressiveSignal = determineAggressiveSignal(rsi, macd, macdSignal, currentPrice, sma20, sma50, sma200);
-        }
+        SignalDto.SignalType signal = detailedAnalysis != null ? detailedAnalysis.signal : null;
+        SignalDto.SignalType aggressiveSignal = aggressive
+                ? determineAggressiveSignal(rsi, macd, macdSignal, currentPrice, sma20, sma50, sma200)
+                : null;
         
         // SignalDto oluştur
         SignalDto signalDto = new SignalDto(signal, intervalType.getValue(), 
-                                          latestPrice.getTimestamp(), currentPrice, detailedAnalysis.reasoning);
+                                          latestPrice.getTimestamp(), currentPrice,
+                                          detailedAnalysis != null ? detailedAnalysis.reasoning : null);
         signalDto.setRsiValue(rsi);
-        signalDto.setMacdValue(macd.macdLine);
-        signalDto.setMacdSignal(macd.signalLine);
-        signalDto.setMacdHistogram(macd.histogram);
+        if (macd != null) {
+            signalDto.setMacdValue(macd.macdLine);
+            signalDto.setMacdSignal(macd.signalLine);
+            signalDto.setMacdHistogram(macd.histogram);
+        }
         signalDto.setSma20(sma20);
         signalDto.setSma50(sma50);
         signalDto.setSma200(sma200);
         signalDto.setEma12(ema12);
         signalDto.setAtr(atr);
-        signalDto.setBollingerUpper(boll.upper);
-        signalDto.setBollingerMiddle(boll.middle);
-        signalDto.setBollingerLower(boll.lower);
+        if (boll != null) {
+            signalDto.setBollingerUpper(boll.upper);
+            signalDto.setBollingerMiddle(boll.middle);
+            signalDto.setBollingerLower(boll.lower);
+        }
         signalDto.setStochasticRsi(stochasticRsi);
         signalDto.setAdx(adx);
-        signalDto.setIchimokuTenkan(ichimoku.tenkan);
-        signalDto.setIchimokuKijun(ichimoku.kijun);
-        signalDto.setIchimokuSenkouA(ichimoku.senkouA);
-        signalDto.setIchimokuSenkouB(ichimoku.senkouB);
-        signalDto.setIchimokuChikou(ichimoku.chikou);
+        if (ichimoku != null) {
+            signalDto.setIchimokuTenkan(ichimoku.tenkan);
+            signalDto.setIchimokuKijun(ichimoku.kijun);
+            signalDto.setIchimokuSenkouA(ichimoku.senkouA);
+            signalDto.setIchimokuSenkouB(ichimoku.senkouB);
+            signalDto.setIchimokuChikou(ichimoku.chikou);
+        }
         // SuperTrend ve VWAP'i ekle
         signalDto.setVwap(vwap);
         signalDto.setSuperTrend(superTrend);
         
         // Ichimoku sinyali ve fiyat tahminleri hesapla
-        IndicatorService.IchimokuSignalResult ichimokuResult = indicatorService.generateIchimokuSignalWithPredictions(ichimoku, currentPrice);
-        signalDto.setIchimokuSignal(ichimokuResult.signal);
-        signalDto.setIchimokuEntryPrice(ichimokuResult.entryPrice);
-        signalDto.setIchimokuStopLoss(ichimokuResult.stopLoss);
-        signalDto.setIchimokuTakeProfit(ichimokuResult.takeProfit);
-        signalDto.setIchimokuPredictionExplanation(ichimokuResult.explanation);
+        if (ichimokuPrediction) {
+            IndicatorService.IchimokuSignalResult ichimokuResult = indicatorService.generateIchimokuSignalWithPredictions(ichimoku, currentPrice);
+            signalDto.setIchimokuSignal(ichimokuResult.signal);
+            signalDto.setIchimokuEntryPrice(ichimokuResult.entryPrice);
+            signalDto.setIchimokuStopLoss(ichimokuResult.stopLoss);
+            signalDto.setIchimokuTakeProfit(ichimokuResult.takeProfit);
+            signalDto.setIchimokuPredictionExplanation(ichimokuResult.explanation);
+        }
         
         // Detaylı analiz sonuçlarını ekle
-        signalDto.setEntryPrice(detailedAnalysis.entryPrice);
-        signalDto.setStopLoss(detailedAnalysis.stopLoss);
-        signalDto.setTakeProfit(detailedAnalysis.takeProfit);
-        signalDto.setEntryExplanation(detailedAnalysis.entryExplanation);
-        signalDto.setSltpExplanation(detailedAnalysis.sltpExplanation);
-        signalDto.setBuySignals(detailedAnalysis.buySignals);
-        signalDto.setSellSignals(detailedAnalysis.sellSignals);
-        signalDto.setRsiAnalysis(detailedAnalysis.rsiAnalysis);
-        signalDto.setMacdAnalysis(detailedAnalysis.macdAnalysis);
-        signalDto.setTrendAnalysis(detailedAnalysis.trendAnalysis);
-        
-        // Yeni analiz alanlarını ekle
-        signalDto.setBollingerAnalysis(detailedAnalysis.bollingerAnalysis);
-        signalDto.setStochasticAnalysis(detailedAnalysis.stochasticAnalysis);
-        signalDto.setAdxAnalysis(detailedAnalysis.adxAnalysis);
-        signalDto.setIchimokuAnalysis(detailedAnalysis.ichimokuAnalysis);
+        if (detailedAnalysis != null) {
+            signalDto.setEntryPrice(detailedAnalysis.entryPrice);
+            signalDto.setStopLoss(detailedAnalysis.stopLoss);
+            signalDto.setTakeProfit(detailedAnalysis.takeProfit);
+            signalDto.setEntryExplanation(detailedAnalysis.entryExplanation);
+            signalDto.setSltpExplanation(detailedAnalysis.sltpExplanation);
+            signalDto.setBuySignals(detailedAnalysis.buySignals);
+            signalDto.setSellSignals(detailedAnalysis.sellSignals);
+            signalDto.setRsiAnalysis(detailedAnalysis.rsiAnalysis);
+            signalDto.setMacdAnalysis(detailedAnalysis.macdAnalysis);
+            signalDto.setTrendAnalysis(detailedAnalysis.trendAnalysis);
+            
+            // Yeni analiz alanlarını ekle
+            signalDto.setBollingerAnalysis(detailedAnalysis.bollingerAnalysis);
+            signalDto.setStochasticAnalysis(detailedAnalysis.stochasticAnalysis);
+            signalDto.setAdxAnalysis(detailedAnalysis.adxAnalysis);
+            signalDto.setIchimokuAnalysis(detailedAnalysis.ichimokuAnalysis);
+        }
         
         // Market Sentiment verilerini ekle
+        if (fields.wantsAny(SENTIMENT_FIELDS)) {
+            addSentiment(signalDto);
+        }
+        
+        // --- Aggressive sinyalı da ekle ---
+        signalDto.setAggressiveSignal(aggressiveSignal != null ? aggressiveSignal.name() : null);
+        // --- Trade Advice ---
+        if (signal != null) {
+            String tradeAdvice;
+            if (signal == SignalDto.SignalType.BUY) {
+                tradeAdvice = "AL (LONG açılabilir)";
+            } else if (signal == SignalDto.SignalType.SELL) {
+                tradeAdvice = "SAT (SHORT açılabilir)";
+            } else {
+                tradeAdvice = "BEKLE (İşlem açma)";
+            }
+            signalDto.setTradeAdvice(tradeAdvice);
+        }
+        signalDto.setSymbol(symbol);
+        return signalDto;
+    }
+    
+    /**
+     * Sinyal ETag'ine girecek sentiment sürümü; istenen alanlarda sentiment yoksa 0
+     */
+    public long getSentimentVersion(SignalFields fields) {
+        return fields.wantsAny(SENTIMENT_FIELDS) ? marketSentimentService.getSnapshot().version : 0L;
+    }
+    
+    private void addSentiment(SignalDto signalDto) {
         try {
-            FearGreedDto fearGreed = marketSentimentService.getFearGreedIndex();
-            SentimentDto sentiment = marketSentimentService.getSocialMediaSentiment();
-            OnChainDto onChain = marketSentimentService.getOnChainMetrics();
+            MarketSentimentService.Snapshot snapshot = marketSentimentService.getSnapshot();
+            FearGreedDto fearGreed = snapshot.fearGreed;
+            SentimentDto sentiment = snapshot.sentiment;
+            OnChainDto onChain = snapshot.onChain;
             
             signalDto.setFearGreedValue(fearGreed.getValue());
             signalDto.setFearGreedClassification(fearGreed.getClassification());
@@ -257,30 +504,12 @@ public class PriceService {
             signalDto.setSentimentClassification("Neutral");
             signalDto.setSentimentSignal("NEUTRAL");
         }
-        
-        // --- Aggressive sinyalı da ekle ---
-        signalDto.setAggressiveSignal(aggressiveSignal != null ? aggressiveSignal.name() : null);
-        // --- Trade Advice ---
-        String tradeAdvice;
-        if (signal == SignalDto.SignalType.BUY) {
-            tradeAdvice = "AL (LONG açılabilir)";
-        } else if (signal == SignalDto.SignalType.SELL) {
-            tradeAdvice = "SAT (SHORT açılabilir)";
-        } else {
-            tradeAdvice = "BEKLE (İşlem açma)";
-        }
-        signalDto.setTradeAdvice(tradeAdvice);
-        // Detaylı analiz sonuçlarını kullan (eski TP hesaplama yerine)
-        signalDto.setStopLoss(detailedAnalysis.stopLoss);
-        signalDto.setTakeProfit(detailedAnalysis.takeProfit);
-        signalDto.setSltpExplanation(detailedAnalysis.sltpExplanation);
-        return signalDto;
     }
     
     /**
      * Boş sinyal oluşturur (veri yoksa)
      */
-    private SignalDto createEmptySignal(PriceEntity.IntervalType intervalType) {
+    private SignalDto createEmptySignal(String symbol, PriceEntity.IntervalType intervalType) {
         SignalDto signalDto = new SignalDto(SignalDto.SignalType.HOLD, intervalType.getValue(), 
                                           LocalDateTime.now(), BigDecimal.ZERO, 
                                           "Yeterli veri bulunamadı");
@@ -290,6 +519,7 @@ public class PriceService {
         signalDto.setMacdHistogram(BigDecimal.ZERO);
         signalDto.setSma20(BigDecimal.ZERO);
         signalDto.setEma12(BigDecimal.ZERO);
+        signalDto.setSymbol(symbol);
         return signalDto;
     }
     
@@ -396,21 +626,43 @@ public class PriceService {
     }
     
     /**
-     * Belirli bir tarih aralığındaki fiyat verilerini getirir
+     * Belirli bir tarih aralığındaki fiyat verilerini JSON dizisi olarak doğrudan çıktıya yazar.
+     * Sonuç listesi bellekte oluşturulmaz: satırlar cursor'dan okunur, yazılır ve persistence context'ten ayrılır.
+     * maxPoints verilirse aralık aynı geçişte en fazla maxPoints OHLC bucket'ına indirilir.
      */
-    public List<PriceDto> getPriceDataByDateRange(PriceEntity.IntervalType intervalType, 
-                                                 LocalDateTime startDate, LocalDateTime endDate) {
-        List<PriceEntity> entities = priceRepository.findByIntervalTypeAndDateRange(intervalType, startDate, endDate);
-        return entities.stream()
-                .map(PriceDto::new)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public void writePriceDataByDateRange(String symbol, PriceEntity.IntervalType intervalType, LocalDateTime startDate,
+                                          LocalDateTime endDate, Integer maxPoints, OutputStream out) throws IOException {
+        RangeDownsampler downsampler = maxPoints != null
+                ? new RangeDownsampler(startDate, endDate, maxPoints, Timeframe.of(intervalType).shift(0, 1))
+                : null;
+        try (Stream<PriceEntity> entities = priceRepository.streamBySymbolAndIntervalTypeAndDateRange(symbol, intervalType, startDate, endDate);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                     .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.writeStartArray();
+            Iterator<PriceEntity> iterator = entities.iterator();
+            while (iterator.hasNext()) {
+                PriceEntity entity = iterator.next();
+                PriceDto dto = new PriceDto(entity);
+                entityManager.detach(entity);
+                PriceDto closed = downsampler != null ? downsampler.accept(dto) : dto;
+                if (closed != null) {
+                    generator.writeObject(closed);
+                }
+            }
+            PriceDto tail = downsampler != null ? downsampler.flush() : null;
+            if (tail != null) {
+                generator.writeObject(tail);
+            }
+            generator.writeEndArray();
+        }
     }
     
     /**
      * En son fiyat verisini getirir
      */
-    public PriceDto getLatestPrice(PriceEntity.IntervalType intervalType) {
-        PriceEntity entity = priceRepository.findLatestByIntervalType(intervalType);
+    public PriceDto getLatestPrice(String symbol, PriceEntity.IntervalType intervalType) {
+        PriceEntity entity = hotTierCache.findLatest(symbol, intervalType);
         return entity != null ? new PriceDto(entity) : null;
     }
 
@@ -430,6 +682,16 @@ public class PriceService {
         return SignalDto.SignalType.HOLD;
     }
 
+    private static class ChartSeries {
+        final long version;
+        final List<PriceDto> bars;
+
+        ChartSeries(long version, List<PriceDto> bars) {
+            this.version = version;
+            this.bars = bars;
+        }
+    }
+
     /**
      * Detaylı analiz sonuçlarını tutan sınıf
      */
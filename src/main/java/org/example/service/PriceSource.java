@@ -0,0 +1,26 @@
+package org.example.service;
+
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+/**
+ * Anlık fiyat sağlayıcısı. PriceQuoteService kaynakları hedge'li olarak yarıştırır ve aralarındaki farkı izler.
+ */
+public interface PriceSource {
+
+    /**
+     * Yanıtlarda ve gecikme istatistiklerinde görünen kaynak adı
+     */
+    String getName();
+
+    /**
+     * Kaynak bu sembol için fiyat verebiliyor mu
+     */
+    boolean supports(String symbol);
+
+    /**
+     * Sembolün anlık fiyatını bloklamadan çeker; priority dış istek bütçesindeki sırayı belirler
+     */
+    Mono<BigDecimal> fetchPrice(String symbol, OutboundRequestScheduler.Priority priority);
+}
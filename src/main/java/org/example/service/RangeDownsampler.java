@@ -0,0 +1,112 @@
+package org.example.service;
+
+import org.example.dto.PriceDto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Uzun bir tarih aralığını en fazla maxPoints noktaya indirir: aralık eşit genişlikte zaman bucket'larına bölünür
+ * ve her bucket tek bar olur (open ilk, close son, high/low uç, hacim toplam). Tepe ve dipler korunur;
+ * overlay alanları bucket'ın son barından (kapanışla aynı nokta) alınır. Tek geçişte, sabit bellekle çalışır.
+ */
+public class RangeDownsampler {
+
+    private final long rangeStart;
+    private final long bucketSeconds;
+
+    private PriceDto current;
+    private long currentBucket = Long.MIN_VALUE;
+    private int emitted;
+
+    /**
+     * @param barSeconds kaynak barın süresi; bucket bundan dar olamaz (bu durumda barlar olduğu gibi geçer)
+     */
+    public RangeDownsampler(LocalDateTime startDate, LocalDateTime endDate, int maxPoints, long barSeconds) {
+        if (maxPoints <= 0) {
+            throw new IllegalArgumentException("maxPoints must be positive.");
+        }
+        this.rangeStart = startDate.toEpochSecond(ZoneOffset.UTC);
+        long span = endDate.toEpochSecond(ZoneOffset.UTC) - rangeStart + 1;
+        this.bucketSeconds = Math.max(barSeconds, (span + maxPoints - 1) / maxPoints);
+    }
+
+    /**
+     * Barı ekler; yeni bucket'a geçildiyse kapanan bucket'ın barını döner. Girdi zaman sırasında olmalıdır.
+     */
+    public PriceDto accept(PriceDto bar) {
+        long bucket = Math.floorDiv(bar.getTimestamp().toEpochSecond(ZoneOffset.UTC) - rangeStart, bucketSeconds);
+        if (current != null && bucket == currentBucket) {
+            merge(current, bar);
+            return null;
+        }
+        PriceDto closed = flush();
+        current = copy(bar);
+        currentBucket = bucket;
+        return closed;
+    }
+
+    /**
+     * Açık bucket'ı kapatıp döner (yoksa null)
+     */
+    public PriceDto flush() {
+        PriceDto closed = current;
+        if (closed != null) {
+            emitted++;
+            current = null;
+        }
+        return closed;
+    }
+
+    public long getBucketSeconds() {
+        return bucketSeconds;
+    }
+
+    public int getEmitted() {
+        return emitted;
+    }
+
+    private static void merge(PriceDto target, PriceDto bar) {
+        if (bar.getHighPrice() != null && (target.getHighPrice() == null || bar.getHighPrice().compareTo(target.getHighPrice()) > 0)) {
+            target.setHighPrice(bar.getHighPrice());
+        }
+        if (bar.getLowPrice() != null && (target.getLowPrice() == null || bar.getLowPrice().compareTo(target.getLowPrice()) < 0)) {
+            target.setLowPrice(bar.getLowPrice());
+        }
+        target.setClosePrice(bar.getClosePrice());
+        if (bar.getVolume() != null) {
+            target.setVolume(target.getVolume() != null ? target.getVolume().add(bar.getVolume()) : bar.getVolume());
+        }
+        target.setSma20(bar.getSma20());
+        target.setSma50(bar.getSma50());
+        target.setSma200(bar.getSma200());
+        target.setSuperTrend(bar.getSuperTrend());
+        target.setVwap(bar.getVwap());
+        target.setBollingerUpper(bar.getBollingerUpper());
+        target.setBollingerLower(bar.getBollingerLower());
+        // Birleşmiş barın tek bir kaydı yok
+        target.setId(null);
+    }
+
+    private static PriceDto copy(PriceDto bar) {
+        PriceDto dto = new PriceDto();
+        dto.setId(bar.getId());
+        dto.setSymbol(bar.getSymbol());
+        dto.setTimestamp(bar.getTimestamp());
+        dto.setOpenPrice(bar.getOpenPrice());
+        dto.setHighPrice(bar.getHighPrice());
+        dto.setLowPrice(bar.getLowPrice());
+        dto.setClosePrice(bar.getClosePrice());
+        dto.setVolume(bar.getVolume());
+        dto.setIntervalType(bar.getIntervalType());
+        dto.setCreatedAt(bar.getCreatedAt());
+        dto.setSma20(bar.getSma20());
+        dto.setSma50(bar.getSma50());
+        dto.setSma200(bar.getSma200());
+        dto.setSuperTrend(bar.getSuperTrend());
+        dto.setVwap(bar.getVwap());
+        dto.setBollingerUpper(bar.getBollingerUpper());
+        dto.setBollingerLower(bar.getBollingerLower());
+        return dto;
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.service;
+
+import org.example.entity.PriceEntity;
+import org.example.entity.Timeframe;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Zaman sırasıyla gelen barları tek geçişte hedef zaman diliminin UTC hizalı bucket'larına toplar
+ * (open ilk, close son, high/low uç, hacim toplam). Boş bucket üretilmez; veri boşluğu olan bucket
+ * eksik bar sayısıyla, devam eden son bucket da flush ile mevcut barlardan üretilir.
+ */
+public class Resampler {
+
+    private final Timeframe target;
+    // Kaynak barların zaman dilimi; null ise (ham fiyat noktaları) bucket tamlığı bilinmez
+    private final Timeframe base;
+
+    private String symbol;
+    private long bucketStart;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private BigDecimal open;
+    private BigDecimal high;
+    private BigDecimal low;
+    private BigDecimal close;
+    private BigDecimal volume;
+    private int barCount;
+
+    public Resampler(Timeframe target) {
+        this(null, target);
+    }
+
+    public Resampler(Timeframe base, Timeframe target) {
+        if (base != null && !target.isAlignedWith(base)) {
+            throw new IllegalArgumentException("Interval " + target + " cannot be built from " + base + " bars");
+        }
+        this.base = base;
+        this.target = target;
+    }
+
+    /**
+     * Tüm barları toplar; girdi zaman sırasında olmalıdır
+     */
+    public static List<Bucket> resample(Iterable<PriceEntity> bars, Timeframe base, Timeframe target) {
+        Resampler resampler = new Resampler(base, target);
+        List<Bucket> buckets = new ArrayList<>();
+        for (PriceEntity bar : bars) {
+            Bucket closed = resampler.accept(bar);
+            if (closed != null) {
+                buckets.add(closed);
+            }
+        }
+        Bucket tail = resampler.flush();
+        if (tail != null) {
+            buckets.add(tail);
+        }
+        return buckets;
+    }
+
+    /**
+     * Barı devam eden bucket'a ekler. Bar yeni bir bucket'a düşüyorsa kapanan bucket'ı döner, yoksa null.
+     */
+    public Bucket accept(PriceEntity bar) {
+        long timestamp = bar.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+        if (timestamp < lastTimestamp) {
+            throw new IllegalArgumentException("Bars must be in ascending order: " + bar.getTimestamp());
+        }
+        lastTimestamp = timestamp;
+        long start = target.bucketStart(timestamp);
+        Bucket closed = null;
+        if (barCount > 0 && start != bucketStart) {
+            closed = flush();
+        }
+        if (barCount == 0) {
+            symbol = bar.getSymbol();
+            bucketStart = start;
+            open = bar.getOpenPrice();
+            high = bar.getHighPrice();
+            low = bar.getLowPrice();
+            volume = bar.getVolume();
+        } else {
+            high = high.max(bar.getHighPrice());
+            low = low.min(bar.getLowPrice());
+            volume = volume.add(bar.getVolume());
+        }
+        close = bar.getClosePrice();
+        barCount++;
+        return closed;
+    }
+
+    /**
+     * Devam eden bucket'ı (eksik olsa da) kapatıp döner; bucket boşsa null
+     */
+    public Bucket flush() {
+        if (barCount == 0) {
+            return null;
+        }
+        boolean complete = base != null && barCount >= target.barsPerBucket(bucketStart, base);
+        Bucket bucket = new Bucket(symbol, LocalDateTime.ofEpochSecond(bucketStart, 0, ZoneOffset.UTC),
+                LocalDateTime.ofEpochSecond(target.shift(bucketStart, 1), 0, ZoneOffset.UTC),
+                open, high, low, close, volume, barCount, complete);
+        barCount = 0;
+        return bucket;
+    }
+
+    public static class Bucket {
+        public final String symbol;
+        public final LocalDateTime timestamp;
+        public final LocalDateTime end;
+        public final BigDecimal open;
+        public final BigDecimal high;
+        public final BigDecimal low;
+        public final BigDecimal close;
+        public final BigDecimal volume;
+        public final int barCount;
+        // Bucket'ın tüm base barları mevcut mu (boşluk ya da devam eden bar yoksa true)
+        public final boolean complete;
+
+        public Bucket(String symbol, LocalDateTime timestamp, LocalDateTime end, BigDecimal open, BigDecimal high,
+                      BigDecimal low, BigDecimal close, BigDecimal volume, int barCount, boolean complete) {
+            this.symbol = symbol;
+            this.timestamp = timestamp;
+            this.end = end;
+            this.open = open;
+            this.high = high;
+            this.low = low;
+            this.close = close;
+            this.volume = volume;
+            this.barCount = barCount;
+            this.complete = complete;
+        }
+
+        public PriceEntity toEntity(PriceEntity.IntervalType intervalType) {
+            return new PriceEntity(symbol, timestamp, open, high, low, close, volume, intervalType);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.entity.PriceEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Sık okunan yanıtların veri sürümü başına bir kez serileştirilmiş hali (düz ve gzip byte dizisi).
+ * Anahtar yanıtın ETag'idir (endpoint, sembol, interval, parametreler ve veri sürümünden türetilir);
+ * ilgili (sembol, interval) için yeni bar geldiğinde girdiler silinir.
+ */
+@Service
+public class ResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // Bu boyutun altındaki gövdeler sıkıştırılmaz
+    @Value("${app.response-cache.gzip-min-bytes:512}")
+    private int gzipMinBytes;
+
+    public ResponseCache(ObjectMapper objectMapper, @Value("${app.response-cache.max-entries:256}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        // Erişim sıralı LRU
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Gövdeyi serileştirip (byte[] ise olduğu gibi) saklar ve döner
+     */
+    public Entry put(String key, String symbol, PriceEntity.IntervalType intervalType, String contentType, Object body) {
+        byte[] identity;
+        try {
+            identity = body instanceof byte[] bytes ? bytes : objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response could not be serialized", e);
+        }
+        Entry entry = new Entry(symbol, intervalType, contentType, identity,
+                identity.length >= gzipMinBytes ? gzip(identity) : null);
+        synchronized (this) {
+            entries.put(key, entry);
+        }
+        return entry;
+    }
+
+    @EventListener
+    public void onBarsUpdated(BarsUpdatedEvent event) {
+        Set<String> changed = new HashSet<>();
+        for (PriceEntity bar : event.getBars()) {
+            changed.add(bar.getSymbol() + ":" + bar.getIntervalType().getValue());
+        }
+        synchronized (this) {
+            entries.values().removeIf(entry -> changed.contains(entry.symbol + ":" + entry.intervalType.getValue()));
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        return Map.of("entries", entries.size(), "hits", hits.get(), "misses", misses.get());
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static class Entry {
+        public final String symbol;
+        public final PriceEntity.IntervalType intervalType;
+        public final String contentType;
+        public final byte[] identity;
+        // Küçük gövdelerde null
+        public final byte[] gzip;
+
+        public Entry(String symbol, PriceEntity.IntervalType intervalType, String contentType, byte[] identity,
+                     byte[] gzip) {
+            this.symbol = symbol;
+            this.intervalType = intervalType;
+            this.contentType = contentType;
+            this.identity = identity;
+            this.gzip = gzip;
+        }
+    }
+}
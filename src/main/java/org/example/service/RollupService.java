@@ -0,0 +1,184 @@
+package org.example.service;
+
+import org.example.entity.PriceEntity;
+import org.example.entity.Timeframe;
+import org.example.repository.PriceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 4H ve 1D barları kayıtlı 1H barlardan UTC sınırlarına hizalı olarak türetir.
+ * Yeni saatlik barlar geldiğinde sadece etkilenen bucket'lar (devam eden dahil) yeniden hesaplanır.
+ * Saatleri eksik (boşluklu) geçmiş bucket'lar, kayıtlı (ör. exchange'den seed edilmiş) barın üzerine
+ * tüm saatler gelene kadar yazılmaz.
+ */
+@Service
+public class RollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RollupService.class);
+
+    public static final List<PriceEntity.IntervalType> DERIVED_INTERVALS =
+            List.of(PriceEntity.IntervalType.FOUR_HOURS, PriceEntity.IntervalType.ONE_DAY);
+
+    private final PriceRepository priceRepository;
+    private final HotTierCache hotTierCache;
+
+    public RollupService(PriceRepository priceRepository, HotTierCache hotTierCache) {
+        this.priceRepository = priceRepository;
+        this.hotTierCache = hotTierCache;
+    }
+
+    /**
+     * Yeni kaydedilen saatlik barların düştüğü 4H/1D bucket'larını kayıtlı saatlik barlardan yeniden üretir.
+     * Barların hepsi aynı sembole ait olmalıdır.
+     */
+    @Transactional
+    public List<PriceEntity> rollup(List<PriceEntity> hourlyBars) {
+        List<PriceEntity> result = new ArrayList<>();
+        if (hourlyBars == null || hourlyBars.isEmpty()) {
+            return result;
+        }
+        String symbol = hourlyBars.get(0).getSymbol();
+        LocalDateTime min = hourlyBars.get(0).getTimestamp();
+        LocalDateTime max = min;
+        for (PriceEntity bar : hourlyBars) {
+            if (bar.getTimestamp().isBefore(min)) min = bar.getTimestamp();
+            if (bar.getTimestamp().isAfter(max)) max = bar.getTimestamp();
+        }
+        PriceEntity latest = priceRepository.findLatestBySymbolAndIntervalType(symbol, PriceEntity.IntervalType.ONE_HOUR);
+        for (PriceEntity.IntervalType target : DERIVED_INTERVALS) {
+            LocalDateTime from = bucketStart(min, target);
+            LocalDateTime to = bucketStart(max, target).plus(target.getDuration()).minusSeconds(1);
+            List<PriceEntity> source = priceRepository.findBySymbolAndIntervalTypeAndDateRange(
+                    symbol, PriceEntity.IntervalType.ONE_HOUR, from, to);
+            // Son saatlik barı içeren bucket henüz devam ediyor; onun dışındaki eksik bucket'lar veri boşluğudur
+            LocalDateTime forming = latest != null ? bucketStart(latest.getTimestamp(), target) : null;
+            List<PriceEntity> buckets = new ArrayList<>();
+            Set<LocalDateTime> gaps = new HashSet<>();
+            for (Resampler.Bucket bucket : Resampler.resample(source, Timeframe.of(PriceEntity.IntervalType.ONE_HOUR),
+                    Timeframe.of(target))) {
+                buckets.add(bucket.toEntity(target));
+                if (!bucket.complete && !bucket.timestamp.equals(forming)) {
+                    gaps.add(bucket.timestamp);
+                }
+            }
+            List<PriceEntity> saved = upsert(buckets, target, gaps);
+            logger.info("Rolled up {} {} bars from {} hourly bars", saved.size(), target, source.size());
+            result.addAll(saved);
+        }
+        return result;
+    }
+
+    /**
+     * Barları hedef interval'ın UTC hizalı bucket'larına toplar (open ilk, close son, high/low uç, hacim toplam).
+     * Boş bucket üretilmez; son bucket eksikse de (devam eden bar) mevcut barlarla oluşturulur.
+     */
+    public List<PriceEntity> aggregate(List<PriceEntity> bars, PriceEntity.IntervalType target) {
+        List<PriceEntity> sorted = new ArrayList<>(bars);
+        sorted.sort(Comparator.comparing(PriceEntity::getTimestamp));
+        List<PriceEntity> buckets = new ArrayList<>();
+        for (Resampler.Bucket bucket : Resampler.resample(sorted, null, Timeframe.of(target))) {
+            buckets.add(bucket.toEntity(target));
+        }
+        return buckets;
+    }
+
+    /**
+     * Bucket barlarını tek transaction'da kaydeder: aynı timestamp'li kayıt varsa günceller, yoksa ekler
+     * (tek sembolün barları). Eşzamanlı bir ekleme (sembol, interval, timestamp) unique index'ine takılırsa
+     * tüm liste geri alınır ve hata çağırana döner. Hot tier commit'ten sonra güncellenir.
+     */
+    @Transactional
+    public List<PriceEntity> upsert(List<PriceEntity> buckets, PriceEntity.IntervalType target) {
+        return upsert(buckets, target, Set.of());
+    }
+
+    /**
+     * gaps: saatleri eksik bucket'lar; kayıtlı karşılıkları varsa üzerine yazılmaz, sadece yoksa eklenir
+     */
+    private List<PriceEntity> upsert(List<PriceEntity> buckets, PriceEntity.IntervalType target,
+                                     Set<LocalDateTime> gaps) {
+        if (buckets.isEmpty()) {
+            return buckets;
+        }
+        LocalDateTime from = buckets.get(0).getTimestamp();
+        LocalDateTime to = buckets.get(buckets.size() - 1).getTimestamp();
+        Map<LocalDateTime, PriceEntity> existing = new HashMap<>();
+        String symbol = buckets.get(0).getSymbol();
+        for (PriceEntity entity : priceRepository.findBySymbolAndIntervalTypeAndDateRange(symbol, target, from, to)) {
+            existing.put(entity.getTimestamp(), entity);
+        }
+        List<PriceEntity> toSave = new ArrayList<>(buckets.size());
+        for (PriceEntity bucket : buckets) {
+            PriceEntity stored = existing.get(bucket.getTimestamp());
+            if (stored == null) {
+                toSave.add(bucket);
+            } else if (gaps.contains(bucket.getTimestamp())) {
+                logger.debug("Keeping stored {} {} bar at {}: hourly bars are incomplete", symbol, target,
+                        bucket.getTimestamp());
+            } else if (differs(stored, bucket)) {
+                stored.setOpenPrice(bucket.getOpenPrice());
+                stored.setHighPrice(bucket.getHighPrice());
+                stored.setLowPrice(bucket.getLowPrice());
+                stored.setClosePrice(bucket.getClosePrice());
+                stored.setVolume(bucket.getVolume());
+                toSave.add(stored);
+            }
+        }
+        if (toSave.isEmpty()) {
+            return toSave;
+        }
+        List<PriceEntity> saved = priceRepository.saveAll(toSave);
+        afterCommit(() -> hotTierCache.append(saved));
+        return saved;
+    }
+
+    /**
+     * Aktif transaction varsa işi commit sonrasına bırakır (geri alınan barlar hot tier'a yansımaz), yoksa hemen çalıştırır
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Timestamp'in düştüğü bucket'ın başlangıcı (epoch'a göre, UTC)
+     */
+    public static LocalDateTime bucketStart(LocalDateTime timestamp, PriceEntity.IntervalType intervalType) {
+        return Timeframe.of(intervalType).bucketStart(timestamp);
+    }
+
+    private static boolean differs(PriceEntity a, PriceEntity b) {
+        return !sameValue(a.getOpenPrice(), b.getOpenPrice())
+                || !sameValue(a.getHighPrice(), b.getHighPrice())
+                || !sameValue(a.getLowPrice(), b.getLowPrice())
+                || !sameValue(a.getClosePrice(), b.getClosePrice())
+                || !sameValue(a.getVolume(), b.getVolume());
+    }
+
+    private static boolean sameValue(BigDecimal a, BigDecimal b) {
+        return a.compareTo(b) == 0;
+    }
+}
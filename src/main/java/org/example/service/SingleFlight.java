@@ -0,0 +1,88 @@
+package org.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Aynı anahtarla eş zamanlı gelen istekleri tek hesaplamada birleştirir: ilk gelen hesaplar, hesaplama sürerken
+ * gelenler aynı sonucu (ya da hatayı) bekler. Anahtar veri sürümünü içerdiğinden (ETag) yeni bar gelince yeni
+ * hesaplama başlar; biten hesaplamanın sonucu burada tutulmaz (saklama ResponseCache'in işidir).
+ * Bekleyenler en fazla wait-timeout kadar bekler; takılan hesaplamanın ardından kendileri hesaplar.
+ */
+@Service
+public class SingleFlight {
+
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlight.class);
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final long waitTimeout;
+
+    public SingleFlight(@Value("${app.single-flight.wait-timeout:5000}") long waitTimeout) {
+        this.waitTimeout = waitTimeout;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> supplier) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            try {
+                return (T) existing.get(waitTimeout, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Takılan hesaplama bekleyenleri de kilitlemesin: paylaşmadan kendimiz hesaplarız
+                timedOut.incrementAndGet();
+                logger.warn("Single-flight wait for {} exceeded {}ms, computing independently", key, waitTimeout);
+                return supplier.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for " + key, e);
+            }
+        }
+        executions.incrementAndGet();
+        try {
+            T result = supplier.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long executed = executions.get();
+        long joined = coalesced.get();
+        long total = executed + joined;
+        return Map.of(
+                "executions", executed,
+                "coalesced", joined,
+                "inFlight", inFlight.size(),
+                "timedOut", timedOut.get(),
+                "coalescingRate", total > 0 ? (double) joined / total : 0.0);
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.service;
+
+import org.example.entity.FixedPoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Takip edilen işlem çiftleri. app.symbols girdileri SEMBOL[:coingeckoId] biçimindedir;
+ * CoinGecko id'si olmayan sembollerin türetilmiş interval tohumları da Binance'ten çekilir.
+ * Sabit nokta ölçeği sembol başınadır: app.fixed-point.scales (SEMBOL:ölçek) ile verilmeyenler app.fixed-point.scale kullanır.
+ * Hacimlerin ayrı, daha küçük ölçeği vardır (app.fixed-point.volume-scale / volume-scales): büyük quote hacimleri long'a sığar.
+ */
+@Service
+public class SymbolRegistry {
+
+    // Hacim kolonu (precision 20, scale 8) 1e12'nin altındaki değerleri tutar; × 1e6 long'a her zaman sığar
+    static final int DEFAULT_VOLUME_SCALE = 6;
+
+    private final List<String> symbols;
+    private final Map<String, String> coingeckoIds = new HashMap<>();
+    private final Map<String, FixedPoint> fixedPoints = new HashMap<>();
+    private final FixedPoint defaultFixedPoint;
+    private final Map<String, FixedPoint> volumeFixedPoints = new HashMap<>();
+    private final FixedPoint defaultVolumeFixedPoint;
+
+    public SymbolRegistry(List<String> entries) {
+        this(entries, FixedPoint.DEFAULT.getScale(), List.of());
+    }
+
+    public SymbolRegistry(List<String> entries, int defaultScale, List<String> scales) {
+        this(entries, defaultScale, scales, DEFAULT_VOLUME_SCALE, List.of());
+    }
+
+    @Autowired
+    public SymbolRegistry(@Value("${app.symbols:BTCUSDT:bitcoin}") List<String> entries,
+                          @Value("${app.fixed-point.scale:8}") int defaultScale,
+                          @Value("${app.fixed-point.scales:}") List<String> scales,
+                          @Value("${app.fixed-point.volume-scale:6}") int defaultVolumeScale,
+                          @Value("${app.fixed-point.volume-scales:}") List<String> volumeScales) {
+        List<String> parsed = new ArrayList<>();
+        for (String entry : entries) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int separator = trimmed.indexOf(':');
+            String symbol = (separator < 0 ? trimmed : trimmed.substring(0, separator)).toUpperCase(Locale.ROOT);
+            if (parsed.contains(symbol)) {
+                continue;
+            }
+            parsed.add(symbol);
+            if (separator >= 0 && separator < trimmed.length() - 1) {
+                coingeckoIds.put(symbol, trimmed.substring(separator + 1));
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalStateException("app.symbols must contain at least one symbol");
+        }
+        this.symbols = Collections.unmodifiableList(parsed);
+        this.defaultFixedPoint = FixedPoint.ofScale(defaultScale);
+        parseScales(scales, "app.fixed-point.scales", fixedPoints);
+        this.defaultVolumeFixedPoint = FixedPoint.ofScale(defaultVolumeScale);
+        parseScales(volumeScales, "app.fixed-point.volume-scales", volumeFixedPoints);
+    }
+
+    private static void parseScales(List<String> entries, String property, Map<String, FixedPoint> target) {
+        for (String entry : entries) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int separator = trimmed.indexOf(':');
+            if (separator <= 0 || separator == trimmed.length() - 1) {
+                throw new IllegalStateException(property + " entries must be SYMBOL:scale: " + trimmed);
+            }
+            String symbol = trimmed.substring(0, separator).toUpperCase(Locale.ROOT);
+            target.put(symbol, FixedPoint.ofScale(Integer.parseInt(trimmed.substring(separator + 1).trim())));
+        }
+    }
+
+    /**
+     * Takip edilen semboller (yapılandırma sırasıyla)
+     */
+    public List<String> getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Sembol parametresi verilmeyen istekler için ilk yapılandırılan sembol
+     */
+    public String getDefaultSymbol() {
+        return symbols.get(0);
+    }
+
+    /**
+     * Sembolün CoinGecko coin id'si (yoksa null)
+     */
+    public String getCoingeckoId(String symbol) {
+        return coingeckoIds.get(symbol);
+    }
+
+    /**
+     * Sembolün fiyatlarının sabit nokta ölçeği (tanımlı değilse varsayılan ölçek)
+     */
+    public FixedPoint getFixedPoint(String symbol) {
+        return fixedPoints.getOrDefault(symbol, defaultFixedPoint);
+    }
+
+    /**
+     * Sembolün hacimlerinin sabit nokta ölçeği (tanımlı değilse varsayılan hacim ölçeği)
+     */
+    public FixedPoint getVolumeFixedPoint(String symbol) {
+        return volumeFixedPoints.getOrDefault(symbol, defaultVolumeFixedPoint);
+    }
+
+    /**
+     * İstekteki sembolü normalize eder; boşsa varsayılanı döner, takip edilmiyorsa IllegalArgumentException
+     */
+    public String resolve(String input) {
+        if (input == null || input.isBlank()) {
+            return getDefaultSymbol();
+        }
+        String symbol = input.trim().toUpperCase(Locale.ROOT);
+        if (!symbols.contains(symbol)) {
+            throw new IllegalArgumentException("Unknown symbol: " + input);
+        }
+        return symbol;
+    }
+}
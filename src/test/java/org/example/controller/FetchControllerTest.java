@@ -13,8 +13,13 @@ class FetchControllerTest {
     @Test
     void testFetchData_InvalidInterval_ReturnsBadRequest() {
         FetchService fetchService = org.mockito.Mockito.mock(FetchService.class);
-        FetchController controller = new FetchController(fetchService);
-        ResponseEntity<Object> response = controller.fetchData("99h");
+        FetchController controller = new FetchController(fetchService,
+                org.mockito.Mockito.mock(org.example.service.BackfillService.class),
+                org.mockito.Mockito.mock(org.example.service.OutboundRequestScheduler.class),
+                org.mockito.Mockito.mock(org.example.service.FetchScheduler.class),
+                org.mockito.Mockito.mock(org.example.service.FetchJobService.class),
+                new org.example.service.SymbolRegistry(java.util.List.of("BTCUSDT:bitcoin")));
+        ResponseEntity<Object> response = controller.fetchData("99h", null);
         assertEquals(400, response.getStatusCodeValue());
         Map<?,?> body = (Map<?,?>) response.getBody();
         assertNotNull(body);
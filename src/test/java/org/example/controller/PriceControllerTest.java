@@ -0,0 +1,26 @@
+package org.example.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceControllerTest {
+
+    @Test
+    void gzipIsServedOnlyWhenAcceptedWithPositiveQuality() {
+        assertTrue(PriceController.acceptsGzip("gzip, deflate, br"));
+        assertTrue(PriceController.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(PriceController.acceptsGzip("*"));
+        assertTrue(PriceController.acceptsGzip("x-gzip"));
+
+        assertFalse(PriceController.acceptsGzip(null));
+        assertFalse(PriceController.acceptsGzip("identity"));
+        assertFalse(PriceController.acceptsGzip("gzip;q=0"));
+        assertFalse(PriceController.acceptsGzip("gzip; q=0.000, *"));
+        // Açık gzip girdisi joker karakterden önce gelir
+        assertFalse(PriceController.acceptsGzip("*;q=0.5, gzip;q=0"));
+        assertFalse(PriceController.acceptsGzip("*;q=0"));
+        // Alt dize eşleşmesi yeterli değil
+        assertFalse(PriceController.acceptsGzip("notgzip"));
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlTest {
+
+    private static AdmissionControl control(int maxConcurrent, int queueSize, double rate, int burst) {
+        return new AdmissionControl(true, 3, 100, maxConcurrent, queueSize, 50, rate, burst,
+                maxConcurrent, queueSize, 50, rate, burst);
+    }
+
+    @Test
+    void classifiesOnlyHeavyEndpoints() {
+        AdmissionControl control = control(1, 0, 0, 1);
+        assertEquals(AdmissionControl.EndpointClass.HISTORY, control.classify("/api/price/1h"));
+        assertEquals(AdmissionControl.EndpointClass.HISTORY, control.classify("/api/price/1d/range"));
+        assertEquals(AdmissionControl.EndpointClass.COMPUTE, control.classify("/api/signal/1h"));
+        assertEquals(AdmissionControl.EndpointClass.COMPUTE, control.classify("/api/signals/4h"));
+        assertNull(control.classify("/api/price/1h/latest"));
+        assertNull(control.classify("/api/price/1h/latest/300"));
+        assertNull(control.classify("/api/health"));
+        assertNull(control.classify("/api/stream/1h"));
+    }
+
+    @Test
+    void bulkheadRejectsWhenFullAndQueueTimesOut() throws Exception {
+        AdmissionControl control = control(1, 1, 0, 1);
+        assertTrue(control.admit(AdmissionControl.EndpointClass.HISTORY, "a").admitted);
+
+        // Kuyruğa alınır, çağıran thread beklemez; 50 ms içinde izin boşalmaz: 503
+        AdmissionControl.Admission queued = control.admit(AdmissionControl.EndpointClass.HISTORY, "b");
+        assertTrue(queued.isQueued());
+        assertFalse(control.admit(AdmissionControl.EndpointClass.HISTORY, "c").admitted);
+        AdmissionControl.Admission timedOut = queued.pending.get(5, java.util.concurrent.TimeUnit.SECONDS);
+        assertFalse(timedOut.admitted);
+        assertEquals(503, timedOut.status);
+        assertEquals(3, timedOut.retryAfterSeconds);
+
+        // Diğer sınıf etkilenmez
+        assertTrue(control.admit(AdmissionControl.EndpointClass.COMPUTE, "a").admitted);
+
+        control.release(AdmissionControl.EndpointClass.HISTORY);
+        assertTrue(control.admit(AdmissionControl.EndpointClass.HISTORY, "b").admitted);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> history = (Map<String, Object>) control.getStats().get("history");
+        assertEquals(1, history.get("active"));
+        assertEquals(1L, history.get("rejectedTimeout"));
+        assertEquals(2L, history.get("admitted"));
+    }
+
+    @Test
+    void releaseHandsPermitToQueuedRequest() throws Exception {
+        AdmissionControl control = new AdmissionControl(true, 3, 100, 1, 2, 10_000, 0, 1,
+                1, 2, 10_000, 0, 1);
+        assertTrue(control.admit(AdmissionControl.EndpointClass.COMPUTE, "a").admitted);
+        AdmissionControl.Admission first = control.admit(AdmissionControl.EndpointClass.COMPUTE, "b");
+        AdmissionControl.Admission second = control.admit(AdmissionControl.EndpointClass.COMPUTE, "c");
+        assertTrue(first.isQueued());
+        assertTrue(second.isQueued());
+
+        // İzin sırayla doğrudan bekleyene geçer, aktif sayısı değişmez
+        control.release(AdmissionControl.EndpointClass.COMPUTE);
+        assertTrue(first.pending.get(1, java.util.concurrent.TimeUnit.SECONDS).admitted);
+        assertFalse(second.pending.isDone());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> compute = (Map<String, Object>) control.getStats().get("compute");
+        assertEquals(1, compute.get("active"));
+        assertEquals(1, compute.get("queued"));
+
+        control.release(AdmissionControl.EndpointClass.COMPUTE);
+        assertTrue(second.pending.get(1, java.util.concurrent.TimeUnit.SECONDS).admitted);
+        control.release(AdmissionControl.EndpointClass.COMPUTE);
+        compute = (Map<String, Object>) control.getStats().get("compute");
+        assertEquals(0, compute.get("active"));
+        control.shutdown();
+    }
+
+    @Test
+    void tokenBucketLimitsEachClientSeparately() {
+        AdmissionControl control = control(100, 0, 0.5, 2);
+        assertTrue(control.admit(AdmissionControl.EndpointClass.COMPUTE, "a").admitted);
+        assertTrue(control.admit(AdmissionControl.EndpointClass.COMPUTE, "a").admitted);
+
+        AdmissionControl.Admission limited = control.admit(AdmissionControl.EndpointClass.COMPUTE, "a");
+        assertFalse(limited.admitted);
+        assertEquals(429, limited.status);
+        // Saniyede 0.5 token: bir sonraki token ~2 sn sonra
+        assertEquals(2, limited.retryAfterSeconds);
+
+        assertTrue(control.admit(AdmissionControl.EndpointClass.COMPUTE, "b").admitted);
+    }
+}
@@ -0,0 +1,237 @@
+package org.example.service;
+
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.example.entity.BackfillChunk;
+import org.example.entity.BackfillJob;
+import org.example.entity.FixedPoint;
+import org.example.entity.PriceEntity;
+import org.example.repository.BackfillChunkRepository;
+import org.example.repository.BackfillJobRepository;
+import org.example.repository.PriceBulkRepository;
+import org.example.repository.PriceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BackfillServiceTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final Map<Long, BackfillJob> jobs = new ConcurrentHashMap<>();
+    private final List<BackfillChunk> chunks = new CopyOnWriteArrayList<>();
+    private final List<PriceEntity> inserted = new CopyOnWriteArrayList<>();
+    private DisposableServer server;
+    private PersistShards persistShards;
+    private BackfillJobRepository jobRepository;
+    private BackfillChunkRepository chunkRepository;
+    private HotTierCache hotTierCache;
+    private PlatformTransactionManager transactionManager;
+    private BackfillService service;
+
+    /**
+     * İstenen [startTime, endTime] aralığındaki saatlik barları üreten Binance kline taklidi
+     */
+    private Mono<String> klines(String uri) {
+        requests.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        Map<String, List<String>> params = new QueryStringDecoder(uri).parameters();
+        long start = Long.parseLong(params.get("startTime").get(0));
+        long end = Long.parseLong(params.get("endTime").get(0));
+        StringBuilder body = new StringBuilder("[");
+        for (long t = start; t <= end; t += 3_600_000L) {
+            if (body.length() > 1) {
+                body.append(',');
+            }
+            body.append('[').append(t).append(",\"100\",\"110\",\"90\",\"105\",\"2\",").append(t + 3_599_999L)
+                    .append(",\"0\",1,\"0\",\"0\",\"0\"]");
+        }
+        return Mono.just(body.append(']').toString())
+                .delayElement(Duration.ofMillis(100))
+                .doFinally(signal -> inFlight.decrementAndGet());
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.get("/api/v3/klines", (req, res) -> res.sendString(klines(req.uri()))))
+                .bindNow();
+
+        // Checkpoint tabloları bellekte
+        AtomicLong ids = new AtomicLong();
+        jobRepository = mock(BackfillJobRepository.class);
+        when(jobRepository.save(any())).thenAnswer(invocation -> {
+            BackfillJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(ids.incrementAndGet());
+            }
+            jobs.put(job.getId(), job);
+            return job;
+        });
+        when(jobRepository.findById(anyLong())).thenAnswer(invocation -> Optional.ofNullable(jobs.get(invocation.<Long>getArgument(0))));
+        when(jobRepository.findFirstBySymbolAndIntervalTypeAndStatus(any(), any(), any())).thenAnswer(invocation -> {
+            // Kontrol ile kayıt arasındaki pencereyi genişletir
+            Thread.sleep(20);
+            return jobs.values().stream()
+                    .filter(job -> job.getSymbol().equals(invocation.getArgument(0))
+                            && job.getIntervalType() == invocation.getArgument(1)
+                            && job.getStatus() == invocation.getArgument(2))
+                    .findFirst();
+        });
+        when(jobRepository.findByStatus(BackfillJob.Status.RUNNING)).thenAnswer(invocation -> jobs.values().stream()
+                .filter(job -> job.getStatus() == BackfillJob.Status.RUNNING).collect(Collectors.toList()));
+        chunkRepository = mock(BackfillChunkRepository.class);
+        when(chunkRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            chunks.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(chunkRepository.findByJobIdAndDoneFalseOrderByChunkStartAsc(anyLong())).thenAnswer(invocation -> chunks.stream()
+                .filter(chunk -> chunk.getJobId().equals(invocation.getArgument(0)) && !chunk.isDone())
+                .collect(Collectors.toList()));
+        PriceRepository priceRepository = mock(PriceRepository.class);
+        when(priceRepository.findBySymbolAndIntervalTypeAndDateRange(any(), any(), any(), any())).thenReturn(new ArrayList<>());
+        PriceBulkRepository bulkRepository = mock(PriceBulkRepository.class);
+        when(bulkRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<PriceEntity> bars = invocation.getArgument(0);
+            inserted.addAll(bars);
+            return bars.size();
+        });
+
+        hotTierCache = mock(HotTierCache.class);
+        when(hotTierCache.getFixedPoint(anyString())).thenReturn(FixedPoint.DEFAULT);
+        when(hotTierCache.getVolumeFixedPoint(anyString())).thenReturn(FixedPoint.ofScale(6));
+
+        transactionManager = mock(PlatformTransactionManager.class);
+        persistShards = new PersistShards(1, 100);
+        service = new BackfillService(jobRepository, chunkRepository, priceRepository, bulkRepository,
+                mock(RollupService.class), hotTierCache,
+                WebClient.create("http://localhost:" + server.port()), persistShards,
+                new OutboundRequestScheduler(6000, 60), new TransactionTemplate(transactionManager));
+        setField("chunkBars", 24);
+        setField("parallelism", 2);
+        setField("maxRetries", 0);
+        setField("rollupEnabled", false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.disposeNow();
+        persistShards.dispose();
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        java.lang.reflect.Field field = BackfillService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(service, value);
+    }
+
+    private BackfillJob awaitFinished(Long jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (jobs.get(jobId).getStatus() == BackfillJob.Status.RUNNING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        return jobs.get(jobId);
+    }
+
+    @Test
+    void loadsRangeInChunksWithBoundedParallelism() throws Exception {
+        BackfillJob job = service.start("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, FROM, FROM.plusDays(5));
+
+        BackfillJob finished = awaitFinished(job.getId());
+
+        assertEquals(BackfillJob.Status.COMPLETED, finished.getStatus());
+        assertEquals(5, finished.getTotalChunks());
+        assertEquals(5, finished.getCompletedChunks());
+        assertEquals(5, requests.get());
+        assertTrue(maxInFlight.get() <= 2, "parallelism exceeded: " + maxInFlight.get());
+        assertEquals(120, inserted.size());
+        assertEquals(120, finished.getBarsSaved());
+        assertEquals(FROM, inserted.stream().map(PriceEntity::getTimestamp).min(LocalDateTime::compareTo).orElseThrow());
+    }
+
+    @Test
+    void resumesOnlyPendingChunksAfterRestart() throws Exception {
+        // Önceki çalışmadan kalan iş: 3 chunk'tan ilki tamamlanmış
+        BackfillJob job = jobRepository.save(new BackfillJob("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, FROM, FROM.plusDays(3), 3));
+        job.setCompletedChunks(1);
+        for (int day = 0; day < 3; day++) {
+            BackfillChunk chunk = new BackfillChunk(job.getId(), FROM.plusDays(day), FROM.plusDays(day + 1));
+            chunk.setDone(day == 0);
+            chunks.add(chunk);
+        }
+
+        service.resume();
+        BackfillJob finished = awaitFinished(job.getId());
+
+        assertEquals(BackfillJob.Status.COMPLETED, finished.getStatus());
+        assertEquals(3, finished.getCompletedChunks());
+        assertEquals(2, requests.get());
+        assertEquals(48, inserted.size());
+        assertEquals(FROM.plusDays(1), inserted.stream().map(PriceEntity::getTimestamp).min(LocalDateTime::compareTo).orElseThrow());
+    }
+
+    @Test
+    void failedCheckpointRollsBackTheChunk() throws Exception {
+        when(chunkRepository.save(any())).thenThrow(new RuntimeException("checkpoint failed"));
+
+        BackfillJob job = service.start("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, FROM, FROM.plusDays(1));
+        BackfillJob finished = awaitFinished(job.getId());
+
+        // Barlar eklendi ama checkpoint yazılamadı: transaction geri alınır, hot tier'a hiçbir şey gitmez
+        assertEquals(BackfillJob.Status.FAILED, finished.getStatus());
+        assertEquals(0, finished.getCompletedChunks());
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verify(hotTierCache, never()).append(anyList());
+    }
+
+    @Test
+    void concurrentStartsForSameSymbolCreateOneJob() throws Exception {
+        int callers = 4;
+        java.util.concurrent.CountDownLatch ready = new java.util.concurrent.CountDownLatch(1);
+        List<java.util.concurrent.Future<BackfillJob>> results = new ArrayList<>();
+        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(callers);
+        try {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    ready.await();
+                    return service.start("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, FROM, FROM.plusDays(1));
+                }));
+            }
+            ready.countDown();
+            Long id = results.get(0).get().getId();
+            for (java.util.concurrent.Future<BackfillJob> result : results) {
+                assertEquals(id, result.get().getId());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, jobs.size());
+        awaitFinished(jobs.keySet().iterator().next());
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.service;
+
+import org.example.entity.PriceEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DataVersionServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private HotTierCache hotTierCache;
+    private DataVersionService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        hotTierCache = mock(HotTierCache.class);
+        service = new DataVersionService(hotTierCache);
+        setField("closeDelay", 2000L);
+        setField("hourlyIntrabarRefresh", 0L);
+        setField("fourHourIntrabarRefresh", 0L);
+        setField("dailyIntrabarRefresh", 0L);
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        java.lang.reflect.Field field = DataVersionService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(service, value);
+    }
+
+    private static PriceEntity bar(int hour, String close) {
+        BigDecimal price = new BigDecimal(close);
+        return new PriceEntity("BTCUSDT", START.plusHours(hour), price, price, price, price, BigDecimal.ONE,
+                PriceEntity.IntervalType.ONE_HOUR);
+    }
+
+    @Test
+    void etagChangesWithParamsAndWhenBarsAreUpdated() {
+        when(hotTierCache.findLatest("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR)).thenReturn(bar(5, "100"));
+
+        String etag = service.etag("latest", "BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, 300);
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertEquals(etag, service.etag("latest", "BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, 300));
+        assertNotEquals(etag, service.etag("latest", "BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, 200));
+        assertNotEquals(etag, service.etag("signal", "BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, 300));
+
+        // Devam eden bar yerinde güncellense de (aynı timestamp) sürüm artar
+        service.onBarsUpdated(new BarsUpdatedEvent(List.of(bar(5, "101"))));
+        String updated = service.etag("latest", "BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, 300);
+        assertNotEquals(etag, updated);
+
+        // Başka interval'ın güncellemesi etkilemez
+        service.onBarsUpdated(new BarsUpdatedEvent(List.of(new PriceEntity("BTCUSDT", START, BigDecimal.ONE,
+                BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, PriceEntity.IntervalType.ONE_DAY))));
+        assertEquals(updated, service.etag("latest", "BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, 300));
+    }
+
+    @Test
+    void maxAgeRunsUntilNextBarClose() throws Exception {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 13, 30, 0);
+        assertEquals(30 * 60 + 2, service.secondsUntilNextBar(PriceEntity.IntervalType.ONE_HOUR, now));
+        assertEquals(150 * 60 + 2, service.secondsUntilNextBar(PriceEntity.IntervalType.FOUR_HOURS, now));
+        assertEquals(630 * 60 + 2, service.secondsUntilNextBar(PriceEntity.IntervalType.ONE_DAY, now));
+
+        // Bar içi yenileme açıksa veri kapanıştan önce de değişir
+        setField("hourlyIntrabarRefresh", 60_000L);
+        assertEquals(60, service.secondsUntilNextBar(PriceEntity.IntervalType.ONE_HOUR, now));
+    }
+
+    @Test
+    void derivedIntervalsAreCappedAtHourlyCadenceWhenRolledUp() throws Exception {
+        setField("rollupEnabled", true);
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 13, 30, 0);
+        // Günlük bar 24:00'te kapanır ama devam eden bucket 14:00'teki saatlik kayıtla değişir
+        assertEquals(30 * 60 + 2, service.secondsUntilNextBar(PriceEntity.IntervalType.ONE_DAY, now));
+        assertEquals(30 * 60 + 2, service.secondsUntilNextBar(PriceEntity.IntervalType.FOUR_HOURS, now));
+
+        setField("hourlyIntrabarRefresh", 60_000L);
+        assertEquals(60, service.secondsUntilNextBar(PriceEntity.IntervalType.ONE_DAY, now));
+    }
+}
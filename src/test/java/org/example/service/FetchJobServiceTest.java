@@ -0,0 +1,71 @@
+package org.example.service;
+
+import org.example.entity.PriceEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FetchJobServiceTest {
+
+    private FetchService fetchService;
+    private ApplicationEventPublisher eventPublisher;
+    private FetchJobService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fetchService = mock(FetchService.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        service = new FetchJobService(fetchService, new SymbolRegistry(List.of("BTCUSDT:bitcoin", "ETHUSDT:ethereum")),
+                eventPublisher);
+        java.lang.reflect.Field field = FetchJobService.class.getDeclaredField("jobHistory");
+        field.setAccessible(true);
+        field.set(service, 50);
+    }
+
+    @Test
+    void deduplicatesRunningJobAndPublishesCompletion() {
+        Sinks.Empty<Void> remote = Sinks.empty();
+        when(fetchService.manualFetch(any(), eq(PriceEntity.IntervalType.ONE_DAY))).thenReturn(remote.asMono());
+
+        FetchJobService.FetchJob job = service.submit(null, PriceEntity.IntervalType.ONE_DAY);
+        assertEquals(FetchJobService.FetchJob.Status.RUNNING, job.getStatus());
+        assertEquals(List.of("BTCUSDT", "ETHUSDT"), job.getSymbols());
+        // Tüm semboller için süren iş, aynı interval'ın tek sembollük isteğini de karşılar
+        assertSame(job, service.submit(null, PriceEntity.IntervalType.ONE_DAY));
+        assertSame(job, service.submit("ETHUSDT", PriceEntity.IntervalType.ONE_DAY));
+        verify(fetchService, times(1)).manualFetch(any(), any());
+        verifyNoInteractions(eventPublisher);
+
+        remote.tryEmitEmpty();
+
+        assertEquals(FetchJobService.FetchJob.Status.COMPLETED, job.getStatus());
+        assertNotNull(job.getFinishedAt());
+        assertSame(job, service.getJob(job.getId()));
+        verify(eventPublisher).publishEvent(argThat((Object event) ->
+                event instanceof FetchJobFinishedEvent finished && finished.getJob() == job));
+
+        // Biten işten sonra yeni iş açılır
+        when(fetchService.manualFetch(any(), eq(PriceEntity.IntervalType.ONE_DAY))).thenReturn(Mono.empty());
+        assertNotSame(job, service.submit(null, PriceEntity.IntervalType.ONE_DAY));
+    }
+
+    @Test
+    void failedFetchMarksJobFailed() {
+        when(fetchService.manualFetch("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR))
+                .thenReturn(Mono.error(new IllegalStateException("timeout")));
+
+        FetchJobService.FetchJob job = service.submit("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR);
+
+        assertEquals(FetchJobService.FetchJob.Status.FAILED, job.getStatus());
+        assertEquals("timeout", job.getError());
+        assertEquals(List.of(job), service.getJobs());
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.service;
+
+import org.example.entity.PriceEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class FetchSchedulerTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long START = LocalDateTime.of(2024, 1, 1, 0, 30).toEpochSecond(ZoneOffset.UTC) * 1000;
+
+    private FetchService fetchService;
+    private KlineStreamService klineStreamService;
+    private FetchScheduler scheduler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fetchService = mock(FetchService.class);
+        when(fetchService.fetchAllIntervalDataAsync()).thenReturn(Mono.empty());
+        when(fetchService.refreshInterval(any())).thenReturn(Mono.empty());
+        klineStreamService = mock(KlineStreamService.class);
+        scheduler = new FetchScheduler(fetchService, klineStreamService);
+        setField("closeDelay", 2000L);
+        setField("jitter", 0L);
+        setField("retryDelay", 30_000L);
+        setField("hourlyIntrabarRefresh", 0L);
+        setField("fourHourIntrabarRefresh", 0L);
+        setField("dailyIntrabarRefresh", 0L);
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        java.lang.reflect.Field field = FetchScheduler.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(scheduler, value);
+    }
+
+    private void runFor(long from, long to, long step) {
+        for (long now = from; now < to; now += step) {
+            scheduler.tick(now);
+        }
+    }
+
+    @Test
+    void fetchesEachIntervalOncePerBarClose() {
+        // Bir gün boyunca dakikada bir tick
+        runFor(START, START + 24 * 60 * MINUTE, MINUTE);
+
+        verify(fetchService, times(1)).fetchAllIntervalDataAsync();
+        verify(fetchService, times(24)).refreshInterval(PriceEntity.IntervalType.ONE_HOUR);
+        verify(fetchService, times(6)).refreshInterval(PriceEntity.IntervalType.FOUR_HOURS);
+        verify(fetchService, times(1)).refreshInterval(PriceEntity.IntervalType.ONE_DAY);
+    }
+
+    @Test
+    void plansJustAfterCloseOrIntrabarRefresh() throws Exception {
+        long close = START + 30 * MINUTE;
+        assertEquals(close + 2000, scheduler.plan(PriceEntity.IntervalType.ONE_HOUR, START));
+        assertEquals(START + 210 * MINUTE + 2000, scheduler.plan(PriceEntity.IntervalType.FOUR_HOURS, START));
+
+        setField("hourlyIntrabarRefresh", 5 * MINUTE);
+        assertEquals(START + 5 * MINUTE, scheduler.plan(PriceEntity.IntervalType.ONE_HOUR, START));
+        // Kapanış intrabar adımından önce geliyorsa kapanış kazanır
+        assertEquals(close + 2000, scheduler.plan(PriceEntity.IntervalType.ONE_HOUR, close - MINUTE));
+    }
+
+    @Test
+    void catchesUpOnceAfterPauseAndRetriesFailures() {
+        scheduler.tick(START);
+        // 10 saatlik duraklama: kaçırılan her kapanış için değil, interval başına tek artımlı çekme
+        scheduler.tick(START + 10 * 60 * MINUTE);
+        verify(fetchService, times(1)).refreshInterval(PriceEntity.IntervalType.ONE_HOUR);
+        verify(fetchService, times(1)).refreshInterval(PriceEntity.IntervalType.FOUR_HOURS);
+        verify(fetchService, never()).refreshInterval(PriceEntity.IntervalType.ONE_DAY);
+
+        // Başarısız çekme bir sonraki kapanışı beklemeden retry-delay sonra tekrar denenir
+        when(fetchService.refreshInterval(PriceEntity.IntervalType.ONE_HOUR)).thenReturn(Mono.error(new RuntimeException("boom")));
+        long nextClose = START + 10 * 60 * MINUTE + 30 * MINUTE + 2000;
+        scheduler.tick(nextClose);
+        scheduler.tick(nextClose + 10_000);
+        scheduler.tick(nextClose + 30_000);
+        verify(fetchService, times(3)).refreshInterval(PriceEntity.IntervalType.ONE_HOUR);
+    }
+
+    @Test
+    void pollsOnlyWhileStreamIsDisconnected() {
+        when(klineStreamService.isConnected()).thenReturn(true);
+        runFor(START, START + 3 * 60 * MINUTE, MINUTE);
+        verifyNoInteractions(fetchService);
+
+        // Akış koptu: poll devreye girer
+        when(klineStreamService.isConnected()).thenReturn(false);
+        runFor(START + 3 * 60 * MINUTE, START + 5 * 60 * MINUTE, MINUTE);
+        verify(fetchService, times(1)).fetchAllIntervalDataAsync();
+        verify(fetchService, times(2)).refreshInterval(PriceEntity.IntervalType.ONE_HOUR);
+
+        // Yeniden bağlandı: poll durur
+        when(klineStreamService.isConnected()).thenReturn(true);
+        runFor(START + 5 * 60 * MINUTE, START + 8 * 60 * MINUTE, MINUTE);
+        verify(fetchService, times(2)).refreshInterval(PriceEntity.IntervalType.ONE_HOUR);
+    }
+}
@@ -0,0 +1,182 @@
+package org.example.service;
+
+import org.example.entity.FixedPoint;
+import org.example.entity.PriceEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FetchServiceTest {
+
+    private static final String KLINES = "[[1704067200000,\"42000.1\",\"42500\",\"41900\",\"42300\",\"12.5\",1704070799999,\"0\",1,\"0\",\"0\",\"0\"],"
+            + "[1704070800000,\"42300\",\"42600\",\"42200\",\"42400\",\"8\",1704074399999,\"0\",1,\"0\",\"0\",\"0\"]]";
+    private static final String MARKET_CHART = "{\"prices\":[[1704067200000,42000.5],[1704081600000,42100.5]],"
+            + "\"total_volumes\":[[1704067200000,100.0],[1704081600000,200.0]]}";
+
+    private final AtomicInteger binanceHits = new AtomicInteger();
+    private final AtomicInteger coingeckoHits = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private DisposableServer server;
+    private PersistShards persistShards;
+    private HotTierCache hotTierCache;
+    private RollupService rollupService;
+    private FetchService fetchService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Yerel HTTP sunucusu: iki kaynağı da gecikmeli yanıtlar
+        server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .get("/api/v3/klines", (req, res) -> {
+                            binanceHits.incrementAndGet();
+                            queries.add(req.uri());
+                            return res.sendString(delayed(KLINES));
+                        })
+                        .get("/coins/bitcoin/market_chart", (req, res) -> {
+                            coingeckoHits.incrementAndGet();
+                            queries.add(req.uri());
+                            return res.sendString(delayed(MARKET_CHART));
+                        }))
+                .bindNow();
+        String baseUrl = "http://localhost:" + server.port();
+
+        hotTierCache = mock(HotTierCache.class);
+        when(hotTierCache.getFixedPoint(anyString())).thenReturn(FixedPoint.DEFAULT);
+        when(hotTierCache.getVolumeFixedPoint(anyString())).thenReturn(FixedPoint.ofScale(6));
+        rollupService = mock(RollupService.class);
+        when(rollupService.aggregate(anyList(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(rollupService.upsert(anyList(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+        // 1D zaten türetiliyor, 4H için henüz geçmiş yok (tohumlanmalı)
+        PriceEntity daily = new PriceEntity("BTCUSDT", LocalDateTime.of(2024, 1, 1, 0, 0), BigDecimal.ONE, BigDecimal.ONE,
+                BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, PriceEntity.IntervalType.ONE_DAY);
+        when(hotTierCache.findLatest("BTCUSDT", PriceEntity.IntervalType.ONE_DAY)).thenReturn(daily);
+
+        persistShards = new PersistShards(2, 10);
+        fetchService = newFetchService(baseUrl, new SymbolRegistry(List.of("BTCUSDT:bitcoin")));
+    }
+
+    private FetchService newFetchService(String baseUrl, SymbolRegistry symbolRegistry) throws Exception {
+        FetchService fetchService = new FetchService(hotTierCache, rollupService,
+                WebClient.create(baseUrl), WebClient.create(baseUrl), persistShards,
+                new OutboundRequestScheduler(6000, 60), symbolRegistry);
+        java.lang.reflect.Field field = FetchService.class.getDeclaredField("rollupEnabled");
+        field.setAccessible(true);
+        field.set(fetchService, true);
+        java.lang.reflect.Field catchUpField = FetchService.class.getDeclaredField("maxCatchUpBars");
+        catchUpField.setAccessible(true);
+        catchUpField.set(fetchService, 1000);
+        java.lang.reflect.Field concurrencyField = FetchService.class.getDeclaredField("symbolConcurrency");
+        concurrencyField.setAccessible(true);
+        concurrencyField.set(fetchService, 8);
+        return fetchService;
+    }
+
+    private Mono<String> delayed(String body) {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        return Mono.just(body)
+                .delayElement(Duration.ofMillis(200))
+                .doFinally(signal -> inFlight.decrementAndGet());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.disposeNow();
+        persistShards.dispose();
+    }
+
+    @Test
+    void fetchesIntervalsConcurrentlyAndPersistsSeedBeforeRollup() {
+        fetchService.fetchAllIntervalData();
+
+        assertEquals(1, binanceHits.get());
+        assertEquals(1, coingeckoHits.get());
+        // İki gecikmeli istek aynı anda sunucuda olmalı
+        assertEquals(2, maxInFlight.get());
+
+        InOrder order = inOrder(rollupService);
+        order.verify(rollupService).upsert(anyList(), eq(PriceEntity.IntervalType.FOUR_HOURS));
+        order.verify(rollupService).upsert(anyList(), eq(PriceEntity.IntervalType.ONE_HOUR));
+        order.verify(rollupService).rollup(argThat(bars -> bars.size() == 2));
+    }
+
+    @Test
+    void requestsOnlyBarsFromLastStoredBar() {
+        LocalDateTime last = LocalDateTime.now(ZoneOffset.UTC).withMinute(0).withSecond(0).withNano(0).minusHours(2);
+        PriceEntity hourly = new PriceEntity("BTCUSDT", last, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE,
+                BigDecimal.ONE, PriceEntity.IntervalType.ONE_HOUR);
+        when(hotTierCache.findLatest("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR)).thenReturn(hourly);
+
+        fetchService.fetchAndSavePriceData("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR);
+
+        String query = queries.get(0);
+        assertTrue(query.contains("startTime=" + last.toEpochSecond(ZoneOffset.UTC) * 1000), query);
+        assertTrue(query.contains("limit=3"), query);
+    }
+
+    @Test
+    void fallsBackToBoundedWindowAfterLongDowntime() {
+        LocalDateTime last = LocalDateTime.now(ZoneOffset.UTC).minusDays(60);
+        PriceEntity hourly = new PriceEntity("BTCUSDT", last, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE,
+                BigDecimal.ONE, PriceEntity.IntervalType.ONE_HOUR);
+        when(hotTierCache.findLatest("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR)).thenReturn(hourly);
+
+        fetchService.fetchAndSavePriceData("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR);
+
+        String query = queries.get(0);
+        assertFalse(query.contains("startTime"), query);
+        assertTrue(query.contains("limit=1000"), query);
+    }
+
+    @Test
+    void overlappingCyclesShareOneRun() {
+        Mono<Void> first = fetchService.fetchAllIntervalDataAsync();
+        Mono<Void> second = fetchService.fetchAllIntervalDataAsync();
+        assertSame(first, second);
+
+        Mono.when(first, second).block(Duration.ofSeconds(5));
+        assertEquals(1, binanceHits.get());
+
+        // Döngü bittikten sonra yeni çağrı yeni bir döngü başlatır
+        fetchService.fetchAllIntervalDataAsync().block(Duration.ofSeconds(5));
+        verify(rollupService, times(2)).rollup(anyList());
+        assertEquals(2, binanceHits.get());
+    }
+
+    @Test
+    void fetchesEachSymbolWithItsOwnSource() throws Exception {
+        FetchService multi = newFetchService("http://localhost:" + server.port(),
+                new SymbolRegistry(List.of("BTCUSDT:bitcoin", "ETHUSDT")));
+
+        multi.fetchAllIntervalData();
+
+        // BTC: 1h kline + 4h tohumu CoinGecko'dan; ETH'nin CoinGecko id'si yok, tüm tohumlar Binance kline
+        assertEquals(1, coingeckoHits.get());
+        assertTrue(queries.stream().anyMatch(q -> q.contains("symbol=ETHUSDT&interval=1h")), queries.toString());
+        assertTrue(queries.stream().anyMatch(q -> q.contains("symbol=ETHUSDT&interval=4h")), queries.toString());
+        assertTrue(queries.stream().anyMatch(q -> q.contains("symbol=ETHUSDT&interval=1d")), queries.toString());
+        assertTrue(queries.stream().anyMatch(q -> q.contains("symbol=BTCUSDT&interval=1h")), queries.toString());
+        // Semboller birbirini beklemeden aynı anda çekilir
+        assertTrue(maxInFlight.get() >= 3, "maxInFlight=" + maxInFlight.get());
+        verify(rollupService, times(2)).rollup(anyList());
+    }
+}
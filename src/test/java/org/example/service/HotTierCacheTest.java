@@ -0,0 +1,151 @@
+package org.example.service;
+
+import org.example.entity.PriceEntity;
+import org.example.repository.PriceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class HotTierCacheTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private PriceRepository priceRepository;
+    private HotTierCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        priceRepository = mock(PriceRepository.class);
+        when(priceRepository.findLatestNBySymbolAndIntervalType(any(), any(), anyInt())).thenReturn(new ArrayList<>());
+        // ETHUSDT fiyatları scale 2 ile tutulur, BTCUSDT varsayılan scale 8
+        cache = new HotTierCache(priceRepository, new SymbolRegistry(List.of("BTCUSDT:bitcoin", "ETHUSDT"), 8,
+                List.of("ETHUSDT:2")), mock(ApplicationEventPublisher.class));
+        java.lang.reflect.Field field = HotTierCache.class.getDeclaredField("capacity");
+        field.setAccessible(true);
+        field.set(cache, 5);
+        cache.warmUp();
+        clearInvocations(priceRepository);
+    }
+
+    private static PriceEntity bar(int hour, String close) {
+        BigDecimal price = new BigDecimal(close);
+        return new PriceEntity("BTCUSDT", START.plusHours(hour), price, price, price, price,
+                new BigDecimal("1.5"), PriceEntity.IntervalType.ONE_HOUR);
+    }
+
+    @Test
+    void servesAppendedBarsNewestFirstWithoutRepository() {
+        cache.append(List.of(bar(0, "100.12345678"), bar(1, "101"), bar(2, "102")));
+
+        List<PriceEntity> latest = cache.findLatest("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, 2);
+
+        assertEquals(2, latest.size());
+        assertEquals(START.plusHours(2), latest.get(0).getTimestamp());
+        assertEquals(new BigDecimal("101.00000000"), latest.get(1).getClosePrice());
+        verifyNoInteractions(priceRepository);
+    }
+
+    @Test
+    void revisesBarWithSameTimestampInPlace() {
+        cache.append(List.of(bar(0, "100"), bar(1, "101")));
+        cache.append(List.of(bar(1, "105")));
+
+        List<PriceEntity> latest = cache.findLatest("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, 5);
+
+        assertEquals(2, latest.size());
+        assertEquals(0, latest.get(0).getClosePrice().compareTo(new BigDecimal("105")));
+    }
+
+    @Test
+    void fallsBackToRepositoryWhenEvictedBarsAreRequested() {
+        List<PriceEntity> bars = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            bars.add(bar(i, String.valueOf(100 + i)));
+        }
+        cache.append(bars);
+
+        assertEquals(5, cache.findLatest("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, 5).size());
+        verifyNoInteractions(priceRepository);
+
+        cache.findLatest("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, 6);
+        verify(priceRepository).findLatestNBySymbolAndIntervalType(eq("BTCUSDT"), eq(PriceEntity.IntervalType.ONE_HOUR), eq(6));
+    }
+
+    @Test
+    void outOfOrderInsertInvalidatesAndReloads() {
+        cache.append(List.of(bar(0, "100"), bar(2, "102")));
+        cache.append(List.of(bar(1, "101")));
+
+        cache.findLatest("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, 2);
+
+        verify(priceRepository).findLatestNBySymbolAndIntervalType(eq("BTCUSDT"), eq(PriceEntity.IntervalType.ONE_HOUR), eq(5));
+    }
+
+    @Test
+    void keepsSymbolsInSeparateBuffers() {
+        PriceEntity eth = new PriceEntity("ETHUSDT", START.plusHours(5), BigDecimal.TEN, BigDecimal.TEN, BigDecimal.TEN,
+                BigDecimal.TEN, BigDecimal.ONE, PriceEntity.IntervalType.ONE_HOUR);
+        cache.append(List.of(bar(0, "100"), bar(1, "101"), eth));
+
+        List<PriceEntity> latest = cache.findLatest("ETHUSDT", PriceEntity.IntervalType.ONE_HOUR, 5);
+
+        assertEquals(1, latest.size());
+        assertEquals("ETHUSDT", latest.get(0).getSymbol());
+        assertEquals(2, cache.findLatest("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, 5).size());
+        verifyNoInteractions(priceRepository);
+    }
+
+    @Test
+    void windowServesSeriesInSymbolScaleWithoutRepository() {
+        PriceEntity eth = new PriceEntity("ETHUSDT", START.plusHours(5), BigDecimal.TEN, BigDecimal.TEN, BigDecimal.TEN,
+                new BigDecimal("2250.125"), BigDecimal.ONE, PriceEntity.IntervalType.ONE_HOUR);
+        cache.append(List.of(bar(0, "100"), bar(1, "101"), bar(2, "102"), eth));
+
+        HotTierCache.Window window = cache.findWindow("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, 2);
+        assertEquals(2, window.bars.size());
+        // Eskiden yeniye; seri ve entity'ler aynı barlar
+        assertEquals(START.plusHours(1), window.bars.get(0).getTimestamp());
+        assertEquals(2, window.series.size());
+        assertEquals(10_200_000_000L, window.series.close(1));
+        assertEquals(1.5, window.series.volume(1));
+
+        HotTierCache.Window ethWindow = cache.findWindow("ETHUSDT", PriceEntity.IntervalType.ONE_HOUR, 5);
+        assertEquals(2, ethWindow.series.getFixedPoint().getScale());
+        // Scale 2'ye HALF_UP yuvarlanır
+        assertEquals(225_013L, ethWindow.series.close(0));
+        assertEquals(0, ethWindow.bars.get(0).getClosePrice().compareTo(new BigDecimal("2250.13")));
+        verifyNoInteractions(priceRepository);
+    }
+
+    @Test
+    void reloadsWhenRepositoryTailDiverges() {
+        cache.append(List.of(bar(0, "100"), bar(1, "101")));
+        when(priceRepository.findLatestBySymbolAndIntervalType("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR))
+                .thenReturn(bar(1, "101"));
+        when(priceRepository.countBySymbolAndIntervalType("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR)).thenReturn(2L);
+
+        assertTrue(cache.verifyTail("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR));
+
+        // Append'i kaçırılmış bir kayıt: repository'nin son barı buffer'dan yeni
+        List<PriceEntity> stored = List.of(bar(2, "102"), bar(1, "101"), bar(0, "100"));
+        when(priceRepository.findLatestBySymbolAndIntervalType("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR))
+                .thenReturn(stored.get(0));
+        when(priceRepository.findLatestNBySymbolAndIntervalType(eq("BTCUSDT"), eq(PriceEntity.IntervalType.ONE_HOUR), anyInt()))
+                .thenReturn(stored);
+
+        cache.verifyTails();
+
+        assertEquals(START.plusHours(2),
+                cache.findLatest("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR).getTimestamp());
+    }
+}
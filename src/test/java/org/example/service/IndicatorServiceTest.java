@@ -1,5 +1,7 @@
 package org.example.service;
 
+import org.example.entity.BarSeries;
+import org.example.entity.FixedPoint;
 import org.example.entity.PriceEntity;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -45,6 +47,7 @@ class IndicatorServiceTest {
         for (int i = 0; i < 30; i++) {
             BigDecimal price = BigDecimal.valueOf(40000 + (i * 100)); // 40000'den başlayarak artan
             PriceEntity entity = new PriceEntity(
+                "BTCUSDT",
                 LocalDateTime.now().minusDays(30 - i),
                 price,
                 price.add(BigDecimal.valueOf(50)),
@@ -106,6 +109,21 @@ class IndicatorServiceTest {
         System.out.println("EMA 12: " + ema12);
     }
     
+    @Test
+    void testCalculateOverlaysMatchesBigDecimalPath() {
+        IndicatorService.OverlaySeries overlays = indicatorService.calculateOverlays(
+                BarSeries.of(testPrices, FixedPoint.DEFAULT));
+        int last = testPrices.size() - 1;
+        
+        assertEquals(0, overlays.sma20[last].compareTo(indicatorService.calculateSMA(testPrices, 20)));
+        assertEquals(0, overlays.sma20[18].compareTo(BigDecimal.ZERO));
+        assertEquals(0, overlays.vwap[last].compareTo(indicatorService.calculateVWAP(testPrices)));
+        
+        IndicatorService.BollingerBandsResult boll = indicatorService.calculateBollingerBands(testPrices, 20, 2.0);
+        assertEquals(boll.upper.doubleValue(), overlays.bollingerUpper[last].doubleValue(), 1e-6);
+        assertEquals(boll.lower.doubleValue(), overlays.bollingerLower[last].doubleValue(), 1e-6);
+    }
+    
     @Test
     void testGenerateRSISignal() {
         // Aşırı satım durumu
@@ -169,6 +187,7 @@ class IndicatorServiceTest {
         for (int i = 0; i < 30; i++) {
             BigDecimal price = BigDecimal.valueOf(50000 - (i * 100)); // 50000'den başlayarak azalan
             PriceEntity entity = new PriceEntity(
+                "BTCUSDT",
                 LocalDateTime.now().minusDays(30 - i),
                 price,
                 price.add(BigDecimal.valueOf(50)),
@@ -186,4 +205,24 @@ class IndicatorServiceTest {
         
         System.out.println("Düşen trend RSI: " + rsi);
     }
-} 
\ No newline at end of file
+
+    @Test
+    void inProgressBarUpdatedInPlaceIsNotServedFromCache() {
+        LocalDateTime open = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<PriceEntity> series = new ArrayList<>(testPrices.subList(0, 29));
+        series.add(new PriceEntity("BTCUSDT", open, BigDecimal.valueOf(42900), BigDecimal.valueOf(43000),
+                BigDecimal.valueOf(42800), BigDecimal.valueOf(42900), BigDecimal.ONE, PriceEntity.IntervalType.ONE_DAY));
+        BigDecimal first = indicatorService.calculateSMA(series, 20);
+        BigDecimal firstEma = indicatorService.calculateEMA(series, 12);
+
+        // Aynı timestamp'li bar yeni tick ile güncellenir
+        PriceEntity updated = new PriceEntity("BTCUSDT", open, BigDecimal.valueOf(42900), BigDecimal.valueOf(46000),
+                BigDecimal.valueOf(42800), BigDecimal.valueOf(45900), BigDecimal.TEN, PriceEntity.IntervalType.ONE_DAY);
+        series.set(29, updated);
+        indicatorService.onBarsUpdated(new BarsUpdatedEvent(List.of(updated)));
+
+        BigDecimal second = indicatorService.calculateSMA(series, 20);
+        assertEquals(0, second.subtract(first).compareTo(BigDecimal.valueOf(150)));
+        assertTrue(indicatorService.calculateEMA(series, 12).compareTo(firstEma) > 0);
+    }
+}
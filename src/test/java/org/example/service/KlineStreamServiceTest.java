@@ -0,0 +1,159 @@
+package org.example.service;
+
+import org.example.entity.PriceEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class KlineStreamServiceTest {
+
+    private static final long OPEN_TIME = 1704067200000L; // 2024-01-01T00:00:00Z
+
+    private FetchService fetchService;
+    private RollupService rollupService;
+    private HotTierCache hotTierCache;
+    private PersistShards persistShards;
+    private KlineStreamService service;
+    private DisposableServer server;
+
+    private static String kline(String close, boolean closed) {
+        return "{\"e\":\"kline\",\"E\":1,\"s\":\"BTCUSDT\",\"k\":{\"t\":" + OPEN_TIME + ",\"T\":" + (OPEN_TIME + 3599999)
+                + ",\"s\":\"BTCUSDT\",\"i\":\"1h\",\"o\":\"42000.10\",\"h\":\"42500.00\",\"l\":\"41900.00\",\"c\":\""
+                + close + "\",\"v\":\"12.5\",\"x\":" + closed + "}}";
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Yerel WebSocket sunucusu: iki ara güncelleme ve bir kapanış mesajı yollar
+        server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.ws("/ws", (in, out) -> out.sendString(Flux.just(
+                        kline("42100.00", false), kline("42200.00", false), kline("42300.00", true)))
+                        .then(Mono.never())))
+                .bindNow();
+
+        fetchService = mock(FetchService.class);
+        rollupService = mock(RollupService.class);
+        hotTierCache = mock(HotTierCache.class);
+        when(rollupService.upsert(anyList(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        persistShards = new PersistShards(2, 10);
+        service = new KlineStreamService(fetchService, rollupService, hotTierCache,
+                new SymbolRegistry(List.of("BTCUSDT:bitcoin", "ETHUSDT")), persistShards);
+        setField("mode", "stream");
+        setField("streamUrl", "ws://localhost:" + server.port() + "/ws");
+        setField("reconnectDelay", 100L);
+        setField("maxReconnectDelay", 1000L);
+        setField("rollupEnabled", true);
+        setField("formingRefresh", 60_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+        server.disposeNow();
+        persistShards.dispose();
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        java.lang.reflect.Field field = KlineStreamService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(service, value);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updatesLiveBarAndStoresItOnClose() {
+        service.start();
+
+        verify(fetchService, timeout(5000)).fetchAllIntervalData();
+        ArgumentCaptor<List<PriceEntity>> upserted = ArgumentCaptor.forClass(List.class);
+        verify(rollupService, timeout(5000)).upsert(upserted.capture(), eq(PriceEntity.IntervalType.ONE_HOUR));
+        verify(rollupService, timeout(5000)).rollup(anyList());
+        // Ara güncellemeler tick başına yazılmaz: en fazla ilki (bar o sırada kapanmadıysa) hot tier'a gider
+        verify(hotTierCache, atMost(1)).append(anyList());
+        assertNull(service.getFormingBar("BTCUSDT"));
+
+        PriceEntity closed = upserted.getValue().get(0);
+        assertEquals("BTCUSDT", closed.getSymbol());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 0, 0), closed.getTimestamp());
+        assertEquals(0, closed.getClosePrice().compareTo(new BigDecimal("42300.00")));
+        assertEquals(0, closed.getVolume().compareTo(new BigDecimal("12.5")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void formingBarTicksAreThrottledBeforeReachingHotTier() {
+        service.handleMessage(kline("42100.00", false), 0);
+        service.handleMessage(kline("42150.00", false), 1_000);
+        service.handleMessage(kline("42200.00", false), 30_000);
+
+        // Ara tick'ler sadece bellekte: en güncel forming bar okunabilir
+        assertEquals(0, service.getFormingBar("BTCUSDT").getClosePrice().compareTo(new BigDecimal("42200.00")));
+        verify(hotTierCache, timeout(5000).times(1)).append(anyList());
+
+        service.handleMessage(kline("42250.00", false), 61_000);
+        ArgumentCaptor<List<PriceEntity>> appended = ArgumentCaptor.forClass(List.class);
+        verify(hotTierCache, timeout(5000).times(2)).append(appended.capture());
+        assertEquals(0, appended.getValue().get(0).getClosePrice().compareTo(new BigDecimal("42250.00")));
+    }
+
+    @Test
+    void closedBarRejectedByFullShardIsRefreshedOverRest() throws Exception {
+        PersistShards full = mock(PersistShards.class);
+        reactor.core.scheduler.Scheduler shard = mock(reactor.core.scheduler.Scheduler.class);
+        when(full.forSymbol(any())).thenReturn(shard);
+        when(shard.schedule(any())).thenThrow(new java.util.concurrent.RejectedExecutionException("queue full"));
+        when(fetchService.fetchInterval(any(), any())).thenReturn(Mono.empty());
+        KlineStreamService rejecting = new KlineStreamService(fetchService, rollupService, hotTierCache,
+                new SymbolRegistry(List.of("BTCUSDT:bitcoin")), full);
+
+        rejecting.handleMessage(kline("42300.00", true), 0);
+
+        verify(fetchService, timeout(5000)).fetchInterval("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR);
+        verify(rollupService, never()).upsert(anyList(), any());
+    }
+
+    @Test
+    void subscribesToEveryTrackedSymbol() throws Exception {
+        setField("streamUrl", "wss://stream.binance.com:9443/stream?streams={streams}");
+
+        assertEquals("wss://stream.binance.com:9443/stream?streams=btcusdt@kline_1h/ethusdt@kline_1h",
+                service.resolveStreamUrl());
+    }
+
+    @Test
+    void reconnectsAndBackfillsAfterServerDrop() {
+        server.disposeNow();
+        // Kapanışta bağlantıyı hemen kesen sunucu: her yeniden bağlantıda boşluk doldurulmalı
+        server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.ws("/ws", (in, out) -> out.sendString(Mono.just(kline("42000.00", false)))))
+                .bindNow();
+        try {
+            setField("streamUrl", "ws://localhost:" + server.port() + "/ws");
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        service.start();
+
+        verify(fetchService, timeout(5000).atLeast(2)).fetchAllIntervalData();
+        verify(rollupService, never()).upsert(anyList(), any());
+    }
+}
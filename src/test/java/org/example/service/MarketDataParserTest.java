@@ -0,0 +1,110 @@
+package org.example.service;
+
+import org.example.entity.CompactBar;
+import org.example.entity.FixedPoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketDataParserTest {
+
+    private static final FixedPoint FP = FixedPoint.DEFAULT;
+    private static final FixedPoint VOLUME_FP = FixedPoint.ofScale(6);
+
+    /**
+     * Metni verilen boyutta parçalara bölerek Netty'den gelen buffer akışını taklit eder
+     */
+    private static Flux<DataBuffer> chunked(String json, int size) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i += size) {
+            byte[] part = java.util.Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + size));
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(part));
+        }
+        return Flux.fromIterable(buffers);
+    }
+
+    @Test
+    void parsesKlinesSplitAcrossBuffers() {
+        String json = "[[1704067200000,\"42000.10000000\",\"42500.5\",\"41900\",\"42300.123456789\",\"12.5\",1704070799999,\"530000.1\",100,\"6\",\"250000\",\"0\"],"
+                + "[1704070800000,\"42300\",\"42600\",\"42200\",\"42400\",\"8\",1704074399999,\"0\",1,\"0\",\"0\",\"0\"]]";
+
+        List<CompactBar> bars = MarketDataParser.parseKlines(chunked(json, 7), FP, VOLUME_FP).collectList().block();
+
+        assertNotNull(bars);
+        assertEquals(2, bars.size());
+        CompactBar first = bars.get(0);
+        assertEquals(1704067200L, first.timestamp);
+        assertEquals(FP.toFixed(new BigDecimal("42000.1")), first.open);
+        assertEquals(FP.toFixed(new BigDecimal("42500.5")), first.high);
+        // 9. ondalık HALF_UP ile yuvarlanır
+        assertEquals(FP.toFixed(new BigDecimal("42300.123456789")), first.close);
+        assertEquals(VOLUME_FP.toFixed(new BigDecimal("12.5")), first.volume);
+        assertEquals(1704070800L, bars.get(1).timestamp);
+    }
+
+    @Test
+    void alignsMarketChartVolumesByIndex() {
+        String json = "{\"prices\":[[1704067200000,42000.5],[1704070800000,42100.25],[1704074400000,4.21E4]],"
+                + "\"market_caps\":[[1704067200000,8.2E11]],"
+                + "\"total_volumes\":[[1704067200000,100.0],[1704074400000,300.5]]}";
+
+        List<CompactBar> bars = MarketDataParser.parseMarketChart(chunked(json, 5), FP, VOLUME_FP).block();
+
+        assertNotNull(bars);
+        assertEquals(3, bars.size());
+        assertEquals(FP.toFixed(new BigDecimal("42000.5")), bars.get(0).close);
+        assertEquals(VOLUME_FP.toFixed(new BigDecimal("100")), bars.get(0).volume);
+        // Hacim noktası olmayan fiyatın hacmi 0
+        assertEquals(0L, bars.get(1).volume);
+        assertEquals(FP.toFixed(new BigDecimal("42100")), bars.get(2).open);
+        assertEquals(VOLUME_FP.toFixed(new BigDecimal("300.5")), bars.get(2).volume);
+    }
+
+    @Test
+    void largeVolumesAreExactAtTheVolumeScale() {
+        // 1.2e11 × 1e8 long'a sığmaz, hacim ölçeğinde (1e6) sığar
+        String json = "{\"prices\":[[1704067200000,42000.5]],\"total_volumes\":[[1704067200000,1.2E11]]}";
+
+        List<CompactBar> bars = MarketDataParser.parseMarketChart(chunked(json, 9), FP, VOLUME_FP).block();
+
+        assertNotNull(bars);
+        assertEquals(1, bars.size());
+        assertEquals(0, bars.get(0).toEntity("BTCUSDT", org.example.entity.PriceEntity.IntervalType.ONE_DAY, FP, VOLUME_FP)
+                .getVolume().compareTo(new BigDecimal("120000000000")));
+
+        // double'a çevrilirken kaybolacak son haneler korunur
+        String klines = "[[1704067200000,\"42000\",\"42500\",\"41900\",\"42300\",\"123456789012.345678\",1704070799999]]";
+        CompactBar bar = MarketDataParser.parseKlines(chunked(klines, 7), FP, VOLUME_FP).blockFirst();
+        assertEquals(new BigDecimal("123456789012.345678"),
+                bar.toEntity("BTCUSDT", org.example.entity.PriceEntity.IntervalType.ONE_HOUR, FP, VOLUME_FP).getVolume());
+    }
+
+    @Test
+    void volumeOutOfRangeFailsTheFetchExplicitly() {
+        String klines = "[[1704067200000,\"42000\",\"42500\",\"41900\",\"42300\",\"120000000000.5\",1704070799999]]";
+
+        DataFetchException e = assertThrows(DataFetchException.class,
+                () -> MarketDataParser.parseKlines(chunked(klines, 7), FP, FP).blockFirst());
+        assertTrue(e.getMessage().contains("app.fixed-point.volume-scales"));
+    }
+
+    @Test
+    void fixedPointParseMatchesBigDecimalRounding() {
+        String[] samples = {"0", "-1.5", "42000.10", "0.000000005", "0.000000004", "-0.000000005", "123456789.123456789", "1e3"};
+        for (String sample : samples) {
+            char[] chars = ("x" + sample + "y").toCharArray();
+            assertEquals(FP.toFixed(new BigDecimal(sample)), FP.parse(chars, 1, sample.length()), sample);
+        }
+        assertThrows(ArithmeticException.class, () -> FP.parse("999999999999".toCharArray(), 0, 12));
+        assertThrows(NumberFormatException.class, () -> FP.parse("12a".toCharArray(), 0, 3));
+    }
+}
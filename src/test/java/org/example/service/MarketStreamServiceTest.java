@@ -0,0 +1,149 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.dto.SignalDto;
+import org.example.entity.PriceEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MarketStreamServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private PriceService priceService;
+    private MarketStreamService service;
+    private final List<Disposable> subscriptions = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        priceService = mock(PriceService.class);
+        when(priceService.generateSignal(any(), any())).thenReturn(signal(SignalDto.SignalType.HOLD));
+        service = new MarketStreamService(priceService, new ObjectMapper().registerModule(new JavaTimeModule()), 50);
+        java.lang.reflect.Field field = MarketStreamService.class.getDeclaredField("heartbeat");
+        field.setAccessible(true);
+        field.set(service, 60_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        subscriptions.forEach(Disposable::dispose);
+        service.shutdown();
+    }
+
+    private static SignalDto signal(SignalDto.SignalType type) {
+        return new SignalDto(type, "1h", START, BigDecimal.TEN, "test");
+    }
+
+    private static PriceEntity bar(String symbol, int hour, String close) {
+        BigDecimal price = new BigDecimal(close);
+        return new PriceEntity(symbol, START.plusHours(hour), price, price, price, price, BigDecimal.ONE,
+                PriceEntity.IntervalType.ONE_HOUR);
+    }
+
+    private List<ServerSentEvent<String>> subscribe(String symbol) {
+        List<ServerSentEvent<String>> received = new CopyOnWriteArrayList<>();
+        subscriptions.add(service.stream(symbol, PriceEntity.IntervalType.ONE_HOUR).subscribe(received::add));
+        return received;
+    }
+
+    private static long count(List<ServerSentEvent<String>> events, String name) {
+        return events.stream().filter(e -> name.equals(e.event())).count();
+    }
+
+    @Test
+    void fansOutBarsFromOneSharedPublisherPerSymbol() throws Exception {
+        List<ServerSentEvent<String>> first = subscribe("BTCUSDT");
+        List<ServerSentEvent<String>> second = subscribe("BTCUSDT");
+        List<ServerSentEvent<String>> other = subscribe("ETHUSDT");
+
+        service.onBarsUpdated(new BarsUpdatedEvent(List.of(bar("BTCUSDT", 0, "100"), bar("BTCUSDT", 1, "101"))));
+
+        // Aynı olayda birden fazla bar varsa sadece en yenisi gönderilir
+        assertEquals(1, count(first, MarketStreamService.BAR_EVENT));
+        assertEquals(1, count(second, MarketStreamService.BAR_EVENT));
+        assertTrue(first.get(0).data().contains("\"closePrice\":101"));
+        assertEquals(0, count(other, MarketStreamService.BAR_EVENT));
+
+        // Sonradan bağlanan istemci son barı hemen alır
+        List<ServerSentEvent<String>> late = subscribe("BTCUSDT");
+        assertEquals(1, count(late, MarketStreamService.BAR_EVENT));
+    }
+
+    @Test
+    void recomputesSignalOncePerBurstAndPublishesOnlyChanges() throws Exception {
+        List<ServerSentEvent<String>> first = subscribe("BTCUSDT");
+        List<ServerSentEvent<String>> second = subscribe("BTCUSDT");
+        Thread.sleep(200);
+        clearInvocations(priceService);
+
+        for (int i = 0; i < 5; i++) {
+            service.onBarsUpdated(new BarsUpdatedEvent(List.of(bar("BTCUSDT", i, "100"))));
+        }
+        Thread.sleep(300);
+
+        // Beş bar olayı ve iki istemci için tek hesaplama; sinyal değişmediği için ilk yayından sonra yeni olay yok
+        verify(priceService, times(1)).generateSignal(eq("BTCUSDT"), eq(PriceEntity.IntervalType.ONE_HOUR));
+        assertEquals(1, count(first, MarketStreamService.SIGNAL_EVENT));
+        assertEquals(1, count(second, MarketStreamService.SIGNAL_EVENT));
+
+        when(priceService.generateSignal(any(), any())).thenReturn(signal(SignalDto.SignalType.BUY));
+        service.onBarsUpdated(new BarsUpdatedEvent(List.of(bar("BTCUSDT", 6, "120"))));
+        Thread.sleep(300);
+        assertEquals(2, count(first, MarketStreamService.SIGNAL_EVENT));
+        assertTrue(first.get(first.size() - 1).data().contains("\"signal\":\"BUY\""));
+    }
+
+    @Test
+    void sentimentOnlyChangesAreNotPublished() throws Exception {
+        List<ServerSentEvent<String>> received = subscribe("BTCUSDT");
+        Thread.sleep(200);
+
+        SignalDto moved = signal(SignalDto.SignalType.HOLD);
+        moved.setSentimentValue(new BigDecimal("73"));
+        moved.setSentimentClassification("Greed");
+        when(priceService.generateSignal(any(), any())).thenReturn(moved);
+        service.onBarsUpdated(new BarsUpdatedEvent(List.of(bar("BTCUSDT", 1, "100"))));
+        Thread.sleep(300);
+
+        // Sadece sentiment değişti: ilk sinyalden sonra yeni olay yok, ama yeni bağlanan güncel sentiment'i alır
+        assertEquals(1, count(received, MarketStreamService.SIGNAL_EVENT));
+        List<ServerSentEvent<String>> late = subscribe("BTCUSDT");
+        assertTrue(late.stream().anyMatch(e -> MarketStreamService.SIGNAL_EVENT.equals(e.event())
+                && e.data().contains("\"sentimentValue\":73")));
+    }
+
+    @Test
+    void signalsAreRecomputedOnlyForSubscribedKeys() throws Exception {
+        subscribe("ETHUSDT");
+        Thread.sleep(200);
+        clearInvocations(priceService);
+
+        // BTCUSDT'nin abonesi yok: bar yayınlanır ama sinyal hesaplanmaz
+        service.onBarsUpdated(new BarsUpdatedEvent(List.of(bar("BTCUSDT", 0, "100"))));
+        Thread.sleep(300);
+        verify(priceService, never()).generateSignal(any(), any());
+
+        // Son abone ayrılınca anahtar yeniden hesaplanmaz
+        Disposable btc = service.stream("BTCUSDT", PriceEntity.IntervalType.ONE_HOUR).subscribe();
+        Thread.sleep(200);
+        verify(priceService, times(1)).generateSignal(eq("BTCUSDT"), any());
+        btc.dispose();
+        service.onBarsUpdated(new BarsUpdatedEvent(List.of(bar("BTCUSDT", 1, "101"))));
+        Thread.sleep(300);
+        verify(priceService, times(1)).generateSignal(eq("BTCUSDT"), any());
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.service;
+
+import org.example.service.OutboundRequestScheduler.Priority;
+import org.example.service.OutboundRequestScheduler.Provider;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboundRequestSchedulerTest {
+
+    // Dakikada 600 ağırlık: her 100ms'de 1 token
+    private final OutboundRequestScheduler scheduler = new OutboundRequestScheduler(600, 600);
+
+    @Test
+    void startsQueuedRequestsByPriority() {
+        List<String> started = new CopyOnWriteArrayList<>();
+        // Bütçeyi tüket; sonraki istekler bekler
+        scheduler.execute(Provider.BINANCE, Priority.LIVE, null, 600, () -> Mono.just("drain")).block();
+
+        Mono<String> diagnostic = scheduler.execute(Provider.BINANCE, Priority.DIAGNOSTIC, null, 1,
+                () -> Mono.fromCallable(() -> record(started, "diagnostic")));
+        Mono<String> backfill = scheduler.execute(Provider.BINANCE, Priority.BACKFILL, null, 1,
+                () -> Mono.fromCallable(() -> record(started, "backfill")));
+        Mono<String> live = scheduler.execute(Provider.BINANCE, Priority.LIVE, null, 1,
+                () -> Mono.fromCallable(() -> record(started, "live")));
+        Mono.when(diagnostic, backfill, live).block(Duration.ofSeconds(5));
+
+        assertEquals(List.of("live", "backfill", "diagnostic"), started);
+    }
+
+    private static String record(List<String> started, String name) {
+        started.add(name);
+        return name;
+    }
+
+    @Test
+    void coalescesIdenticalInFlightRequests() {
+        AtomicInteger calls = new AtomicInteger();
+        Mono<Integer> first = scheduler.execute(Provider.COINGECKO, Priority.LIVE, "/coins/bitcoin", 1,
+                () -> Mono.fromCallable(calls::incrementAndGet).delayElement(Duration.ofMillis(200)));
+        Mono<Integer> second = scheduler.execute(Provider.COINGECKO, Priority.DIAGNOSTIC, "/coins/bitcoin", 1,
+                () -> Mono.fromCallable(calls::incrementAndGet).delayElement(Duration.ofMillis(200)));
+
+        assertEquals(List.of(1, 1), Mono.zip(first, second, List::of).block(Duration.ofSeconds(5)));
+        assertEquals(1, calls.get());
+
+        // Biten istek paylaşılmaz, aynı anahtar yeniden istek atar
+        Integer third = scheduler.execute(Provider.COINGECKO, Priority.LIVE, "/coins/bitcoin", 1,
+                () -> Mono.fromCallable(calls::incrementAndGet)).block(Duration.ofSeconds(5));
+        assertEquals(2, third);
+    }
+
+    @Test
+    void liveCallerPromotesQueuedCoalescedRequest() {
+        List<String> started = new CopyOnWriteArrayList<>();
+        scheduler.execute(Provider.BINANCE, Priority.LIVE, null, 600, () -> Mono.just("drain")).block();
+
+        Mono<String> diagnostic = scheduler.execute(Provider.BINANCE, Priority.DIAGNOSTIC, "/api/v3/ticker/price", 1,
+                () -> Mono.fromCallable(() -> record(started, "ticker")));
+        diagnostic.subscribe();
+        Mono<String> backfill = scheduler.execute(Provider.BINANCE, Priority.BACKFILL, null, 1,
+                () -> Mono.fromCallable(() -> record(started, "backfill"))).cache();
+        backfill.subscribe();
+        // LIVE çağıran aynı anahtara katılır: sıradaki DIAGNOSTIC istek BACKFILL'in önüne geçer
+        Mono<String> live = scheduler.execute(Provider.BINANCE, Priority.LIVE, "/api/v3/ticker/price", 1,
+                () -> Mono.fromCallable(() -> record(started, "duplicate")));
+
+        assertEquals("ticker", live.block(Duration.ofSeconds(5)));
+        Mono.when(diagnostic, backfill).block(Duration.ofSeconds(5));
+        assertEquals(List.of("ticker", "backfill"), started);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void appliesRateLimitHeaders() {
+        HttpHeaders used = new HttpHeaders();
+        used.add("X-MBX-USED-WEIGHT-1M", "600");
+        scheduler.onResponse(Provider.BINANCE, HttpStatus.OK, used);
+        Map<String, Object> binance = (Map<String, Object>) scheduler.getStatus().get("binance");
+        assertEquals(0, binance.get("available"));
+
+        HttpHeaders retryAfter = new HttpHeaders();
+        retryAfter.add(HttpHeaders.RETRY_AFTER, "1");
+        scheduler.onResponse(Provider.COINGECKO, HttpStatus.TOO_MANY_REQUESTS, retryAfter);
+
+        long start = System.currentTimeMillis();
+        scheduler.execute(Provider.COINGECKO, Priority.LIVE, null, 1, () -> Mono.just("ok")).block(Duration.ofSeconds(5));
+        assertTrue(System.currentTimeMillis() - start >= 900, "request was not held back by Retry-After");
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceQuoteServiceTest {
+
+    private StubSource fast;
+    private StubSource slow;
+
+    /**
+     * Yerel fiyat kaynağı: sabit gecikme ile sabit fiyat (ya da hata) döner
+     */
+    private static class StubSource implements PriceSource {
+        final String name;
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        final AtomicLong delay;
+        volatile String price;
+
+        StubSource(String name, String price, long delayMillis) {
+            this.name = name;
+            this.price = price;
+            this.delay = new AtomicLong(delayMillis);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean supports(String symbol) {
+            return true;
+        }
+
+        @Override
+        public Mono<BigDecimal> fetchPrice(String symbol, OutboundRequestScheduler.Priority priority) {
+            calls.incrementAndGet();
+            if (price == null) {
+                return Mono.<BigDecimal>error(new DataFetchException(name + " down"))
+                        .delaySubscription(Duration.ofMillis(delay.get()));
+            }
+            return Mono.just(new BigDecimal(price))
+                    .delayElement(Duration.ofMillis(delay.get()))
+                    .doOnCancel(() -> cancelled.set(true));
+        }
+    }
+
+    private PriceQuoteService service(PriceSource... sources) throws Exception {
+        PriceQuoteService service = new PriceQuoteService(List.of(sources), new SymbolRegistry(List.of("BTCUSDT:bitcoin")));
+        setField(service, "hedgeDelay", 100L);
+        setField(service, "minHedgeDelay", 20L);
+        setField(service, "timeout", 3000L);
+        setField(service, "maxQuoteAge", 60_000L);
+        setField(service, "spreadHistory", 3);
+        return service;
+    }
+
+    private static void setField(PriceQuoteService service, String name, Object value) throws Exception {
+        java.lang.reflect.Field field = PriceQuoteService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(service, value);
+    }
+
+    @BeforeEach
+    void setUp() {
+        fast = new StubSource("fast", "42000", 30);
+        slow = new StubSource("slow", "42100", 1500);
+    }
+
+    @Test
+    void hedgesToNextSourceWhenFirstExceedsBudget() throws Exception {
+        PriceQuoteService service = service(slow, fast);
+
+        long start = System.nanoTime();
+        PriceQuoteService.Quote quote = service.quote("BTCUSDT").block(Duration.ofSeconds(5));
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("fast", quote.source);
+        assertEquals(0, quote.price.compareTo(new BigDecimal("42000")));
+        assertTrue(elapsed < 1000, "hedge did not fire: " + elapsed + "ms");
+        // Kaybeden istek iptal edilir
+        assertTrue(slow.cancelled.get());
+    }
+
+    @Test
+    void fastPrimaryWinsWithoutHedgeAndSlowSourceIsDemoted() throws Exception {
+        PriceQuoteService service = service(fast, slow);
+        service.quote("BTCUSDT").block(Duration.ofSeconds(5));
+        assertEquals(0, slow.calls.get());
+
+        // Yavaş kaynak ilk sırada olsa bile gecikme geçmişi biriktikçe hızlı kaynak öne geçer
+        service = service(slow, fast);
+        for (int i = 0; i < 6; i++) {
+            service.quote("BTCUSDT").block(Duration.ofSeconds(5));
+        }
+        int slowCalls = slow.calls.get();
+        fast.delay.set(0);
+        service.quote("BTCUSDT").block(Duration.ofSeconds(5));
+        assertEquals(slowCalls, slow.calls.get());
+    }
+
+    @Test
+    void failingSourceHedgesImmediately() throws Exception {
+        StubSource broken = new StubSource("broken", null, 0);
+        StubSource secondary = new StubSource("secondary", "42050", 10);
+        PriceQuoteService service = service(broken, secondary);
+        setField(service, "hedgeDelay", 2000L);
+
+        long start = System.nanoTime();
+        PriceQuoteService.Quote quote = service.quote("BTCUSDT").block(Duration.ofSeconds(5));
+
+        assertEquals("secondary", quote.source);
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 1000);
+    }
+
+    @Test
+    void recordsSpreadFromFreshQuotesAndKeepsBoundedHistory() throws Exception {
+        slow.delay.set(10);
+        PriceQuoteService service = service(fast, slow);
+
+        service.sample().block(Duration.ofSeconds(5));
+        List<PriceQuoteService.SpreadPoint> series = service.getSpreadSeries("BTCUSDT");
+        assertEquals(1, series.size());
+        assertEquals(0, series.get(0).spread.compareTo(new BigDecimal("100")));
+        assertEquals(0, series.get(0).spreadPercent.compareTo(new BigDecimal("0.238095")));
+
+        // Kaynak yavaşlasa da son taze fiyatıyla seri güncellenmeye devam eder
+        slow.delay.set(10_000);
+        setField(service, "timeout", 200L);
+        service.sample().block(Duration.ofSeconds(5));
+        service.sample().block(Duration.ofSeconds(5));
+        service.sample().block(Duration.ofSeconds(5));
+        assertEquals(3, service.getSpreadSeries("BTCUSDT").size());
+
+        // Bayat fiyat kullanılmaz
+        service.recordSpread("BTCUSDT", LocalDateTime.now(ZoneOffset.UTC).plusMinutes(5));
+        List<PriceQuoteService.SpreadPoint> latest = service.getSpreadSeries("BTCUSDT");
+        assertTrue(latest.get(latest.size() - 1).timestamp.isBefore(LocalDateTime.now(ZoneOffset.UTC).plusMinutes(1)));
+    }
+}
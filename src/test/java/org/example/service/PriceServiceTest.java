@@ -0,0 +1,128 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.dto.PriceDto;
+import org.example.dto.SignalDto;
+import org.example.dto.SignalFields;
+import org.example.entity.BarSeries;
+import org.example.entity.FixedPoint;
+import org.example.entity.PriceEntity;
+import org.example.repository.PriceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PriceServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private HotTierCache hotTierCache;
+    private DataVersionService dataVersionService;
+    private MarketSentimentService marketSentimentService;
+    private PriceService priceService;
+    private final List<PriceEntity> bars = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        hotTierCache = mock(HotTierCache.class);
+        dataVersionService = mock(DataVersionService.class);
+        // Hot tier penceresi eskiden yeniye döner
+        when(hotTierCache.findWindow(eq("BTCUSDT"), eq(PriceEntity.IntervalType.ONE_DAY), eq(300)))
+                .thenAnswer(invocation -> new HotTierCache.Window(new ArrayList<>(bars), BarSeries.of(bars, FixedPoint.DEFAULT)));
+        // Hot tier en yeni önce döner
+        when(hotTierCache.findLatest(eq("BTCUSDT"), eq(PriceEntity.IntervalType.ONE_DAY), eq(200)))
+                .thenAnswer(invocation -> {
+                    List<PriceEntity> latest = new ArrayList<>(bars);
+                    Collections.reverse(latest);
+                    return latest;
+                });
+        marketSentimentService = mock(MarketSentimentService.class);
+        priceService = new PriceService(mock(PriceRepository.class), hotTierCache, new IndicatorService(),
+                marketSentimentService, new ObjectMapper(), dataVersionService);
+        for (int i = 0; i < 30; i++) {
+            bars.add(daily(i, 100 + i));
+        }
+    }
+
+    private static PriceEntity daily(int day, int close) {
+        BigDecimal price = BigDecimal.valueOf(close);
+        return new PriceEntity("BTCUSDT", START.plusDays(day), price, price.add(BigDecimal.ONE), price.subtract(BigDecimal.ONE),
+                price, BigDecimal.TEN, PriceEntity.IntervalType.ONE_DAY);
+    }
+
+    @Test
+    void sinceReturnsRevisedLastBarAndNewBarsWithSameOverlays() {
+        List<PriceDto> full = priceService.getLatestPriceData("BTCUSDT", PriceEntity.IntervalType.ONE_DAY, 300);
+        assertEquals(30, full.size());
+
+        List<PriceDto> delta = priceService.getPriceDataSince("BTCUSDT", PriceEntity.IntervalType.ONE_DAY, START.plusDays(28));
+        assertEquals(2, delta.size());
+        assertEquals(START.plusDays(28), delta.get(0).getTimestamp());
+        assertEquals(0, delta.get(1).getSma20().compareTo(full.get(29).getSma20()));
+
+        assertTrue(priceService.getPriceDataSince("BTCUSDT", PriceEntity.IntervalType.ONE_DAY, START.plusDays(40)).isEmpty());
+    }
+
+    @Test
+    void seriesIsComputedOncePerDataVersion() {
+        priceService.getLatestPriceData("BTCUSDT", PriceEntity.IntervalType.ONE_DAY, 300);
+        priceService.getPriceDataSince("BTCUSDT", PriceEntity.IntervalType.ONE_DAY, START.plusDays(29));
+        verify(hotTierCache, times(1)).findWindow("BTCUSDT", PriceEntity.IntervalType.ONE_DAY, 300);
+
+        // Yeni bar: sürüm artar, seri yeniden hesaplanır ve yeni bar görünür
+        bars.add(daily(30, 200));
+        when(dataVersionService.getVersion("BTCUSDT", PriceEntity.IntervalType.ONE_DAY)).thenReturn(1L);
+        List<PriceDto> delta = priceService.getPriceDataSince("BTCUSDT", PriceEntity.IntervalType.ONE_DAY, START.plusDays(29));
+        assertEquals(2, delta.size());
+        assertEquals(0, delta.get(1).getClosePrice().compareTo(BigDecimal.valueOf(200)));
+        verify(hotTierCache, times(2)).findWindow("BTCUSDT", PriceEntity.IntervalType.ONE_DAY, 300);
+    }
+
+    @Test
+    void sentimentVersionOnlyAppliesWhenSentimentFieldsAreRequested() {
+        when(marketSentimentService.getSnapshot()).thenReturn(
+                new MarketSentimentService.Snapshot(null, null, null, 42L));
+
+        assertEquals(0L, priceService.getSentimentVersion(SignalFields.parse("rsiValue")));
+        verifyNoInteractions(marketSentimentService);
+        assertEquals(42L, priceService.getSentimentVersion(SignalFields.parse("rsiValue,fearGreedValue")));
+        assertEquals(42L, priceService.getSentimentVersion(SignalFields.parse(null)));
+    }
+
+    @Test
+    void sparseFieldsetSkipsUnrequestedWork() {
+        SignalFields fields = SignalFields.parse("rsiValue, macdHistogram");
+        SignalDto signal = priceService.generateSignal("BTCUSDT", PriceEntity.IntervalType.ONE_DAY, fields);
+
+        assertNotNull(signal.getRsiValue());
+        assertNotNull(signal.getMacdHistogram());
+        // Detaylı analiz, Ichimoku tahmini ve sentiment hiç hesaplanmaz
+        assertNull(signal.getSignal());
+        assertNull(signal.getEntryPrice());
+        assertNull(signal.getIchimokuSignal());
+        assertNull(signal.getEma12());
+        verifyNoInteractions(marketSentimentService);
+
+        JsonNode body = (JsonNode) fields.select(new ObjectMapper().findAndRegisterModules(), signal);
+        assertEquals(2, body.size());
+        assertTrue(body.has("rsiValue") && body.has("macdHistogram"));
+
+        SignalDto full = priceService.generateSignal("BTCUSDT", PriceEntity.IntervalType.ONE_DAY,
+                SignalFields.parse("signal,entryPrice,stopLoss"));
+        assertNotNull(full.getSignal());
+        assertEquals(0, full.getRsiValue().compareTo(signal.getRsiValue()));
+
+        assertThrows(IllegalArgumentException.class, () -> SignalFields.parse("signal,nope"));
+        assertTrue(SignalFields.parse(" ").isAll());
+    }
+}
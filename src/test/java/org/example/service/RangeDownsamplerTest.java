@@ -0,0 +1,72 @@
+package org.example.service;
+
+import org.example.dto.PriceDto;
+import org.example.entity.PriceEntity;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeDownsamplerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static PriceDto hourly(int hour, String high, String low, String close) {
+        PriceDto dto = new PriceDto(new PriceEntity("BTCUSDT", START.plusHours(hour), new BigDecimal(close),
+                new BigDecimal(high), new BigDecimal(low), new BigDecimal(close), BigDecimal.ONE, PriceEntity.IntervalType.ONE_HOUR));
+        dto.setSma20(new BigDecimal(close));
+        return dto;
+    }
+
+    private static List<PriceDto> run(RangeDownsampler downsampler, List<PriceDto> bars) {
+        List<PriceDto> out = new ArrayList<>();
+        for (PriceDto bar : bars) {
+            PriceDto closed = downsampler.accept(bar);
+            if (closed != null) {
+                out.add(closed);
+            }
+        }
+        PriceDto tail = downsampler.flush();
+        if (tail != null) {
+            out.add(tail);
+        }
+        return out;
+    }
+
+    @Test
+    void bucketsKeepExtremesAndCloseAlignedOverlays() {
+        List<PriceDto> bars = new ArrayList<>();
+        for (int h = 0; h < 48; h++) {
+            bars.add(hourly(h, h == 5 ? "500" : "110", h == 30 ? "1" : "90", String.valueOf(100 + h)));
+        }
+        // 2 günlük aralık, 4 nokta: 12 saatlik bucket'lar
+        RangeDownsampler downsampler = new RangeDownsampler(START, START.plusHours(47).plusMinutes(59).plusSeconds(59), 4, 3_600);
+        List<PriceDto> out = run(downsampler, bars);
+
+        assertEquals(12 * 3_600, downsampler.getBucketSeconds());
+        assertEquals(4, out.size());
+        assertEquals(START, out.get(0).getTimestamp());
+        assertEquals(0, out.get(0).getOpenPrice().compareTo(new BigDecimal("100")));
+        assertEquals(0, out.get(0).getClosePrice().compareTo(new BigDecimal("111")));
+        assertEquals(0, out.get(0).getHighPrice().compareTo(new BigDecimal("500")));
+        assertEquals(0, out.get(0).getVolume().compareTo(new BigDecimal("12")));
+        assertEquals(0, out.get(2).getLowPrice().compareTo(BigDecimal.ONE));
+        // Overlay kapanışla aynı bardan gelir
+        assertEquals(0, out.get(3).getSma20().compareTo(out.get(3).getClosePrice()));
+        assertNull(out.get(3).getId());
+    }
+
+    @Test
+    void passesBarsThroughWhenRangeFitsAndRejectsNonPositive() {
+        List<PriceDto> bars = List.of(hourly(0, "2", "1", "1"), hourly(1, "2", "1", "2"), hourly(3, "2", "1", "3"));
+        List<PriceDto> out = run(new RangeDownsampler(START, START.plusHours(3), 1000, 3_600), bars);
+        assertEquals(3, out.size());
+        assertEquals(START.plusHours(3), out.get(2).getTimestamp());
+
+        assertThrows(IllegalArgumentException.class, () -> new RangeDownsampler(START, START.plusDays(1), 0, 3_600));
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.service;
+
+import org.example.entity.PriceEntity;
+import org.example.entity.Timeframe;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResamplerTest {
+
+    private static PriceEntity bar(LocalDateTime ts, int open, int high, int low, int close) {
+        return new PriceEntity("BTCUSDT", ts, BigDecimal.valueOf(open), BigDecimal.valueOf(high), BigDecimal.valueOf(low),
+                BigDecimal.valueOf(close), BigDecimal.ONE, PriceEntity.IntervalType.ONE_HOUR);
+    }
+
+    @Test
+    void parsesStoredAliasesAndGenericTimeframes() {
+        assertEquals(PriceEntity.IntervalType.FOUR_HOURS, Timeframe.parse("4H").toIntervalType());
+        assertEquals(PriceEntity.IntervalType.ONE_DAY, Timeframe.parse("daily").toIntervalType());
+        assertEquals("12h", Timeframe.parse("12h").getValue());
+        assertNull(Timeframe.parse("12h").toIntervalType());
+        // Küçük m dakika, büyük M ay
+        assertFalse(Timeframe.parse("15m").isCalendar());
+        assertTrue(Timeframe.parse("1M").isCalendar());
+        assertNull(Timeframe.parse("1w").toIntervalType());
+        assertThrows(IllegalArgumentException.class, () -> Timeframe.parse("0h"));
+        assertThrows(IllegalArgumentException.class, () -> Timeframe.parse("weekly-ish"));
+    }
+
+    @Test
+    void bucketsAlignToWeekAndMonthBoundaries() {
+        LocalDateTime ts = LocalDateTime.of(2024, 3, 7, 15, 30); // Perşembe
+        assertEquals(LocalDateTime.of(2024, 3, 4, 0, 0), Timeframe.parse("1w").bucketStart(ts));
+        assertEquals(LocalDateTime.of(2024, 3, 1, 0, 0), Timeframe.parse("1M").bucketStart(ts));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 0, 0), Timeframe.parse("3M").bucketStart(ts));
+        assertEquals(LocalDateTime.of(2024, 3, 7, 12, 0), Timeframe.parse("12h").bucketStart(ts));
+        assertEquals(LocalDateTime.of(2024, 3, 7, 15, 30), Timeframe.parse("15m").bucketStart(ts));
+
+        assertTrue(Timeframe.parse("12h").isAlignedWith(Timeframe.parse("4h")));
+        assertFalse(Timeframe.parse("6h").isAlignedWith(Timeframe.parse("4h")));
+        assertFalse(Timeframe.parse("15m").isAlignedWith(Timeframe.parse("1h")));
+        assertTrue(Timeframe.parse("1w").isAlignedWith(Timeframe.parse("1d")));
+        assertTrue(Timeframe.parse("1M").isAlignedWith(Timeframe.parse("1d")));
+    }
+
+    @Test
+    void resamplesWithGapsAndPartialTrailingBucket() {
+        LocalDateTime day = LocalDateTime.of(2024, 3, 5, 0, 0);
+        List<PriceEntity> bars = List.of(
+                bar(day, 100, 110, 95, 105),
+                bar(day.plusHours(1), 105, 120, 100, 115),
+                // 02:00 eksik
+                bar(day.plusHours(3), 115, 118, 90, 92),
+                bar(day.plusHours(4), 92, 99, 91, 98));
+
+        List<Resampler.Bucket> buckets = Resampler.resample(bars, Timeframe.parse("1h"), Timeframe.parse("2h"));
+
+        assertEquals(3, buckets.size());
+        Resampler.Bucket first = buckets.get(0);
+        assertEquals(day, first.timestamp);
+        assertEquals(0, first.open.compareTo(BigDecimal.valueOf(100)));
+        assertEquals(0, first.high.compareTo(BigDecimal.valueOf(120)));
+        assertEquals(0, first.low.compareTo(BigDecimal.valueOf(95)));
+        assertEquals(0, first.close.compareTo(BigDecimal.valueOf(115)));
+        assertEquals(0, first.volume.compareTo(BigDecimal.valueOf(2)));
+        assertTrue(first.complete);
+
+        Resampler.Bucket gap = buckets.get(1);
+        assertEquals(day.plusHours(2), gap.timestamp);
+        assertEquals(1, gap.barCount);
+        assertFalse(gap.complete);
+
+        Resampler.Bucket tail = buckets.get(2);
+        assertEquals(day.plusHours(4), tail.timestamp);
+        assertEquals(day.plusHours(6), tail.end);
+        assertFalse(tail.complete);
+    }
+
+    @Test
+    void buildsCalendarMonthsAndSubHourBucketsFromAlignedBases() {
+        List<PriceEntity> daily = new ArrayList<>();
+        for (LocalDateTime d = LocalDateTime.of(2024, 2, 1, 0, 0); d.isBefore(LocalDateTime.of(2024, 3, 3, 0, 0)); d = d.plusDays(1)) {
+            daily.add(bar(d, 100, 110, 90, 105));
+        }
+        List<Resampler.Bucket> months = Resampler.resample(daily, Timeframe.parse("1d"), Timeframe.parse("1M"));
+        assertEquals(2, months.size());
+        // Artık yıl Şubat'ı: 29 günlük bar ile tam
+        assertEquals(29, months.get(0).barCount);
+        assertTrue(months.get(0).complete);
+        assertEquals(LocalDateTime.of(2024, 3, 1, 0, 0), months.get(1).timestamp);
+        assertFalse(months.get(1).complete);
+
+        List<PriceEntity> fiveMinute = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 3, 5, 10, 0);
+        for (int i = 0; i < 6; i++) {
+            fiveMinute.add(bar(start.plusMinutes(5L * i), 100 + i, 101 + i, 99 + i, 100 + i));
+        }
+        List<Resampler.Bucket> quarters = Resampler.resample(fiveMinute, Timeframe.parse("5m"), Timeframe.parse("15m"));
+        assertEquals(2, quarters.size());
+        assertEquals(start.plusMinutes(15), quarters.get(1).timestamp);
+        assertEquals(0, quarters.get(1).open.compareTo(BigDecimal.valueOf(103)));
+        assertTrue(quarters.get(1).complete);
+    }
+
+    @Test
+    void rejectsMisalignedBaseAndOutOfOrderBars() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new Resampler(Timeframe.parse("1h"), Timeframe.parse("15m")));
+
+        Resampler resampler = new Resampler(Timeframe.parse("1h"), Timeframe.parse("4h"));
+        LocalDateTime ts = LocalDateTime.of(2024, 3, 5, 5, 0);
+        resampler.accept(bar(ts, 1, 1, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> resampler.accept(bar(ts.minusHours(1), 1, 1, 1, 1)));
+    }
+}
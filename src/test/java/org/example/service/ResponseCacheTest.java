@@ -0,0 +1,63 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.entity.PriceEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    private ResponseCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cache = new ResponseCache(new ObjectMapper(), 3);
+        java.lang.reflect.Field field = ResponseCache.class.getDeclaredField("gzipMinBytes");
+        field.setAccessible(true);
+        field.set(cache, 64);
+    }
+
+    @Test
+    void storesIdentityAndGzipBytesOnce() throws Exception {
+        Map<String, Object> body = Map.of("signal", "BUY", "reasoning", "x".repeat(200));
+        ResponseCache.Entry stored = cache.put("\"a\"", "BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, "application/json", body);
+
+        assertSame(stored, cache.get("\"a\""));
+        assertEquals(new ObjectMapper().writeValueAsString(body), new String(stored.identity));
+        assertTrue(stored.gzip.length < stored.identity.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(stored.gzip))) {
+            assertArrayEquals(stored.identity, in.readAllBytes());
+        }
+        // Küçük gövde sıkıştırılmaz; byte[] gövde olduğu gibi saklanır
+        ResponseCache.Entry small = cache.put("\"b\"", "BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, "application/octet-stream", new byte[]{1, 2});
+        assertNull(small.gzip);
+        assertArrayEquals(new byte[]{1, 2}, small.identity);
+    }
+
+    @Test
+    void evictsOnNewBarsForSameSymbolAndIntervalAndKeepsBound() {
+        cache.put("\"h\"", "BTCUSDT", PriceEntity.IntervalType.ONE_HOUR, "application/json", Map.of());
+        cache.put("\"d\"", "BTCUSDT", PriceEntity.IntervalType.ONE_DAY, "application/json", Map.of());
+        cache.put("\"e\"", "ETHUSDT", PriceEntity.IntervalType.ONE_HOUR, "application/json", Map.of());
+
+        cache.onBarsUpdated(new BarsUpdatedEvent(List.of(new PriceEntity("BTCUSDT", LocalDateTime.of(2024, 1, 1, 0, 0),
+                BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, PriceEntity.IntervalType.ONE_HOUR))));
+
+        assertNull(cache.get("\"h\""));
+        assertNotNull(cache.get("\"d\""));
+        assertNotNull(cache.get("\"e\""));
+
+        cache.put("\"x\"", "BTCUSDT", PriceEntity.IntervalType.FOUR_HOURS, "application/json", Map.of());
+        cache.put("\"y\"", "BTCUSDT", PriceEntity.IntervalType.FOUR_HOURS, "application/json", Map.of());
+        assertEquals(3, cache.getStats().get("entries"));
+    }
+}
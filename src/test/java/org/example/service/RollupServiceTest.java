@@ -0,0 +1,103 @@
+package org.example.service;
+
+import org.example.entity.PriceEntity;
+import org.example.repository.PriceRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RollupServiceTest {
+
+    private final RollupService rollupService =
+            new RollupService(mock(PriceRepository.class), mock(HotTierCache.class));
+
+    private static PriceEntity hourly(LocalDateTime ts, int open, int high, int low, int close) {
+        return new PriceEntity("BTCUSDT", ts, BigDecimal.valueOf(open), BigDecimal.valueOf(high), BigDecimal.valueOf(low),
+                BigDecimal.valueOf(close), BigDecimal.ONE, PriceEntity.IntervalType.ONE_HOUR);
+    }
+
+    @Test
+    void bucketStartIsAlignedToUtcBoundaries() {
+        LocalDateTime ts = LocalDateTime.of(2024, 3, 5, 7, 30);
+        assertEquals(LocalDateTime.of(2024, 3, 5, 4, 0),
+                RollupService.bucketStart(ts, PriceEntity.IntervalType.FOUR_HOURS));
+        assertEquals(LocalDateTime.of(2024, 3, 5, 0, 0),
+                RollupService.bucketStart(ts, PriceEntity.IntervalType.ONE_DAY));
+    }
+
+    @Test
+    void aggregateBuildsAlignedBucketsIncludingPartialTail() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 5, 2, 0);
+        List<PriceEntity> bars = new ArrayList<>();
+        // 02:00-07:00: 02 ve 03 ilk bucket'a (00-04), 04-07 ikinci bucket'a düşer
+        for (int i = 0; i < 6; i++) {
+            bars.add(hourly(start.plusHours(i), 100 + i, 110 + i, 90 + i, 101 + i));
+        }
+
+        List<PriceEntity> buckets = rollupService.aggregate(bars, PriceEntity.IntervalType.FOUR_HOURS);
+
+        assertEquals(2, buckets.size());
+        PriceEntity first = buckets.get(0);
+        assertEquals(LocalDateTime.of(2024, 3, 5, 0, 0), first.getTimestamp());
+        assertEquals(0, first.getOpenPrice().compareTo(BigDecimal.valueOf(100)));
+        assertEquals(0, first.getHighPrice().compareTo(BigDecimal.valueOf(111)));
+        assertEquals(0, first.getLowPrice().compareTo(BigDecimal.valueOf(90)));
+        assertEquals(0, first.getClosePrice().compareTo(BigDecimal.valueOf(102)));
+        assertEquals(0, first.getVolume().compareTo(BigDecimal.valueOf(2)));
+        assertEquals(PriceEntity.IntervalType.FOUR_HOURS, first.getIntervalType());
+
+        PriceEntity second = buckets.get(1);
+        assertEquals(LocalDateTime.of(2024, 3, 5, 4, 0), second.getTimestamp());
+        assertEquals(0, second.getClosePrice().compareTo(BigDecimal.valueOf(106)));
+        assertEquals(0, second.getVolume().compareTo(BigDecimal.valueOf(4)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void gappedBucketsDoNotOverwriteSeededBars() {
+        PriceRepository repository = mock(PriceRepository.class);
+        RollupService service = new RollupService(repository, mock(HotTierCache.class));
+        LocalDateTime day = LocalDateTime.of(2024, 3, 5, 0, 0);
+        // 00-04 bucket'ında 02:00 eksik, 04-08 tam, son saatlik bar 09:00 (08-12 bucket'ı devam ediyor)
+        List<PriceEntity> hours = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            if (i != 2) {
+                hours.add(hourly(day.plusHours(i), 100, 110, 90, 100));
+            }
+        }
+        when(repository.findLatestBySymbolAndIntervalType(any(), eq(PriceEntity.IntervalType.ONE_HOUR)))
+                .thenReturn(hours.get(hours.size() - 1));
+        when(repository.findBySymbolAndIntervalTypeAndDateRange(any(), eq(PriceEntity.IntervalType.ONE_HOUR), any(), any()))
+                .thenReturn(hours);
+        when(repository.findBySymbolAndIntervalTypeAndDateRange(any(), eq(PriceEntity.IntervalType.FOUR_HOURS), any(), any()))
+                .thenReturn(List.of(
+                        fourHour(day), fourHour(day.plusHours(4)), fourHour(day.plusHours(8))));
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.rollup(List.of(hours.get(0), hours.get(hours.size() - 1)));
+
+        org.mockito.ArgumentCaptor<List<PriceEntity>> saved = org.mockito.ArgumentCaptor.forClass(List.class);
+        verify(repository, atLeastOnce()).saveAll(saved.capture());
+        List<LocalDateTime> fourHourWrites = saved.getAllValues().stream().flatMap(List::stream)
+                .filter(bar -> bar.getIntervalType() == PriceEntity.IntervalType.FOUR_HOURS)
+                .map(PriceEntity::getTimestamp)
+                .collect(Collectors.toList());
+        // Boşluklu 00:00 bucket'ı seed edilmiş barı korur; tam ve devam eden bucket'lar güncellenir
+        assertEquals(List.of(day.plusHours(4), day.plusHours(8)), fourHourWrites);
+    }
+
+    private static PriceEntity fourHour(LocalDateTime ts) {
+        return new PriceEntity("BTCUSDT", ts, BigDecimal.valueOf(50), BigDecimal.valueOf(60), BigDecimal.valueOf(40),
+                BigDecimal.valueOf(55), BigDecimal.TEN, PriceEntity.IntervalType.FOUR_HOURS);
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight singleFlight = new SingleFlight(5000);
+
+    @Test
+    void concurrentCallersShareOneComputation() throws Exception {
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("k", () -> {
+                computations.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "signal";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                followers.add(executor.submit(() -> singleFlight.execute("k", () -> {
+                    computations.incrementAndGet();
+                    return "other";
+                })));
+            }
+            // Takipçiler bekleyen hesaplamaya katılana kadar bekle
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((long) singleFlight.getStats().get("coalesced") < 4 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertEquals("signal", leader.get(5, TimeUnit.SECONDS));
+            for (Future<String> follower : followers) {
+                assertEquals("signal", follower.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, computations.get());
+            assertEquals(1L, singleFlight.getStats().get("executions"));
+            assertEquals(0.8, (double) singleFlight.getStats().get("coalescingRate"), 1e-9);
+        } finally {
+            executor.shutdownNow();
+        }
+        // Biten hesaplama tutulmaz: sonraki çağrı yeniden hesaplar
+        assertEquals("next", singleFlight.execute("k", () -> "next"));
+    }
+
+    @Test
+    void failureIsRethrownAndNotRemembered() {
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("k", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(0, singleFlight.getStats().get("inFlight"));
+        assertEquals("ok", singleFlight.execute("k", () -> "ok"));
+    }
+
+    @Test
+    void followerComputesItselfWhenLeaderIsStuck() throws Exception {
+        SingleFlight shortWait = new SingleFlight(100);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> leader = executor.submit(() -> shortWait.execute("k", () -> {
+                started.countDown();
+                await(release);
+                return "stuck";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertEquals("own", shortWait.execute("k", () -> "own"));
+            assertEquals(1L, shortWait.getStats().get("timedOut"));
+
+            release.countDown();
+            assertEquals("stuck", leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}